@@ -0,0 +1,55 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for a ThrowerBrain changing the PatternAgent it trusts, including to and from falling back
+ * to randomThrow(). Committed from ThrowerBrain.suggest(), before the throw of the round is made.
+ *
+ * The event is enabled by default and carries no stack trace. While it is not recorded, it costs a check per switch;
+ * while it is, under a microsecond per switch. See BrainDecisionEvent for the decision of every round.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+@Name("rpslk.AgentSwitch")
+@Label("Agent Switch")
+@Category("RPSLK")
+@Description("A ThrowerBrain started to trust another PatternAgent")
+@StackTrace(false)
+public class AgentSwitchEvent extends Event {
+
+	/**
+	 * The id of the game (see ThrowerBrain.getSessionId()).
+	 */
+	@Label("Session Id")
+	long sessionId;
+	/**
+	 * The number of the round from which the new agent is trusted, counting from 1.
+	 */
+	@Label("Round")
+	long round;
+	/**
+	 * The simple class name of the PatternAgent trusted until now, or "random".
+	 */
+	@Label("Previous Agent")
+	String previousAgent;
+	/**
+	 * The number of rounds the previous agent was trusted for.
+	 */
+	@Label("Previous Rounds")
+	long previousRounds;
+	/**
+	 * The simple class name of the PatternAgent trusted from now on, or "random".
+	 */
+	@Label("Agent")
+	String agent;
+	/**
+	 * The streak of the new agent; 0 if it is "random".
+	 */
+	@Label("Streak")
+	long streak;
+}
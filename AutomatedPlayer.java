@@ -1,4 +1,9 @@
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Player that chooses throw options according to one of the five patterns: repeater, reflector, rotator, randomizer, and mixer.
@@ -14,20 +19,159 @@ public abstract class AutomatedPlayer extends Player {
 	 * @param lifespan the rounds that should pass before the AutomatedPlayer ends the game
 	 */
 	public AutomatedPlayer(GameRecord myGameRecord, int lifespan) {
+		this(myGameRecord, lifespan, new XoshiroRandomSource());
+	}
+
+	/**
+	 * Constructor. Saves the indicated lifespan and the RandomSource used to choose anything random.
+	 * Passing a seeded RandomSource makes the AutomatedPlayer's throws reproducible.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the rounds that should pass before the AutomatedPlayer ends the game
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public AutomatedPlayer(GameRecord myGameRecord, long lifespan, RandomSource myRandom) {
 		super();
 		this.myGameRecord = myGameRecord;
 		this.roundsLeft = lifespan;
-		myRandom = new Random();
+		this.myRandom = myRandom;
 		repeaterThrowChoice = chooseRandomThrow();
 		rotatorThrowIndex = 0;
 	}
 
 	/**
-	 * The sub-classes must have a method that makes a throw to the Judge.
+	 * Makes a throw and passes it to the judge of the game.
 	 * @param myJudge the judge in the game.
 	 * @throws SentinelException if there is no more rounds for the AutomatedPlayer to work in
 	 */
-	public abstract void makeThrow(Judge myJudge) throws SentinelException;
+	@Override
+	public void makeThrow(Judge myJudge) throws SentinelException {
+		myJudge.setThrow(nextThrow(), this);
+	}
+
+	/**
+	 * Makes a throw without waiting for anything, so the returned stage is always complete already.
+	 * @return a completed stage with the throw, or one completed with a SentinelException if there is no more rounds
+	 * 	for the AutomatedPlayer to work in.
+	 */
+	@Override
+	public CompletionStage<Character> requestThrow() {
+		try {
+			return CompletableFuture.completedFuture(nextThrow());
+		} catch (SentinelException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	/**
+	 * Makes the next throws in one call and writes them into part of an array, for simulations that play many rounds
+	 * and would otherwise call makeThrow() once per round. The throws are the same, in the same order, as makeThrow() would make.
+	 * 
+	 * Fills fewer than length throws when the lifespan runs out, and when the later throws depend on the Thrower's throws
+	 * of rounds that have not been played yet (see chooseThrows()): a ReflectorPlayer, and a MixerPlayer in a reflector phase,
+	 * fill a single throw per call. A caller plays the rounds of the filled throws, then calls again for the next ones.
+	 * @param buffer the array to fill.
+	 * @param offset the index of the first throw to fill.
+	 * @param length the largest number of throws to fill. Must be positive.
+	 * @return the number of throws filled, from 1 to length.
+	 * @throws SentinelException if there is no more rounds for the AutomatedPlayer to work in
+	 */
+	public int fillThrows(char[] buffer, int offset, int length) throws SentinelException {
+		if (roundsLeft < 1) {
+			roundsLeft = -1;
+			throw new SentinelException();
+		}
+		int count = chooseThrows(buffer, offset, (int) Math.min(length, roundsLeft));
+		roundsLeft -= count;
+		return count;
+	}
+
+	/**
+	 * Returns the number of rounds left in the lifespan.
+	 * @return the number of rounds left before the AutomatedPlayer ends the game.
+	 */
+	public long getRoundsLeft() {
+		return roundsLeft;
+	}
+
+	/**
+	 * Counts rounds down the lifespan without making their throws, for a SimulationEngine that skips over rounds
+	 * that would leave the state of the AutomatedPlayer as it is (see SimulationEngine.setCycleDetection()).
+	 * @param rounds the number of rounds to skip, at most getRoundsLeft().
+	 */
+	public void skipRounds(long rounds) {
+		roundsLeft -= rounds;
+	}
+
+	/**
+	 * Writes the state of the AutomatedPlayer, for a GameCheckpoint: the rounds left, the repeater throw, the rotator index,
+	 * and the state of the RandomSource. Sub-classes with state of their own write it after it.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(roundsLeft);
+		out.writeChar(repeaterThrowChoice);
+		out.writeInt(rotatorThrowIndex);
+		myRandom.writeState(out);
+	}
+
+	/**
+	 * Reads the state written by writeState() into this AutomatedPlayer.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the AutomatedPlayer.
+	 */
+	public void readState(DataInput in) throws IOException {
+		roundsLeft = GameCheckpoint.readCount(in);
+		repeaterThrowChoice = in.readChar();
+		rotatorThrowIndex = in.readInt();
+		if (Talker.getThrowIndex(repeaterThrowChoice) < 0 || rotatorThrowIndex < 0 || rotatorThrowIndex > Talker.getThrowChoices().length) {
+			throw new IOException("Invalid AutomatedPlayer state: " + repeaterThrowChoice + ", " + rotatorThrowIndex);
+		}
+		myRandom.readState(in);
+	}
+
+	/**
+	 * Adds the state that decides the AutomatedPlayer's future throws to a JointState, apart from the lifespan
+	 * and the last two rounds of the GameRecord.
+	 * @param state the JointState.
+	 * @return whether the state could be added. false unless overridden, e.g. by sub-classes that draw random numbers
+	 * 	every round, so that their state never repeats.
+	 */
+	public boolean addJointState(JointState state) {
+		return false;
+	}
+
+	/**
+	 * Makes a throw and counts down the lifespan.
+	 * @return the throw.
+	 * @throws SentinelException if there is no more rounds for the AutomatedPlayer to work in
+	 */
+	private char nextThrow() throws SentinelException {
+		char myThrow = chooseThrow();
+		roundsLeft--;
+		if (roundsLeft == -1) throw new SentinelException();
+		return myThrow;
+	}
+
+	/**
+	 * The sub-classes must have a method that chooses the next throw, according to their throwing method.
+	 * @return the throw.
+	 */
+	protected abstract char chooseThrow();
+
+	/**
+	 * Chooses the next throws, from 1 up to length of them, and writes them into part of an array.
+	 * By default chooses a single throw with chooseThrow(), which is all a sub-class whose throws depend on the Thrower can do.
+	 * Sub-classes whose throws do not, override it to fill the whole block at once.
+	 * @param buffer the array to fill.
+	 * @param offset the index of the first throw to fill.
+	 * @param length the largest number of throws to fill. Always positive.
+	 * @return the number of throws filled.
+	 */
+	protected int chooseThrows(char[] buffer, int offset, int length) {
+		buffer[offset] = chooseThrow();
+		return 1;
+	}
 
 	/**
 	 * Randomly chooses a throw and returns the same throw every time the method is called.
@@ -38,12 +182,22 @@ public abstract class AutomatedPlayer extends Player {
 	}
 
 	/**
-	 * Returns each of the 5 throw choices cyclically.
+	 * Fills part of an array with the throw repeaterThrow() returns.
+	 * @param buffer the array to fill.
+	 * @param offset the index of the first throw to fill.
+	 * @param length the number of throws to fill.
+	 */
+	protected void repeaterThrows(char[] buffer, int offset, int length) {
+		Arrays.fill(buffer, offset, offset + length, repeaterThrowChoice);
+	}
+
+	/**
+	 * Returns each of the throw choices cyclically.
 	 * @return a throw, following the previous throw in order.
 	 */
 	protected char rotatorThrow() {
 		char[] options = Talker.getThrowChoices();
-		if (rotatorThrowIndex == 5) {
+		if (rotatorThrowIndex == options.length) {
 			rotatorThrowIndex = 0;
 		}
 		char myThrow = options[rotatorThrowIndex];
@@ -51,6 +205,25 @@ public abstract class AutomatedPlayer extends Player {
 		return myThrow;
 	}
 
+	/**
+	 * Fills part of an array with the throws that length calls to rotatorThrow() would return.
+	 * @param buffer the array to fill.
+	 * @param offset the index of the first throw to fill.
+	 * @param length the number of throws to fill.
+	 */
+	protected void rotatorThrows(char[] buffer, int offset, int length) {
+		char[] options = Talker.getThrowChoices();
+		int index = rotatorThrowIndex;
+		for (int i = offset; i < offset + length; i++) {
+			if (index == options.length) {
+				index = 0;
+			}
+			buffer[i] = options[index];
+			index++;
+		}
+		rotatorThrowIndex = index;
+	}
+
 	/**
 	 * Returns the throw that Thrower has thrown in the previous round.
 	 * @return the throw that Thrower has thrown in the previous round.
@@ -65,23 +238,41 @@ public abstract class AutomatedPlayer extends Player {
 	}
 
 	/**
-	 * Returns a random throw among the 5 throw options.
-	 * @return a random throw among the 5 throw options.
+	 * Returns a random throw among the throw options.
+	 * @return a random throw among the throw options.
 	 */
 	protected char randomizerThrow() {
-		int myThrowIndex = myRandom.nextInt(5);
 		char[] options = Talker.getThrowChoices();
+		int myThrowIndex = myRandom.nextInt(options.length);
 		char myThrow = options[myThrowIndex];
 		return myThrow;
 	}
 
 	/**
-	 * Randomly chooses a throw out of the 5 options.
+	 * Fills part of an array with the throws that length calls to randomizerThrow() would return.
+	 * Draws all the random numbers of the block with a single RandomSource.nextInts().
+	 * @param buffer the array to fill.
+	 * @param offset the index of the first throw to fill.
+	 * @param length the number of throws to fill.
+	 */
+	protected void randomizerThrows(char[] buffer, int offset, int length) {
+		char[] options = Talker.getThrowChoices();
+		if (randomIndexes == null || randomIndexes.length < length) {
+			randomIndexes = new int[length];
+		}
+		myRandom.nextInts(options.length, randomIndexes, 0, length);
+		for (int i = 0; i < length; i++) {
+			buffer[offset + i] = options[randomIndexes[i]];
+		}
+	}
+
+	/**
+	 * Randomly chooses a throw out of the throw options.
 	 * @return a random throw
 	 */
 	private char chooseRandomThrow() {
-		int index = myRandom.nextInt(5);
 		char[] options = Talker.getThrowChoices();
+		int index = myRandom.nextInt(options.length);
 		return options[index];
 	}
 
@@ -90,13 +281,13 @@ public abstract class AutomatedPlayer extends Player {
 	 */
 	protected GameRecord myGameRecord;
 	/**
-	 * A Random used to choose anything random, from a random throw to a random method (mixerThrow())
+	 * A RandomSource used to choose anything random, from a random throw to a random method (mixerThrow())
 	 */
-	protected Random myRandom;
+	protected RandomSource myRandom;
 	/**
 	 * The rounds left for which the AutomatedPlayer must produce throw choices.
 	 */
-	protected int roundsLeft;
+	protected long roundsLeft;
 	/**
 	 * Used only by the repeaterThrow() method. Keeps track of the throw choice that will be repeated.
 	 */
@@ -106,5 +297,9 @@ public abstract class AutomatedPlayer extends Player {
 	 * so that the method can correctly produce the throw option immediately following it for the current round.
 	 */
 	protected int rotatorThrowIndex;
+	/**
+	 * Used only by the randomizerThrows() method. Holds the random indexes of a block of throws; null until the first block.
+	 */
+	private int[] randomIndexes;
 
 }
@@ -0,0 +1,207 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Replays the Player's throws recorded in a GameJournal through any number of ThrowerBrains, to find out how each brain
+ * would have done against the same (e.g. human) Player without playing a live game.
+ *
+ * Every brain has its own GameRecord, Thrower and Judge. In every round, the brain's Thrower makes its throw as usual
+ * (analyze() and suggest()), the recorded throw of the Player is submitted to the Judge, and the Judge decides the round.
+ * The result is counterfactual: the recorded Player reacted to the throws of the game that was recorded, not to the brain's throws.
+ *
+ * The journal is read once for all brains, in chunks of CHUNK_LENGTH rounds, so it can be far larger than the heap.
+ * The brains replay every chunk in parallel, each on its own in the given pool, all reading the same buffer of throws;
+ * the next chunk is read once every brain has finished the current one.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class Backtester {
+
+	/**
+	 * Constructor. Starts with no brains.
+	 */
+	public Backtester() {
+		brainNames = new ArrayList<String>();
+		brains = new ArrayList<BrainFactory>();
+	}
+
+	/**
+	 * Replays a journal through all brains in the game and prints how each would have done.
+	 * @param args the path of the journal, and optionally the seed and the name or path of the rule set the journal was played by
+	 * 	(see RuleSet.forName()).
+	 * @throws IOException if the journal or the rule set cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path path = Paths.get(args[0]);
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		if (args.length > 2) {
+			Talker.setRuleSet(RuleSet.forName(args[2]));
+		}
+		Backtester backtester = new Backtester();
+		backtester.addBrain("ThrowerBrain", (r, rand) -> new ThrowerBrain(r, rand));
+		backtester.addBrain("IocaineThrowerBrain", (r, rand) -> new IocaineThrowerBrain(r, rand));
+		backtester.addBrain("DeactivatedThrowerBrain", (r, rand) -> new DeactivatedThrowerBrain(r, rand));
+		long start = System.nanoTime();
+		SimulationResult[] results = backtester.run(path, seed, ForkJoinPool.commonPool());
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Thrower's win percentage out of all non-draw rounds of " + path + " (seed " + seed + "):");
+		System.out.print(backtester.formatResults(results));
+		long rounds = results.length > 0 ? results[0].getNumRounds() : 0;
+		System.out.println("Replayed " + rounds + " rounds through " + results.length + " brains in " + (elapsed / 1000000) + " ms.");
+	}
+
+	/**
+	 * Adds a ThrowerBrain to replay the journal through.
+	 * @param name the name shown in the results.
+	 * @param brainFactory creates the ThrowerBrain.
+	 */
+	public void addBrain(String name, BrainFactory brainFactory) {
+		brainNames.add(name);
+		brains.add(brainFactory);
+	}
+
+	/**
+	 * Replays the Player's throws of a journal through every brain.
+	 * @param path the path of the journal.
+	 * @param seed the seed from which the RandomSource of every brain is split.
+	 * @param pool the pool that runs the brains.
+	 * @return the results, in the order the brains were added.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public SimulationResult[] run(Path path, long seed, ForkJoinPool pool) throws IOException {
+		RandomSource myRandom = new XoshiroRandomSource(seed);
+		Replay[] replays = new Replay[brains.size()];
+		for (int b = 0; b < replays.length; b++) {
+			replays[b] = new Replay(brains.get(b), myRandom.split());
+		}
+		char[] playerThrows = new char[CHUNK_LENGTH];
+		ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>(replays.length);
+		try (GameJournalReader reader = new GameJournalReader(path, true)) {
+			int numThrows = readChunk(reader, playerThrows);
+			while (numThrows > 0) {
+				int chunkLength = numThrows;
+				tasks.clear();
+				for (Replay replay : replays) {
+					tasks.add(pool.submit(() -> replay.play(playerThrows, chunkLength)));
+				}
+				for (ForkJoinTask<?> task : tasks) {
+					task.join();
+				}
+				numThrows = readChunk(reader, playerThrows);
+			}
+		}
+		SimulationResult[] results = new SimulationResult[replays.length];
+		for (int b = 0; b < replays.length; b++) {
+			results[b] = replays[b].getResult();
+		}
+		return results;
+	}
+
+	/**
+	 * Formats the results with one line per brain: its name and the Thrower's win percentage out of all rounds that are not draws.
+	 * @param results the results returned by run().
+	 * @return the results, one line per brain.
+	 */
+	public String formatResults(SimulationResult[] results) {
+		int nameWidth = 0;
+		for (String name : brainNames) {
+			nameWidth = Math.max(nameWidth, name.length());
+		}
+		StringBuilder lines = new StringBuilder();
+		for (int b = 0; b < results.length; b++) {
+			lines.append(String.format("%-" + nameWidth + "s | %9.2f%%", brainNames.get(b), results[b].getThrowerWinPercentage()));
+			lines.append(System.lineSeparator());
+		}
+		return lines.toString();
+	}
+
+	/**
+	 * Reads the Player's throws of the next rounds of the journal, as many as fit in the buffer.
+	 * @param reader the reader of the journal.
+	 * @param playerThrows the buffer for the throws.
+	 * @return the number of throws read; 0 once the journal has ended.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	private static int readChunk(GameJournalReader reader, char[] playerThrows) throws IOException {
+		int numThrows = 0;
+		while (numThrows < playerThrows.length && reader.next()) {
+			playerThrows[numThrows] = reader.getRound().getPlayerChoice();
+			numThrows++;
+		}
+		return numThrows;
+	}
+
+	/**
+	 * The game of one brain against the recorded throws.
+	 */
+	private static class Replay {
+
+		/**
+		 * Constructor. Sets up a new game.
+		 * @param brainFactory creates the ThrowerBrain of the Thrower.
+		 * @param myRandom the RandomSource the ThrowerBrain should use for random throws.
+		 */
+		private Replay(BrainFactory brainFactory, RandomSource myRandom) {
+			myGameRecord = new WindowedGameRecord(SimulationEngine.HISTORY_WINDOW);
+			myThrower = new Thrower(myGameRecord, brainFactory.create(myGameRecord, myRandom));
+			myPlayer = new Player();
+			myJudge = new Judge(myGameRecord);
+		}
+
+		/**
+		 * Plays a round against each of the given throws, in order.
+		 * @param playerThrows the recorded throws of the Player.
+		 * @param numThrows the number of throws to play.
+		 */
+		private void play(char[] playerThrows, int numThrows) {
+			for (int i = 0; i < numThrows; i++) {
+				myThrower.makeThrow(myJudge);
+				myJudge.setThrow(playerThrows[i], myPlayer);
+				myJudge.decideAndRecord();
+			}
+		}
+
+		/**
+		 * Returns the counts of wins, draws, and losses of all rounds played so far.
+		 * @return the result of the game so far.
+		 */
+		private SimulationResult getResult() {
+			return new SimulationResult(myGameRecord.getNumPlayerWins(), myGameRecord.getNumDraws(), myGameRecord.getNumThrowerWins());
+		}
+
+		/**
+		 * The GameRecord of the game.
+		 */
+		private GameRecord myGameRecord;
+		/**
+		 * The Thrower playing the game.
+		 */
+		private Thrower myThrower;
+		/**
+		 * The Player whose recorded throws are submitted to the Judge.
+		 */
+		private Player myPlayer;
+		/**
+		 * The Judge that decides win/losses.
+		 */
+		private Judge myJudge;
+	}
+
+	/**
+	 * The number of rounds read from the journal at a time.
+	 */
+	public static final int CHUNK_LENGTH = 65536;
+	/**
+	 * The names of the brains, in the order they were added.
+	 */
+	private ArrayList<String> brainNames;
+	/**
+	 * The factories of the brains, in the order they were added.
+	 */
+	private ArrayList<BrainFactory> brains;
+}
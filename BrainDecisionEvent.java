@@ -0,0 +1,95 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Java Flight Recorder event for one decision of a ThrowerBrain: which PatternAgent it trusted in ThrowerBrain.suggest()
+ * (or that it fell back to randomThrow()), that agent's streak, the throw it suggested, and how the round turned out.
+ *
+ * The outcome is only known once the Player has thrown, so the ThrowerBrain keeps the event until its next analyze()
+ * and commits it there. The decision of the last round is committed by ThrowerBrain.endGame() when the game ends,
+ * with the outcome "Unknown" if the game ended before the Player's throw. The event's time is when the outcome became known.
+ *
+ * There is one event per round, so the event is disabled by default, to keep continuous recordings small;
+ * AgentSwitchEvent, which is enabled, shows when the trusted agent changes. Turn it on for a recording with, e.g.,
+ * -XX:StartFlightRecording:+rpslk.BrainDecision#enabled=true
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+@Name("rpslk.BrainDecision")
+@Label("Brain Decision")
+@Category("RPSLK")
+@Description("The PatternAgent a ThrowerBrain trusted for a throw, and the outcome of the round")
+@Enabled(false)
+@StackTrace(false)
+public class BrainDecisionEvent extends Event {
+
+	/**
+	 * Fills in the outcome of the round the decision was made for.
+	 * @param lastRound the round, as recorded by the Judge.
+	 */
+	public void setOutcome(Round lastRound) {
+		playerThrow = lastRound.getPlayerChoice();
+		short result = lastRound.getResult();
+		if (result == Talker.PLAYER_WIN) {
+			outcome = "Player win";
+		} else if (result == Talker.DRAW) {
+			outcome = "Draw";
+		} else {
+			outcome = "Thrower win";
+		}
+	}
+
+	/**
+	 * Marks the outcome of the round as unknown, for a round the game ended in before the Player's throw.
+	 */
+	public void setUnknownOutcome() {
+		outcome = "Unknown";
+	}
+
+	/**
+	 * The id of the game (see ThrowerBrain.getSessionId()).
+	 */
+	@Label("Session Id")
+	long sessionId;
+	/**
+	 * The number of the round the decision was made for, counting from 1.
+	 */
+	@Label("Round")
+	long round;
+	/**
+	 * The simple class name of the trusted PatternAgent, or "random" if the ThrowerBrain fell back to randomThrow().
+	 */
+	@Label("Agent")
+	String agent;
+	/**
+	 * The streak of the trusted PatternAgent; 0 if the ThrowerBrain fell back to randomThrow().
+	 */
+	@Label("Streak")
+	long streak;
+	/**
+	 * Whether the ThrowerBrain fell back to randomThrow() because no agent had a streak.
+	 */
+	@Label("Random Fallback")
+	boolean randomFallback;
+	/**
+	 * The throw the ThrowerBrain suggested.
+	 */
+	@Label("Thrower Throw")
+	char throwerThrow;
+	/**
+	 * The Player's throw in the round.
+	 */
+	@Label("Player Throw")
+	char playerThrow;
+	/**
+	 * Who won the round: "Player win", "Draw", "Thrower win", or "Unknown" if the game ended before the Player's throw.
+	 */
+	@Label("Outcome")
+	String outcome;
+}
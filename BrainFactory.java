@@ -0,0 +1,17 @@
+/**
+ * Creates the ThrowerBrain for a simulated game.
+ * Used by SimulationEngine, which creates a fresh GameRecord and RandomSource for every game, so that
+ * each game gets its own ThrowerBrain that does not share any state with other games.
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public interface BrainFactory {
+
+	/**
+	 * Creates a ThrowerBrain.
+	 * @param myGameRecord the GameRecord in the game.
+	 * @param myRandom the RandomSource the ThrowerBrain should use for random throws.
+	 * @return a new ThrowerBrain.
+	 */
+	ThrowerBrain create(GameRecord myGameRecord, RandomSource myRandom);
+}
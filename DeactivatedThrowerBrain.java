@@ -1,5 +1,3 @@
-import java.util.Random;
-
 /**
  * The "brain" that chooses for the Thrower random throws.
  * 
@@ -20,6 +18,15 @@ public class DeactivatedThrowerBrain extends ThrowerBrain{
 	public DeactivatedThrowerBrain(GameRecord myGameRecord) {
 		super(myGameRecord);
 	}
+
+	/**
+	 * Constructor. Only saves the RandomSource used to choose random throws.
+	 * @param myGameRecord The GameRecord in the game, which this class does not use at all.
+	 * @param myRandom the RandomSource used to choose random throws.
+	 */
+	public DeactivatedThrowerBrain(GameRecord myGameRecord, RandomSource myRandom) {
+		super(myGameRecord, myRandom);
+	}
 	
 	/**
 	 * This method, designed to override the normal analyze method, does not do anything.
@@ -37,4 +44,14 @@ public class DeactivatedThrowerBrain extends ThrowerBrain{
 		return randomThrow();
 	}
 
+	/**
+	 * Adds nothing, since every throw is random and the game never repeats itself.
+	 * @param state the JointState.
+	 * @return false.
+	 */
+	@Override
+	public boolean addJointState(JointState state) {
+		return false;
+	}
+
 }
@@ -0,0 +1,305 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Measures the win rate of every brain against every player of a Tournament to a requested precision, instead of playing
+ * a fixed number of rounds per match: a match stops as soon as the Wilson interval of the Thrower's win rate out of all
+ * non-draw rounds (see SimulationResult.getThrowerWinLowerBound()) is no wider than the precision on either side.
+ * Easy matches, like ThrowerBrain against a RepeaterPlayer at 100%, stop after a chunk; close ones, like any brain against
+ * a RandomizerPlayer at 50%, get the rounds they need.
+ *
+ * The rounds are played in steps. In every step, each unfinished match plays CHUNK_ROUNDS more rounds in each of its games,
+ * all in the pool at once, and then its interval is updated from the counts of all its games. A match starts with one game
+ * (a SimulationEngine with cycle detection on). While fewer matches are unfinished than the pool has threads, the
+ * spare threads go to the unfinished matches with the widest intervals, each of which starts another game with its own
+ * RandomSource and adds its rounds to the match, so the last uncertain matches use the whole pool.
+ *
+ * Which matches get more games only depends on the counts after each step, and every game's RandomSource is split from
+ * the seed in a fixed order, so the results depend on the seed and the parallelism of the pool, but not on the timing
+ * of the threads.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class ExperimentRunner {
+
+	/**
+	 * Constructor.
+	 * @param tournament the brains and players to measure.
+	 * @param precision the largest half-width of the interval at which a match stops, in percentage points.
+	 * @param maxRounds the number of rounds after which a match stops even if the interval is still wider.
+	 */
+	public ExperimentRunner(Tournament tournament, double precision, long maxRounds) {
+		if (precision <= 0) {
+			throw new IllegalArgumentException("Precision must be positive: " + precision);
+		}
+		this.tournament = tournament;
+		this.precision = precision;
+		this.maxRounds = maxRounds;
+	}
+
+	/**
+	 * Measures the default tournament (see Tournament.createDefault()) and prints the win rates with their intervals,
+	 * and the number of rounds each match took.
+	 * @param args optionally, the precision in percentage points, the seed, the largest number of rounds per match,
+	 * 	and the name or path of the rule set (see RuleSet.forName()).
+	 */
+	public static void main(String[] args) {
+		double precision = args.length > 0 ? Double.parseDouble(args[0]) : DEFAULT_PRECISION;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		long maxRounds = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_MAX_ROUNDS;
+		if (args.length > 3) {
+			try {
+				Talker.setRuleSet(RuleSet.forName(args[3]));
+			} catch (IOException | IllegalArgumentException e) {
+				System.out.println("Cannot load the rule set " + args[3] + ": " + e.getMessage());
+				return;
+			}
+		}
+		ExperimentRunner runner = new ExperimentRunner(Tournament.createDefault(), precision, maxRounds);
+		long start = System.nanoTime();
+		SimulationResult[][] results = runner.run(seed, ForkJoinPool.commonPool());
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Thrower's win percentage out of all non-draw rounds, +/- " + precision + " points at 95% confidence, of "
+				+ Talker.getRuleSet().getName() + " (seed " + seed + "):");
+		System.out.print(runner.formatMatrix(results));
+		long totalRounds = 0;
+		for (SimulationResult[] row : results) {
+			for (SimulationResult result : row) {
+				totalRounds += result.getNumRounds();
+			}
+		}
+		System.out.println("Played " + totalRounds + " rounds in " + (elapsed / 1000000) + " ms.");
+	}
+
+	/**
+	 * Measures every brain against every player, in the given pool.
+	 * @param seed the seed from which the RandomSource of every game is split.
+	 * @param pool the pool that plays the games.
+	 * @return the results of all the games of each match, indexed by [brain][player] in the order they were added.
+	 */
+	public SimulationResult[][] run(long seed, ForkJoinPool pool) {
+		RandomSource myRandom = new XoshiroRandomSource(seed);
+		ArrayList<Match> unfinished = new ArrayList<Match>();
+		Match[][] matches = new Match[tournament.getNumBrains()][tournament.getNumPlayers()];
+		for (int b = 0; b < matches.length; b++) {
+			for (int p = 0; p < matches[b].length; p++) {
+				matches[b][p] = new Match(tournament.getBrain(b), tournament.getPlayer(p), myRandom.split());
+				unfinished.add(matches[b][p]);
+			}
+		}
+		while (!unfinished.isEmpty()) {
+			//the widest intervals first, so that they get the spare threads
+			unfinished.sort((m1, m2) -> Double.compare(m2.getHalfWidth(), m1.getHalfWidth()));
+			for (Match match : unfinished) {
+				match.numActiveGames = 1;
+			}
+			int spareThreads = pool.getParallelism() - unfinished.size();
+			for (int i = 0; i < spareThreads; i++) {
+				unfinished.get(i % unfinished.size()).numActiveGames++;
+			}
+			ArrayList<ForkJoinTask<?>> chunks = new ArrayList<ForkJoinTask<?>>();
+			for (Match match : unfinished) {
+				for (int g = 0; g < match.numActiveGames; g++) {
+					SimulationEngine game = match.getGame(g);
+					chunks.add(pool.submit(() -> game.run(CHUNK_ROUNDS)));
+				}
+			}
+			for (ForkJoinTask<?> chunk : chunks) {
+				chunk.join();
+			}
+			for (Match match : unfinished) {
+				match.update();
+			}
+			unfinished.removeIf(match -> match.isFinished(precision, maxRounds));
+		}
+		SimulationResult[][] results = new SimulationResult[matches.length][];
+		for (int b = 0; b < matches.length; b++) {
+			results[b] = new SimulationResult[matches[b].length];
+			for (int p = 0; p < matches[b].length; p++) {
+				results[b][p] = matches[b][p].result;
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Formats the results as a matrix with one row per brain and one column per player. Each cell is the Thrower's
+	 * win percentage out of all rounds that are not draws, with the half-width of its interval, and the number of rounds played.
+	 * @param results the results returned by run().
+	 * @return the matrix, one line per row.
+	 */
+	public String formatMatrix(SimulationResult[][] results) {
+		int nameWidth = 0;
+		for (int b = 0; b < tournament.getNumBrains(); b++) {
+			nameWidth = Math.max(nameWidth, tournament.getBrainName(b).length());
+		}
+		StringBuilder matrix = new StringBuilder();
+		matrix.append(String.format("%-" + nameWidth + "s", ""));
+		for (int p = 0; p < tournament.getNumPlayers(); p++) {
+			matrix.append(String.format(" | %24s", tournament.getPlayerName(p)));
+		}
+		matrix.append(System.lineSeparator());
+		for (int b = 0; b < results.length; b++) {
+			matrix.append(String.format("%-" + nameWidth + "s", tournament.getBrainName(b)));
+			for (int p = 0; p < results[b].length; p++) {
+				SimulationResult result = results[b][p];
+				matrix.append(String.format(" | %7.2f%% +/-%5.2f %8s", result.getThrowerWinPercentage(), getHalfWidth(result),
+						formatRounds(result.getNumRounds())));
+			}
+			matrix.append(System.lineSeparator());
+		}
+		return matrix.toString();
+	}
+
+	/**
+	 * Returns the half-width of the interval of a result, in percentage points.
+	 * @param result the result.
+	 * @return the half-width of the interval.
+	 */
+	private static double getHalfWidth(SimulationResult result) {
+		return (result.getThrowerWinUpperBound(CONFIDENCE_Z) - result.getThrowerWinLowerBound(CONFIDENCE_Z)) / 2;
+	}
+
+	/**
+	 * Formats a number of rounds in thousands (k) or millions (M).
+	 * @param rounds the number of rounds.
+	 * @return the number of rounds, e.g. "3.2M".
+	 */
+	private static String formatRounds(long rounds) {
+		if (rounds >= 1000000) {
+			return String.format("%.1fM", rounds / 1e6);
+		}
+		return String.format("%dk", rounds / 1000);
+	}
+
+	/**
+	 * A match between a brain and a player, played in one or more games whose counts are added up.
+	 */
+	private static class Match {
+
+		/**
+		 * Constructor. Starts with no games.
+		 * @param brainFactory creates the ThrowerBrain of every game.
+		 * @param playerFactory creates the AutomatedPlayer of every game.
+		 * @param myRandom the RandomSource from which the RandomSource of every game is split.
+		 */
+		Match(BrainFactory brainFactory, PlayerFactory playerFactory, RandomSource myRandom) {
+			this.brainFactory = brainFactory;
+			this.playerFactory = playerFactory;
+			this.myRandom = myRandom;
+			games = new ArrayList<SimulationEngine>();
+			result = new SimulationResult(0, 0, 0);
+		}
+
+		/**
+		 * Returns a game of the match, starting a new one if there are not that many games yet.
+		 * @param index the index of the game, at most the number of games so far.
+		 * @return the game.
+		 */
+		SimulationEngine getGame(int index) {
+			if (index == games.size()) {
+				SimulationEngine game = new SimulationEngine(brainFactory, playerFactory, myRandom.split());
+				game.setCycleDetection(true);
+				games.add(game);
+			}
+			return games.get(index);
+		}
+
+		/**
+		 * Adds up the counts of all the games.
+		 */
+		void update() {
+			long playerWins = 0;
+			long draws = 0;
+			long throwerWins = 0;
+			for (SimulationEngine game : games) {
+				SimulationResult gameResult = game.getResult();
+				playerWins += gameResult.getPlayerWins();
+				draws += gameResult.getDraws();
+				throwerWins += gameResult.getThrowerWins();
+			}
+			result = new SimulationResult(playerWins, draws, throwerWins);
+		}
+
+		/**
+		 * Tells whether the match is finished, and if so, ends its games (see SimulationEngine.endGame()).
+		 * @param precision the largest half-width of the interval at which the match stops, in percentage points.
+		 * @param maxRounds the number of rounds after which the match stops even if the interval is still wider.
+		 * @return whether the match is finished.
+		 */
+		boolean isFinished(double precision, long maxRounds) {
+			if (getHalfWidth() > precision && result.getNumRounds() < maxRounds) {
+				return false;
+			}
+			for (SimulationEngine game : games) {
+				game.endGame();
+			}
+			return true;
+		}
+
+		/**
+		 * Returns the half-width of the interval of the match so far, in percentage points.
+		 * @return the half-width of the interval.
+		 */
+		double getHalfWidth() {
+			return ExperimentRunner.getHalfWidth(result);
+		}
+
+		/**
+		 * Creates the ThrowerBrain of every game.
+		 */
+		private BrainFactory brainFactory;
+		/**
+		 * Creates the AutomatedPlayer of every game.
+		 */
+		private PlayerFactory playerFactory;
+		/**
+		 * The RandomSource from which the RandomSource of every game is split.
+		 */
+		private RandomSource myRandom;
+		/**
+		 * The games of the match, in the order they were started.
+		 */
+		private ArrayList<SimulationEngine> games;
+		/**
+		 * The number of games that play in the current step.
+		 */
+		private int numActiveGames;
+		/**
+		 * The counts of all the games, as of the last update().
+		 */
+		private SimulationResult result;
+	}
+
+	/**
+	 * The number of standard deviations the intervals span on each side: 95% confidence.
+	 */
+	public static final double CONFIDENCE_Z = 1.96;
+	/**
+	 * The default precision, in percentage points.
+	 */
+	public static final double DEFAULT_PRECISION = 0.1;
+	/**
+	 * The default largest number of rounds per match.
+	 */
+	public static final long DEFAULT_MAX_ROUNDS = 100000000;
+	/**
+	 * The number of rounds each game plays in a step.
+	 */
+	public static final long CHUNK_ROUNDS = 1 << 16;
+	/**
+	 * The brains and players to measure.
+	 */
+	private Tournament tournament;
+	/**
+	 * The largest half-width of the interval at which a match stops, in percentage points.
+	 */
+	private double precision;
+	/**
+	 * The number of rounds after which a match stops even if the interval is still wider.
+	 */
+	private long maxRounds;
+}
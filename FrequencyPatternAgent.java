@@ -0,0 +1,170 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * FrequencyPatternAgent only exist in the ThrowerBrain (in practice, in the IocaineThrowerBrain).
+ * This PatternAgent guesses that the Player will make the throw it made most often over its last few throws (the "window").
+ * It catches Players that favor one throw without always throwing it, e.g. a MixerPlayer, whose repeater phases always
+ * 	make the same throw.
+ * When asked, the PatternAgent can also suggest a throw (for the Thrower) based on its prediction of the Player's pattern.
+ * 
+ * The last throws are kept in a ring buffer of bytes together with a count per throw option, so guessing, suggesting, and learning
+ * 	from a throw each take the same time no matter how long the window is, and never create objects.
+ * 
+ * Note, the agent learns the Player's last throw in observe(), which the ThrowerBrain only calls after the agent has made its guess,
+ * 	so the agent does not cheat in the guessPlayersLastThrow method.
+ * @author Haidun Liu
+ * @version 1.02
+ */
+
+public class FrequencyPatternAgent extends PatternAgent {
+
+	/**
+	 * Constructor. Uses the default window.
+	 */
+	public FrequencyPatternAgent() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Constructor.
+	 * @param window how many of the Player's last throws are counted. Must be at least 1.
+	 */
+	public FrequencyPatternAgent(int window) {
+		if (window < 1) {
+			throw new IllegalArgumentException("Window must be at least 1: " + window);
+		}
+		lastThrows = new byte[window];
+		counts = new int[Talker.getThrowChoices().length];
+		position = 0;
+		numSeen = 0;
+	}
+
+	/**
+	 * Guesses what the player's most current throw would be: the throw it made most often in the window.
+	 * Before it has seen any throw, it makes no guess (returns NO_PREDICTION).
+	 * @param playersSecondToLastThrow the player's second to last throw.
+	 * @return conjecture as to what the player's most current throw would be, or NO_PREDICTION.
+	 */
+	public char guessPlayersLastThrow (char playersSecondToLastThrow) {
+		int prediction = predict();
+		if (prediction < 0) {
+			return NO_PREDICTION;
+		}
+		return Talker.getThrowChoices()[prediction];
+	}
+
+	/**
+	 * Learns the Player's last throw: adds it to the window, dropping the oldest throw once the window is full.
+	 * @param playersLastThrow the player's last throw.
+	 */
+	@Override
+	public void observe (char playersLastThrow) {
+		int throwIndex = Talker.getThrowIndex(playersLastThrow);
+		if (numSeen == lastThrows.length) {
+			counts[lastThrows[position]]--;
+		} else {
+			numSeen++;
+		}
+		lastThrows[position] = (byte) throwIndex;
+		counts[throwIndex]++;
+		position++;
+		if (position == lastThrows.length) {
+			position = 0;
+		}
+	}
+
+	/**
+	 * Suggests a throw (for the Thrower) that beats the throw the Player made most often in the window.
+	 * If there is no such throw yet, beats the player's last throw.
+	 * @param playersLastThrow the player's last throw.
+	 * @return suggested throw for the Thrower.
+	 */
+	public char suggest (char playersLastThrow) {
+		int prediction = predict();
+		if (prediction < 0) {
+			return getPredator(playersLastThrow);
+		}
+		return getPredator(Talker.getThrowChoices()[prediction]);
+	}
+
+	/**
+	 * Predicts the Player's next throw: the throw it made most often in the window.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the predicted next throw of the Player, or NO_PREDICTION if the window is empty.
+	 */
+	@Override
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		int prediction = predict();
+		if (prediction < 0) {
+			return NO_PREDICTION;
+		}
+		return Talker.getThrowChoices()[prediction];
+	}
+
+	/**
+	 * Writes the streak, the statistics, the throws in the window, and their counts, for a GameCheckpoint.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out);
+		GameCheckpoint.writeBytes(out, lastThrows);
+		GameCheckpoint.writeInts(out, counts);
+		out.writeInt(position);
+		out.writeInt(numSeen);
+	}
+
+	/**
+	 * Reads the state written by writeState().
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read, or was written by a FrequencyPatternAgent with another window.
+	 */
+	@Override
+	public void readState(DataInput in) throws IOException {
+		super.readState(in);
+		GameCheckpoint.readBytes(in, lastThrows);
+		GameCheckpoint.readInts(in, counts);
+		position = in.readInt();
+		numSeen = in.readInt();
+	}
+
+	/**
+	 * Finds the throw made most often in the window. Ties go to the throw that comes first in Talker.getThrowChoices().
+	 * @return the index of that throw, or -1 if the window is empty.
+	 */
+	private int predict() {
+		int best = -1;
+		int bestCount = 0;
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > bestCount) {
+				best = i;
+				bestCount = counts[i];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * The window used by the constructor without parameters.
+	 */
+	public static final int DEFAULT_WINDOW = 100;
+	/**
+	 * The ring buffer of the indexes of the Player's last throws.
+	 */
+	private byte[] lastThrows;
+	/**
+	 * How often each throw option appears in the window.
+	 */
+	private int[] counts;
+	/**
+	 * The position in lastThrows where the next throw goes.
+	 */
+	private int position;
+	/**
+	 * How many throws are in the window.
+	 */
+	private int numSeen;
+}
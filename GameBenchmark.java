@@ -0,0 +1,348 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+/**
+ * Measures the hot paths of the game: Judge.decideAndRecord(), ThrowerBrain.analyze() plus suggest(), GameRecord.addRound()
+ * for every kind of GameRecord, and full rounds of a Thrower against an AutomatedPlayer.
+ * 
+ * Every benchmark is warmed up first, then measured over several timed iterations. For each benchmark the throughput
+ * (operations per second, with its spread over the iterations), the time per operation, and the number of bytes
+ * allocated per operation (from the JVM's per-thread allocation counter) are printed. The numbers can be compared
+ * between versions of the game to catch regressions, or between alternative implementations.
+ * 
+ * Usage: java GameBenchmark [name filter] [milliseconds per iteration]
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameBenchmark {
+
+	/**
+	 * Runs all benchmarks whose names contain the filter (all of them if no filter is given).
+	 * @param args optionally, the name filter and the length of an iteration in milliseconds.
+	 */
+	public static void main(String[] args) {
+		String filter = args.length > 0 ? args[0] : "";
+		long iterationMillis = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_ITERATION_MILLIS;
+		System.out.println(String.format("%-36s %16s %12s %12s %12s", "Benchmark", "ops/s", "+/- ops/s", "ns/op", "B/op"));
+		for (Benchmark benchmark : createBenchmarks()) {
+			if (benchmark.getName().contains(filter)) {
+				benchmark.measure(iterationMillis);
+			}
+		}
+	}
+
+	/**
+	 * Creates all benchmarks.
+	 * @return all benchmarks.
+	 */
+	private static ArrayList<Benchmark> createBenchmarks() {
+		ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new Benchmark("Judge.decideAndRecord") {
+			@Override
+			protected long run(long ops) {
+				GameRecord myGameRecord = new WindowedGameRecord(SimulationEngine.HISTORY_WINDOW);
+				Judge myJudge = new Judge(myGameRecord);
+				Thrower myThrower = new Thrower(myGameRecord, new DeactivatedThrowerBrain(myGameRecord, new XoshiroRandomSource(SEED)));
+				Player myPlayer = new Player();
+				long sum = 0;
+				for (long i = 0; i < ops; i++) {
+					myJudge.setThrow(THROWS[(int) (i & THROWS_MASK)], myThrower);
+					myJudge.setThrow(THROWS[(int) ((i + 7) & THROWS_MASK)], myPlayer);
+					sum += myJudge.decideAndRecord();
+				}
+				return sum;
+			}
+		});
+		benchmarks.add(new Benchmark("ThrowerBrain.analyze+suggest") {
+			@Override
+			protected long run(long ops) {
+				GameRecord myGameRecord = new WindowedGameRecord(SimulationEngine.HISTORY_WINDOW);
+				ThrowerBrain myBrain = new ThrowerBrain(myGameRecord, new XoshiroRandomSource(SEED));
+				long sum = 0;
+				for (long i = 0; i < ops; i++) {
+					char throwerChoice = THROWS[(int) (i & THROWS_MASK)];
+					char playerChoice = THROWS[(int) ((i + 7) & THROWS_MASK)];
+					myGameRecord.addRound(throwerChoice, playerChoice, Judge.decide(throwerChoice, playerChoice));
+					if (i >= 2) {
+						myBrain.analyze();
+						sum += myBrain.suggest();
+					}
+				}
+				return sum;
+			}
+		});
+		benchmarks.add(new AddRoundBenchmark("GameRecord.addRound") {
+			@Override
+			protected GameRecord createGameRecord() {
+				return new GameRecord();
+			}
+		});
+		benchmarks.add(new AddRoundBenchmark("PackedGameRecord.addRound") {
+			@Override
+			protected GameRecord createGameRecord() {
+				return new PackedGameRecord();
+			}
+		});
+		benchmarks.add(new AddRoundBenchmark("WindowedGameRecord.addRound") {
+			@Override
+			protected GameRecord createGameRecord() {
+				return new WindowedGameRecord(SimulationEngine.HISTORY_WINDOW);
+			}
+		});
+		benchmarks.add(new FillThrowsBenchmark("RandomizerPlayer.fillThrows x1", 1));
+		benchmarks.add(new FillThrowsBenchmark("RandomizerPlayer.fillThrows x4096", SimulationEngine.THROW_BLOCK));
+		benchmarks.add(new Benchmark("round loop vs repeater") {
+			@Override
+			protected long run(long ops) {
+				return playRounds(ops, (r, lifespan, rand) -> new RepeaterPlayer(r, lifespan, rand));
+			}
+		});
+		benchmarks.add(new Benchmark("round loop vs randomizer") {
+			@Override
+			protected long run(long ops) {
+				return playRounds(ops, (r, lifespan, rand) -> new RandomizerPlayer(r, lifespan, rand));
+			}
+		});
+		benchmarks.add(new Benchmark("round loop vs mixer 2") {
+			@Override
+			protected long run(long ops) {
+				return playRounds(ops, (r, lifespan, rand) -> new MixerPlayer(r, lifespan, 2, rand));
+			}
+		});
+		return benchmarks;
+	}
+
+	/**
+	 * Plays full rounds of a ThrowerBrain against an AutomatedPlayer.
+	 * @param rounds the number of rounds to play.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 * @return the number of rounds the Thrower won, so that the work cannot be optimized away.
+	 */
+	private static long playRounds(long rounds, PlayerFactory playerFactory) {
+		SimulationEngine engine = new SimulationEngine((r, rand) -> new ThrowerBrain(r, rand), playerFactory, SEED);
+		engine.run(rounds);
+		return engine.getResult().getThrowerWins();
+	}
+
+	/**
+	 * A single benchmark. Subclasses implement run(), which performs the measured operation a given number of times.
+	 */
+	private abstract static class Benchmark {
+
+		/**
+		 * Constructor.
+		 * @param name the name of the benchmark.
+		 */
+		Benchmark(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Returns the name of the benchmark.
+		 * @return the name of the benchmark.
+		 */
+		String getName() {
+			return name;
+		}
+
+		/**
+		 * Performs the measured operation ops times.
+		 * @param ops the number of operations.
+		 * @return a value computed from the operations, so that they cannot be optimized away.
+		 */
+		protected abstract long run(long ops);
+
+		/**
+		 * Warms the benchmark up, then measures it and prints the results.
+		 * First finds a number of operations that takes about one iteration, so that timing overhead does not matter.
+		 * @param iterationMillis the length of an iteration in milliseconds.
+		 */
+		void measure(long iterationMillis) {
+			long ops = 1024;
+			long iterationNanos = iterationMillis * 1000000;
+			while (true) {
+				long start = System.nanoTime();
+				consume(run(ops));
+				if (System.nanoTime() - start > iterationNanos / 4) {
+					break;
+				}
+				ops *= 2;
+			}
+			ops *= 4;
+			for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+				consume(run(ops));
+			}
+			double[] opsPerSecond = new double[MEASUREMENT_ITERATIONS];
+			long allocatedBytes = 0;
+			for (int i = 0; i < MEASUREMENT_ITERATIONS; i++) {
+				long allocatedBefore = getAllocatedBytes();
+				long start = System.nanoTime();
+				consume(run(ops));
+				long elapsed = System.nanoTime() - start;
+				allocatedBytes += getAllocatedBytes() - allocatedBefore;
+				opsPerSecond[i] = ops * 1e9 / elapsed;
+			}
+			double mean = 0;
+			for (double value : opsPerSecond) {
+				mean += value / opsPerSecond.length;
+			}
+			double variance = 0;
+			for (double value : opsPerSecond) {
+				variance += (value - mean) * (value - mean) / (opsPerSecond.length - 1);
+			}
+			double bytesPerOp = (double) allocatedBytes / ((double) ops * MEASUREMENT_ITERATIONS);
+			System.out.println(String.format("%-36s %16.0f %12.0f %12.2f %12.3f", name, mean, Math.sqrt(variance), 1e9 / mean, bytesPerOp));
+		}
+
+		/**
+		 * The name of the benchmark.
+		 */
+		private String name;
+	}
+
+	/**
+	 * A benchmark of GameRecord.addRound(). Starts a new GameRecord every RECORD_LENGTH rounds,
+	 * so that a GameRecord that keeps every round does not fill the heap.
+	 */
+	private abstract static class AddRoundBenchmark extends Benchmark {
+
+		/**
+		 * Constructor.
+		 * @param name the name of the benchmark.
+		 */
+		AddRoundBenchmark(String name) {
+			super(name);
+		}
+
+		/**
+		 * Creates the GameRecord under test.
+		 * @return a new, empty GameRecord.
+		 */
+		protected abstract GameRecord createGameRecord();
+
+		@Override
+		protected long run(long ops) {
+			GameRecord myGameRecord = createGameRecord();
+			long sum = 0;
+			for (long i = 0; i < ops; i++) {
+				if (myGameRecord.getNumRounds() == RECORD_LENGTH) {
+					sum += myGameRecord.getNumThrowerWins();
+					myGameRecord = createGameRecord();
+				}
+				char throwerChoice = THROWS[(int) (i & THROWS_MASK)];
+				char playerChoice = THROWS[(int) ((i + 7) & THROWS_MASK)];
+				myGameRecord.addRound(throwerChoice, playerChoice, Judge.decide(throwerChoice, playerChoice));
+			}
+			return sum + myGameRecord.getNumThrowerWins();
+		}
+	}
+
+	/**
+	 * A benchmark of AutomatedPlayer.fillThrows() on a RandomizerPlayer, making a given number of throws per call.
+	 * With one throw per call, it costs about as much as makeThrow().
+	 */
+	private static class FillThrowsBenchmark extends Benchmark {
+
+		/**
+		 * Constructor.
+		 * @param name the name of the benchmark.
+		 * @param blockLength the number of throws to make per call.
+		 */
+		FillThrowsBenchmark(String name, int blockLength) {
+			super(name);
+			this.blockLength = blockLength;
+		}
+
+		@Override
+		protected long run(long ops) {
+			AutomatedPlayer myPlayer = new RandomizerPlayer(null, Integer.MAX_VALUE, new XoshiroRandomSource(SEED));
+			char[] buffer = new char[blockLength];
+			long sum = 0;
+			try {
+				for (long i = 0; i < ops; ) {
+					int count = myPlayer.fillThrows(buffer, 0, (int) Math.min(blockLength, ops - i));
+					for (int j = 0; j < count; j++) {
+						sum += buffer[j];
+					}
+					i += count;
+				}
+			} catch (SentinelException e) {
+				//the lifespan is longer than any run
+			}
+			return sum;
+		}
+
+		/**
+		 * The number of throws to make per call.
+		 */
+		private int blockLength;
+	}
+
+	/**
+	 * Keeps a value computed by a benchmark, so that the JIT compiler cannot drop the computation.
+	 * @param value the value computed by the benchmark.
+	 */
+	private static void consume(long value) {
+		sink ^= value;
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, or 0 if the JVM cannot tell.
+	 * @return the number of bytes allocated so far by the current thread.
+	 */
+	private static long getAllocatedBytes() {
+		java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Creates a pseudo-random sequence of throws for the benchmarks to cycle through.
+	 * @return a sequence of THROWS_MASK + 1 throws.
+	 */
+	private static char[] createThrows() {
+		RandomSource myRandom = new XoshiroRandomSource(SEED);
+		char[] options = Talker.getThrowChoices();
+		char[] sequence = new char[THROWS_MASK + 1];
+		for (int i = 0; i < sequence.length; i++) {
+			sequence[i] = options[myRandom.nextInt(options.length)];
+		}
+		return sequence;
+	}
+
+	/**
+	 * The default length of an iteration in milliseconds.
+	 */
+	public static final long DEFAULT_ITERATION_MILLIS = 1000;
+	/**
+	 * The number of iterations run before measuring.
+	 */
+	private static final int WARMUP_ITERATIONS = 3;
+	/**
+	 * The number of measured iterations.
+	 */
+	private static final int MEASUREMENT_ITERATIONS = 5;
+	/**
+	 * The number of rounds after which AddRoundBenchmark starts a new GameRecord.
+	 */
+	private static final int RECORD_LENGTH = 1 << 20;
+	/**
+	 * The seed of every RandomSource used by the benchmarks.
+	 */
+	private static final long SEED = 42;
+	/**
+	 * Mask for indexing into THROWS. THROWS has a power-of-two length.
+	 */
+	private static final int THROWS_MASK = 4095;
+	/**
+	 * A pseudo-random sequence of throws.
+	 */
+	private static final char[] THROWS = createThrows();
+	/**
+	 * Where the values computed by the benchmarks are kept.
+	 */
+	private static volatile long sink;
+}
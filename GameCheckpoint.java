@@ -0,0 +1,380 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Saves the whole state of a SimulationEngine or a GameSession to a file, and restores it into another one, so that a game
+ * can be resumed where it stopped, in another run of the program, without replaying its rounds through the ThrowerBrain.
+ *
+ * The state is what the ThrowerBrain, its PatternAgents, the AutomatedPlayer, the GameRecord and their RandomSources
+ * write with their writeState() methods: streaks, counts, indexes and random states, and the rounds the GameRecord keeps.
+ * With a WindowedGameRecord, that is the same few hundred bytes however long the game was, so saving and restoring take
+ * the same time after a hundred rounds as after a hundred million. A restored game goes on exactly as the saved one would have.
+ *
+ * The file starts with the int MAGIC and the int VERSION, then the kind of game ("SimulationEngine" or "GameSession")
+ * and the throw options of its RuleSet as UTF strings, then the int length of the state, the state,
+ * and the int CRC-32 checksum of the state. A checkpoint can only be restored into a game of the same kind and RuleSet,
+ * created with the same factories; the class of every object is saved with it and checked.
+ * Every later version of the format must still read the checkpoints of the earlier versions; a checkpoint of a later version
+ * than the program's is refused. Version 2 saves counts of rounds that can pass Integer.MAX_VALUE as longs, where version 1
+ * saved ints; readCount() reads either. Version 1 also saved the wins, draws, and losses of the rounds a SimulationEngine
+ * skipped over outside its GameRecord, where version 2 keeps them in the GameRecord; a version 1 checkpoint with skipped
+ * rounds is refused.
+ *
+ * A checkpoint is written to a temporary file first and then moved over the old one, so a crash while saving
+ * never leaves a broken checkpoint behind.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameCheckpoint {
+
+	/**
+	 * Plays a game, saves it, restores it into a new game with another seed, and checks that both games go on the same way.
+	 * Prints how long saving and restoring took, and how large the checkpoint is. Exits with status 1 if the games differ.
+	 * @param args optionally, the number of rounds to play before saving, and the path of the checkpoint.
+	 * @throws IOException if the checkpoint cannot be written or read.
+	 */
+	public static void main(String[] args) throws IOException {
+		long rounds = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_ROUNDS;
+		Path path = args.length > 1 ? Paths.get(args[1]) : Files.createTempFile("checkpoint", ".rpslk");
+		BrainFactory brainFactory = (r, rand) -> new IocaineThrowerBrain(r, rand);
+		PlayerFactory playerFactory = (r, lifespan, rand) -> new MixerPlayer(r, lifespan, 3, rand);
+		SimulationEngine saved = new SimulationEngine(brainFactory, playerFactory, 42);
+		long start = System.nanoTime();
+		saved.run(rounds);
+		long played = System.nanoTime();
+		save(saved, path);
+		long written = System.nanoTime();
+		SimulationEngine restored = new SimulationEngine(brainFactory, playerFactory, 7);
+		restore(restored, path);
+		long read = System.nanoTime();
+		System.out.println("Played " + rounds + " rounds in " + (played - start) / 1000000 + " ms, saved " + Files.size(path)
+				+ " bytes in " + (written - played) / 1000 + " us, restored in " + (read - written) / 1000 + " us.");
+		saved.run(CHECK_ROUNDS);
+		restored.run(CHECK_ROUNDS);
+		SimulationResult expected = saved.getResult();
+		SimulationResult actual = restored.getResult();
+		boolean matches = expected.toString().equals(actual.toString());
+		if (matches) {
+			System.out.println("The restored game matches the saved one after " + CHECK_ROUNDS + " more rounds: " + actual);
+		} else {
+			System.out.println("The restored game differs from the saved one: " + actual + " instead of " + expected);
+		}
+		if (args.length < 2) {
+			Files.delete(path);
+		}
+		if (!matches) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Saves the state of a SimulationEngine.
+	 * @param engine the SimulationEngine.
+	 * @param path the path of the checkpoint. An existing checkpoint is replaced.
+	 * @throws IOException if the checkpoint cannot be written.
+	 */
+	public static void save(SimulationEngine engine, Path path) throws IOException {
+		ByteArrayOutputStream state = new ByteArrayOutputStream();
+		engine.writeState(new DataOutputStream(state));
+		write(path, "SimulationEngine", state.toByteArray());
+	}
+
+	/**
+	 * Restores the state of a SimulationEngine. The engine must be new, and created with the factories of the saved one.
+	 * @param engine the SimulationEngine.
+	 * @param path the path of the checkpoint.
+	 * @throws IOException if the checkpoint cannot be read, is damaged, or does not fit the engine.
+	 */
+	public static void restore(SimulationEngine engine, Path path) throws IOException {
+		DataInputStream in = read(path, "SimulationEngine");
+		engine.readState(in);
+		checkEnd(in);
+	}
+
+	/**
+	 * Saves the state of a GameSession.
+	 * @param session the GameSession.
+	 * @param path the path of the checkpoint. An existing checkpoint is replaced.
+	 * @throws IOException if the checkpoint cannot be written.
+	 */
+	public static void save(GameSession session, Path path) throws IOException {
+		ByteArrayOutputStream state = new ByteArrayOutputStream();
+		session.writeState(new DataOutputStream(state));
+		write(path, "GameSession", state.toByteArray());
+	}
+
+	/**
+	 * Restores the state of a GameSession. The session must be new, and created with the BrainFactory of the saved one.
+	 * @param session the GameSession.
+	 * @param path the path of the checkpoint.
+	 * @throws IOException if the checkpoint cannot be read, is damaged, or does not fit the session.
+	 */
+	public static void restore(GameSession session, Path path) throws IOException {
+		DataInputStream in = read(path, "GameSession");
+		session.readState(in);
+		checkEnd(in);
+	}
+
+	/**
+	 * Reads a class name written with DataOutput.writeUTF() and checks that it is the class of the given object.
+	 * @param in where to read the class name from.
+	 * @param object the object whose state is about to be read.
+	 * @throws IOException if the class name cannot be read, or the state was saved from an object of another class.
+	 */
+	static void checkClass(DataInput in, Object object) throws IOException {
+		String savedClass = in.readUTF();
+		if (!savedClass.equals(object.getClass().getName())) {
+			throw new IOException("Saved " + savedClass + " cannot be restored into " + object.getClass().getName());
+		}
+	}
+
+	/**
+	 * Reads a count of rounds that can pass Integer.MAX_VALUE: a long, or an int in a checkpoint of version 1.
+	 * @param in where to read the count from.
+	 * @return the count.
+	 * @throws IOException if the count cannot be read.
+	 */
+	static long readCount(DataInput in) throws IOException {
+		if (getVersion(in) < 2) {
+			return in.readInt();
+		}
+		return in.readLong();
+	}
+
+	/**
+	 * Returns the version of the checkpoint a state is being read from.
+	 * @param in where the state is read from.
+	 * @return the version of the checkpoint, or VERSION if the state is not read from a checkpoint file.
+	 */
+	static int getVersion(DataInput in) {
+		return in instanceof StateInput ? ((StateInput) in).version : VERSION;
+	}
+
+	/**
+	 * Reads the code of a round (see Round.encode()) written as a char, and decodes it.
+	 * @param in where to read the code from.
+	 * @return the round.
+	 * @throws IOException if the code cannot be read or is not a round of the game's RuleSet.
+	 */
+	static Round readRound(DataInput in) throws IOException {
+		int code = in.readChar();
+		if (code >= Talker.getRuleSet().getNumCodes()) {
+			throw new IOException("Invalid round: " + code);
+		}
+		return Round.decode(code);
+	}
+
+	/**
+	 * Writes an array of ints: its length, then the ints.
+	 * @param out where to write the array.
+	 * @param values the array.
+	 * @throws IOException if the array cannot be written.
+	 */
+	static void writeInts(DataOutput out, int[] values) throws IOException {
+		out.writeInt(values.length);
+		for (int value : values) {
+			out.writeInt(value);
+		}
+	}
+
+	/**
+	 * Reads an array written by writeInts() into an array of the same length.
+	 * @param in where to read the array from.
+	 * @param values the array to fill.
+	 * @throws IOException if the array cannot be read or has another length.
+	 */
+	static void readInts(DataInput in, int[] values) throws IOException {
+		checkLength(in, values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readInt();
+		}
+	}
+
+	/**
+	 * Writes an array of longs: its length, then the longs.
+	 * @param out where to write the array.
+	 * @param values the array.
+	 * @throws IOException if the array cannot be written.
+	 */
+	static void writeLongs(DataOutput out, long[] values) throws IOException {
+		out.writeInt(values.length);
+		for (long value : values) {
+			out.writeLong(value);
+		}
+	}
+
+	/**
+	 * Reads an array written by writeLongs() into an array of the same length.
+	 * @param in where to read the array from.
+	 * @param values the array to fill.
+	 * @throws IOException if the array cannot be read or has another length.
+	 */
+	static void readLongs(DataInput in, long[] values) throws IOException {
+		checkLength(in, values.length);
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readLong();
+		}
+	}
+
+	/**
+	 * Writes an array of bytes: its length, then the bytes.
+	 * @param out where to write the array.
+	 * @param values the array.
+	 * @throws IOException if the array cannot be written.
+	 */
+	static void writeBytes(DataOutput out, byte[] values) throws IOException {
+		out.writeInt(values.length);
+		out.write(values);
+	}
+
+	/**
+	 * Reads an array written by writeBytes() into an array of the same length.
+	 * @param in where to read the array from.
+	 * @param values the array to fill.
+	 * @throws IOException if the array cannot be read or has another length.
+	 */
+	static void readBytes(DataInput in, byte[] values) throws IOException {
+		checkLength(in, values.length);
+		in.readFully(values);
+	}
+
+	/**
+	 * Reads the length of an array and checks that it is the expected one.
+	 * @param in where to read the length from.
+	 * @param length the expected length.
+	 * @throws IOException if the length cannot be read or is another one.
+	 */
+	private static void checkLength(DataInput in, int length) throws IOException {
+		int savedLength = in.readInt();
+		if (savedLength != length) {
+			throw new IOException("Saved array has " + savedLength + " values, not " + length);
+		}
+	}
+
+	/**
+	 * Writes a checkpoint to a temporary file next to the path, then moves it to the path.
+	 * @param path the path of the checkpoint.
+	 * @param kind the kind of game.
+	 * @param state the state of the game.
+	 * @throws IOException if the checkpoint cannot be written.
+	 */
+	private static void write(Path path, String kind, byte[] state) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(state.length + HEADER_ROOM);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeUTF(kind);
+		out.writeUTF(new String(Talker.getThrowChoices()));
+		out.writeInt(state.length);
+		out.write(state);
+		CRC32 checksum = new CRC32();
+		checksum.update(state);
+		out.writeInt((int) checksum.getValue());
+		Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+		Files.write(temporary, bytes.toByteArray());
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Reads a checkpoint and checks its header and checksum.
+	 * @param path the path of the checkpoint.
+	 * @param kind the kind of game the checkpoint must be of.
+	 * @return a stream of the state of the game.
+	 * @throws IOException if the checkpoint cannot be read, is damaged, or is not of the given kind and the game's RuleSet.
+	 */
+	private static StateInput read(Path path, String kind) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(path)));
+		if (in.readInt() != MAGIC) {
+			throw new IOException(path + " is not a game checkpoint");
+		}
+		int version = in.readInt();
+		if (version < 1 || version > VERSION) {
+			throw new IOException(path + " has checkpoint version " + version + ", this program reads up to version " + VERSION);
+		}
+		String savedKind = in.readUTF();
+		if (!savedKind.equals(kind)) {
+			throw new IOException(path + " is a checkpoint of a " + savedKind + ", not a " + kind);
+		}
+		String savedThrows = in.readUTF();
+		if (!savedThrows.equals(new String(Talker.getThrowChoices()))) {
+			throw new IOException(path + " was saved with the throw options " + savedThrows + ", not those of "
+					+ Talker.getRuleSet().getName());
+		}
+		int length = in.readInt();
+		if (length < 0 || length > in.available() - Integer.BYTES) {
+			throw new IOException(path + " is cut short");
+		}
+		byte[] state = new byte[length];
+		in.readFully(state);
+		CRC32 checksum = new CRC32();
+		checksum.update(state);
+		if (in.readInt() != (int) checksum.getValue()) {
+			throw new IOException(path + " is damaged: wrong checksum");
+		}
+		return new StateInput(state, version);
+	}
+
+	/**
+	 * Checks that the whole state was read.
+	 * @param in the stream of the state.
+	 * @throws IOException if there are bytes left, i.e. the state was not written by a game like the one it was read into.
+	 */
+	private static void checkEnd(DataInputStream in) throws IOException {
+		if (in.available() > 0) {
+			throw new IOException("The checkpoint has " + in.available() + " bytes more than the game reads");
+		}
+	}
+
+	/**
+	 * The stream of the state of a game read from a checkpoint, which knows the version of the checkpoint.
+	 */
+	private static class StateInput extends DataInputStream {
+
+		/**
+		 * Constructor.
+		 * @param state the state of the game.
+		 * @param version the version of the checkpoint.
+		 */
+		StateInput(byte[] state, int version) {
+			super(new ByteArrayInputStream(state));
+			this.version = version;
+		}
+
+		/**
+		 * The version of the checkpoint.
+		 */
+		final int version;
+	}
+
+	/**
+	 * The int at the start of every checkpoint ("RPSC").
+	 */
+	public static final int MAGIC = 0x52505343;
+	/**
+	 * The version of the format written by this program.
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * Room for the header and the checksum, on top of the state.
+	 */
+	private static final int HEADER_ROOM = 64;
+	/**
+	 * The number of rounds main() plays before saving, by default.
+	 */
+	private static final long DEFAULT_ROUNDS = 10000000;
+	/**
+	 * The number of rounds main() plays after restoring, in both games.
+	 */
+	private static final long CHECK_ROUNDS = 1000000;
+}
@@ -0,0 +1,140 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Plays many sessions against a GameServer at the same time, e.g. over loopback, to check and measure the server.
+ *
+ * Every session throws like a RotatorPlayer. Each round, the client sends a throw on every session before it reads
+ * any answer, so the server has all sessions to serve at once. At the end it ends every session with the sentinel
+ * and prints the Thrower's win percentage over all sessions, which should be close to 100% for a ThrowerBrain.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameClient {
+
+	/**
+	 * Plays the sessions and prints the result.
+	 * @param args the host and port of the server, and optionally the number of sessions and rounds per session.
+	 * @throws IOException if a connection fails.
+	 */
+	public static void main(String[] args) throws IOException {
+		String host = args[0];
+		int port = Integer.parseInt(args[1]);
+		int numSessions = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_SESSIONS;
+		int rounds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_ROUNDS;
+		long start = System.nanoTime();
+		SimulationResult result = play(new InetSocketAddress(host, port), numSessions, rounds);
+		long elapsed = System.nanoTime() - start;
+		System.out.println(numSessions + " sessions of " + rounds + " rounds: " + result);
+		System.out.println("Played " + result.getNumRounds() + " rounds in " + (elapsed / 1000000) + " ms ("
+				+ (long) (result.getNumRounds() * 1000000000.0 / elapsed) + " rounds/s).");
+	}
+
+	/**
+	 * Plays the given number of sessions against a server and returns the counts over all sessions, as reported by the server.
+	 * @param address the address of the server.
+	 * @param numSessions the number of sessions.
+	 * @param rounds the number of rounds per session.
+	 * @return the counts of wins, draws, and losses over all sessions.
+	 * @throws IOException if a connection fails or the server answers something unexpected.
+	 */
+	public static SimulationResult play(InetSocketAddress address, int numSessions, int rounds) throws IOException {
+		SocketChannel[] channels = new SocketChannel[numSessions];
+		try {
+			for (int i = 0; i < numSessions; i++) {
+				channels[i] = SocketChannel.open(address);
+				channels[i].socket().setTcpNoDelay(true);
+			}
+			char[] options = Talker.getThrowChoices();
+			ByteBuffer request = ByteBuffer.allocate(2);
+			ByteBuffer answer = ByteBuffer.allocate(ROUND_ANSWER_LENGTH);
+			for (int r = 0; r < rounds; r++) {
+				for (SocketChannel channel : channels) {
+					request.clear();
+					request.put((byte) options[r % options.length]).put((byte) '\n').flip();
+					while (request.hasRemaining()) {
+						channel.write(request);
+					}
+				}
+				for (SocketChannel channel : channels) {
+					answer.clear();
+					readFully(channel, answer);
+					if (answer.get(1) != ' ' || answer.get(3) != '\n') {
+						throw new IOException("Unexpected answer from the server.");
+					}
+				}
+			}
+			long playerWins = 0;
+			long draws = 0;
+			long throwerWins = 0;
+			for (SocketChannel channel : channels) {
+				channel.write(ByteBuffer.wrap((GameRunner.SENTINEL + "\n").getBytes(StandardCharsets.US_ASCII)));
+				String[] counts = readLine(channel).split(" ");
+				if (counts.length != 4 || !counts[0].equals("=")) {
+					throw new IOException("Unexpected summary from the server.");
+				}
+				playerWins += Long.parseLong(counts[1]);
+				draws += Long.parseLong(counts[2]);
+				throwerWins += Long.parseLong(counts[3]);
+			}
+			return new SimulationResult(playerWins, draws, throwerWins);
+		} finally {
+			for (SocketChannel channel : channels) {
+				if (channel != null) {
+					channel.close();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads from the channel until the buffer is full.
+	 * @param channel the channel to read from.
+	 * @param buffer the buffer to fill.
+	 * @throws IOException if the channel fails or is closed before the buffer is full.
+	 */
+	private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer) < 0) {
+				throw new IOException("The server closed the connection.");
+			}
+		}
+	}
+
+	/**
+	 * Reads one line from the channel, a byte at a time (only used for the summary).
+	 * @param channel the channel to read from.
+	 * @return the line, without the line end.
+	 * @throws IOException if the channel fails or is closed before the end of the line.
+	 */
+	private static String readLine(SocketChannel channel) throws IOException {
+		StringBuilder line = new StringBuilder();
+		ByteBuffer oneByte = ByteBuffer.allocate(1);
+		while (true) {
+			oneByte.clear();
+			readFully(channel, oneByte);
+			char c = (char) oneByte.get(0);
+			if (c == '\n') {
+				return line.toString();
+			}
+			line.append(c);
+		}
+	}
+
+	/**
+	 * The number of sessions played if none is given.
+	 */
+	public static final int DEFAULT_SESSIONS = 1000;
+	/**
+	 * The number of rounds per session if none is given.
+	 */
+	public static final int DEFAULT_ROUNDS = 1000;
+	/**
+	 * The length of the answer to a throw: the Thrower's throw, a space, the result, and the line end.
+	 */
+	private static final int ROUND_ANSWER_LENGTH = 4;
+}
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Writes every round of a game to an append-only file, so that the game outlives the program (see GameJournalReader).
+ *
+ * A GameRecord with a journal (see GameRecord.setJournal()) appends every round it records. Each round takes one byte,
+ * its code (see Round.encode()); the result is not stored, since the Judge can always decide it again from the two throws.
+ *
+ * The file starts with a header: the int MAGIC, the int VERSION, the int BLOCK_LENGTH, the int number of throw options
+ * of the RuleSet of the game, and its throw choices (see Talker.getThrowChoices()), one byte each in ISO-8859-1.
+ * The throw choices must be those of the game's RuleSet, in the same order, when the journal is read or appended to,
+ * since the codes of the rounds are only meaningful under the rules they were played by.
+ * Since codes are bytes, only RuleSets of up to 15 throw options can be journaled (see RuleSet.hasByteCodes()).
+ * Journals of version 1 have no throw choices in their header, and are always RPSLK.
+ * Then come blocks of rounds, each made of an int with the number of rounds in the block, the codes of the rounds,
+ * and the int CRC-32 checksum of the codes. A block holds BLOCK_LENGTH rounds, or fewer if it was written by flush().
+ * Opening an existing journal checks the checksum of every block, and appends new blocks after the old ones; if its last block
+ * was cut short (e.g. because the program that wrote it was killed), the file is first truncated to the end of the last
+ * complete block, so the new blocks do not end up behind a broken one, which would hide them from GameJournalReader.
+ *
+ * The rounds are collected in a buffer and written a whole block at a time, so the round loop only copies a byte
+ * for most rounds. flush() writes the rounds collected so far as a shorter block, e.g. after every round the user plays
+ * at the console, so that a game that is killed keeps its rounds; close() flushes and forces the file to disk.
+ * A journal is not safe to use from several threads at once.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameJournal implements AutoCloseable {
+
+	/**
+	 * Constructor. Opens the file, creating it with a header if it does not exist, or appending to it if it does,
+	 * after checking its blocks and dropping a last block that was cut short.
+	 * @param path the path of the file.
+	 * @throws IOException if the file cannot be opened, exists but is not a journal of the game's RuleSet or has a corrupt block,
+	 * 	or the rounds of the game's RuleSet do not fit in a byte.
+	 */
+	public GameJournal(Path path) throws IOException {
+		if (!Talker.getRuleSet().hasByteCodes()) {
+			throw new IOException("The rounds of " + Talker.getRuleSet().getName() + " do not fit in a byte of a game journal");
+		}
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			if (channel.size() == 0) {
+				byte[] throwChoices = new String(Talker.getThrowChoices()).getBytes(StandardCharsets.ISO_8859_1);
+				ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH + throwChoices.length);
+				header.putInt(MAGIC).putInt(VERSION).putInt(BLOCK_LENGTH).putInt(throwChoices.length).put(throwChoices).flip();
+				writeFully(header);
+			} else {
+				checkHeader(channel, path);
+				long end;
+				try (GameJournalReader reader = new GameJournalReader(path, true)) {
+					end = reader.skipBlocks();
+				}
+				if (end < channel.size()) {
+					channel.truncate(end);
+				}
+			}
+			channel.position(channel.size());
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		block = ByteBuffer.allocateDirect(BLOCK_OVERHEAD + BLOCK_LENGTH);
+		block.position(Integer.BYTES);
+		checksum = new CRC32();
+	}
+
+	/**
+	 * Appends a round. Writes a block to the file once BLOCK_LENGTH rounds have been collected.
+	 * @param throwerChoice the thrower's throw
+	 * @param playerChoice the user's throw
+	 * @throws IllegalArgumentException if either throw is invalid.
+	 * @throws UncheckedIOException if the block cannot be written.
+	 */
+	public void append(char throwerChoice, char playerChoice) {
+		int code = Round.encode(throwerChoice, playerChoice);
+		if (code < 0) {
+			throw new IllegalArgumentException("Invalid throws: " + throwerChoice + ", " + playerChoice);
+		}
+		block.put((byte) code);
+		if (block.position() == Integer.BYTES + BLOCK_LENGTH) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Writes the rounds collected so far to the file as a block, even if it holds fewer than BLOCK_LENGTH rounds.
+	 * Does nothing if no round was collected.
+	 * @throws UncheckedIOException if the block cannot be written.
+	 */
+	public void flush() {
+		if (block.position() > Integer.BYTES) {
+			writeBlock();
+		}
+	}
+
+	/**
+	 * Flushes the journal, forces the file to disk and closes it.
+	 * @throws IOException if the file cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			flush();
+			channel.force(false);
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Checks that a file starts with the header of a journal of this version (or of version 1) and of the game's RuleSet.
+	 * @param channel the channel of the file.
+	 * @param path the path of the file, for the error message.
+	 * @return the length of the header, in bytes; the first block starts right after it.
+	 * @throws IOException if the file cannot be read, or is not a journal of the game's RuleSet.
+	 */
+	static int checkHeader(FileChannel channel, Path path) throws IOException {
+		ByteBuffer header = readFully(channel, 0, HEADER_LENGTH);
+		if (header.remaining() < VERSION_1_HEADER_LENGTH || header.getInt() != MAGIC) {
+			throw new IOException("Not a game journal: " + path);
+		}
+		int version = header.getInt();
+		int blockLength = header.getInt();
+		if ((version != VERSION && version != 1) || blockLength != BLOCK_LENGTH) {
+			throw new IOException("Unsupported game journal version " + version + " (block length " + blockLength + "): " + path);
+		}
+		String throwChoices = VERSION_1_THROW_CHOICES;
+		int headerLength = VERSION_1_HEADER_LENGTH;
+		if (version == VERSION) {
+			if (header.remaining() < Integer.BYTES) {
+				throw new IOException("Not a game journal: " + path);
+			}
+			int numThrows = header.getInt();
+			ByteBuffer choices = readFully(channel, HEADER_LENGTH, Math.max(0, Math.min(numThrows, MAX_THROW_CHOICES)));
+			if (numThrows < 1 || choices.remaining() < numThrows) {
+				throw new IOException("Not a game journal: " + path);
+			}
+			throwChoices = StandardCharsets.ISO_8859_1.decode(choices).toString();
+			headerLength = HEADER_LENGTH + numThrows;
+		}
+		if (!throwChoices.equals(new String(Talker.getThrowChoices()))) {
+			throw new IOException("The game journal was played with the throw choices " + throwChoices + ", but "
+					+ Talker.getRuleSet().getName() + " has " + new String(Talker.getThrowChoices()) + ": " + path);
+		}
+		return headerLength;
+	}
+
+	/**
+	 * Reads bytes from a file, as many as it has up to the given number.
+	 * @param channel the channel of the file.
+	 * @param position where to start reading.
+	 * @param length the number of bytes to read.
+	 * @return the bytes read, ready to be read from; fewer than length if the file ends first.
+	 * @throws IOException if the file cannot be read.
+	 */
+	private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining() && channel.read(buffer, position + buffer.position()) > 0) {
+			//keep reading until the buffer is full or the file ends
+		}
+		return buffer.flip();
+	}
+
+	/**
+	 * Completes the block in the buffer with its length and checksum, and writes it to the file.
+	 */
+	private void writeBlock() {
+		int numRounds = block.position() - Integer.BYTES;
+		checksum.reset();
+		ByteBuffer codes = block.duplicate();
+		codes.position(Integer.BYTES).limit(Integer.BYTES + numRounds);
+		checksum.update(codes);
+		block.putInt((int) checksum.getValue());
+		block.putInt(0, numRounds);
+		block.flip();
+		try {
+			writeFully(block);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			block.clear();
+			block.position(Integer.BYTES);
+		}
+	}
+
+	/**
+	 * Writes the whole buffer to the file.
+	 * @param buffer the buffer to write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	private void writeFully(ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * The first int of every journal ("RPSJ" in ASCII).
+	 */
+	public static final int MAGIC = 0x5250534A;
+	/**
+	 * The version of the journal format.
+	 */
+	public static final int VERSION = 2;
+	/**
+	 * The number of rounds in a full block.
+	 */
+	public static final int BLOCK_LENGTH = 65536;
+	/**
+	 * The length of the header before the throw choices, in bytes.
+	 */
+	public static final int HEADER_LENGTH = 4 * Integer.BYTES;
+	/**
+	 * The length of the header of a journal of version 1, in bytes.
+	 */
+	public static final int VERSION_1_HEADER_LENGTH = 3 * Integer.BYTES;
+	/**
+	 * The throw choices of every journal of version 1: those of RPSLK.
+	 */
+	public static final String VERSION_1_THROW_CHOICES = "rpslk";
+	/**
+	 * The most throw choices a header can hold: one for every byte.
+	 */
+	private static final int MAX_THROW_CHOICES = 256;
+	/**
+	 * The bytes in every block besides the codes of the rounds: the number of rounds and the checksum.
+	 */
+	public static final int BLOCK_OVERHEAD = 2 * Integer.BYTES;
+	/**
+	 * The channel of the file.
+	 */
+	private FileChannel channel;
+	/**
+	 * The block being collected: the space for the number of rounds, the codes of the rounds collected so far,
+	 * and the space for the checksum.
+	 */
+	private ByteBuffer block;
+	/**
+	 * Computes the checksums of the blocks.
+	 */
+	private CRC32 checksum;
+}
@@ -0,0 +1,258 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Reads back the rounds written by a GameJournal, one at a time, like a cursor: next() moves to the next round,
+ * and getRound() returns it.
+ *
+ * The file is memory-mapped (in regions of up to about 2 GB), so the rounds are read straight from the page cache
+ * without being copied, and getRound() returns the shared Round for the round's code (see Round.decode()),
+ * so reading a journal of any length creates no objects per round.
+ * The checksum of every block is checked when the reader gets to the block, unless the reader was told not to.
+ * A last block that was cut short (e.g. because the program that wrote it was killed) ends the journal; see isTruncated().
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameJournalReader implements AutoCloseable {
+
+	/**
+	 * Constructor. Opens the file and checks its header.
+	 * @param path the path of the file.
+	 * @param verifyChecksums whether to check the checksum of every block.
+	 * @throws IOException if the file cannot be opened, or is not a journal of the game's RuleSet.
+	 */
+	public GameJournalReader(Path path, boolean verifyChecksums) throws IOException {
+		channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			nextBlockStart = GameJournal.checkHeader(channel, path);
+			fileSize = channel.size();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.verifyChecksums = verifyChecksums;
+		checksum = new CRC32();
+		position = 0;
+		blockEnd = 0;
+		code = -1;
+		truncated = false;
+	}
+
+	/**
+	 * Prints the counts of wins, draws, and losses of a journal, and how fast it was read.
+	 * @param args the path of the journal.
+	 * @throws IOException if the journal cannot be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		long start = System.nanoTime();
+		long[] counts = new long[3];
+		try (GameJournalReader reader = new GameJournalReader(Paths.get(args[0]), true)) {
+			while (reader.next()) {
+				short result = reader.getRound().getResult();
+				if (result == Talker.PLAYER_WIN) {
+					counts[0]++;
+				} else if (result == Talker.DRAW) {
+					counts[1]++;
+				} else {
+					counts[2]++;
+				}
+			}
+			if (reader.isTruncated()) {
+				System.out.println("The last block of the journal was cut short and was skipped.");
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		SimulationResult result = new SimulationResult(counts[0], counts[1], counts[2]);
+		System.out.println(result);
+		System.out.println("Read " + result.getNumRounds() + " rounds in " + (elapsed / 1000000) + " ms ("
+				+ (long) (result.getNumRounds() * 1000000000.0 / elapsed) + " rounds/s).");
+	}
+
+	/**
+	 * Moves to the next round.
+	 * @return true if there is a next round, false if the journal has ended.
+	 * @throws IOException if a block cannot be mapped, or its checksum is wrong.
+	 */
+	public boolean next() throws IOException {
+		if (position == blockEnd && !openNextBlock()) {
+			return false;
+		}
+		code = region.get(position) & 0xFF;
+		position++;
+		return true;
+	}
+
+	/**
+	 * Returns the round the reader is at.
+	 * Precondition: the last call to next() returned true.
+	 * @return the round the reader is at. The Round is shared (see Round.decode()).
+	 */
+	public Round getRound() {
+		return Round.decode(code);
+	}
+
+	/**
+	 * Returns the code of the round the reader is at (see Round.encode()).
+	 * Precondition: the last call to next() returned true.
+	 * @return the code of the round the reader is at.
+	 */
+	public int getRoundCode() {
+		return code;
+	}
+
+	/**
+	 * Returns whether the journal ended with a block that was cut short. Only known once next() has returned false.
+	 * @return true if the last block was cut short.
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Moves past all the blocks, without reading their rounds, and returns where the last complete block ends:
+	 * the end of the file, unless the journal ends with a block that was cut short (see isTruncated()).
+	 * Used by GameJournal to find where to append.
+	 * @return the position in the file just after the last complete block, or just after the header if there is none.
+	 * @throws IOException if a block cannot be mapped, or its checksum is wrong.
+	 */
+	long skipBlocks() throws IOException {
+		while (openNextBlock()) {
+			//the block's rounds are skipped
+		}
+		position = blockEnd;
+		return nextBlockStart;
+	}
+
+	/**
+	 * Unmaps (as far as Java allows) and closes the file.
+	 * @throws IOException if the file cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		region = null;
+		channel.close();
+	}
+
+	/**
+	 * Moves to the first round of the next block that has any rounds, mapping the next region of the file if the block
+	 * is not in the current one, and checks the block's checksum.
+	 * @return true if there is such a block, false if the journal has ended.
+	 * @throws IOException if a block cannot be mapped, or its checksum is wrong.
+	 */
+	private boolean openNextBlock() throws IOException {
+		while (nextBlockStart < fileSize) {
+			if (fileSize - nextBlockStart < GameJournal.BLOCK_OVERHEAD) {
+				truncated = true;
+				return false;
+			}
+			if (region == null || nextBlockStart + GameJournal.BLOCK_OVERHEAD > regionStart + region.limit()) {
+				mapRegion(nextBlockStart);
+			}
+			int blockStart = (int) (nextBlockStart - regionStart);
+			int numRounds = region.getInt(blockStart);
+			if (numRounds < 0 || numRounds > GameJournal.BLOCK_LENGTH) {
+				throw new IOException("Corrupt block length " + numRounds + " at byte " + nextBlockStart);
+			}
+			long blockLength = GameJournal.BLOCK_OVERHEAD + numRounds;
+			if (fileSize - nextBlockStart < blockLength) {
+				truncated = true;
+				return false;
+			}
+			if (nextBlockStart + blockLength > regionStart + region.limit()) {
+				mapRegion(nextBlockStart);
+				blockStart = 0;
+			}
+			position = blockStart + Integer.BYTES;
+			blockEnd = position + numRounds;
+			if (verifyChecksums) {
+				checkBlock(nextBlockStart);
+			}
+			nextBlockStart += blockLength;
+			if (numRounds > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Checks the checksum of the block the reader has just moved to.
+	 * @param blockStart the position of the block in the file, for the error message.
+	 * @throws IOException if the checksum is wrong.
+	 */
+	private void checkBlock(long blockStart) throws IOException {
+		MappedByteBuffer codes = region.duplicate();
+		codes.position(position).limit(blockEnd);
+		checksum.reset();
+		checksum.update(codes);
+		if ((int) checksum.getValue() != region.getInt(blockEnd)) {
+			throw new IOException("Wrong checksum in the block at byte " + blockStart);
+		}
+	}
+
+	/**
+	 * Maps the region of the file starting at the given position, as long as the file or MAX_REGION_LENGTH allows.
+	 * @param start the position in the file where the region starts.
+	 * @throws IOException if the region cannot be mapped.
+	 */
+	private void mapRegion(long start) throws IOException {
+		long length = Math.min(fileSize - start, MAX_REGION_LENGTH);
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+		regionStart = start;
+	}
+
+	/**
+	 * The longest region of the file that is mapped at once.
+	 */
+	private static final long MAX_REGION_LENGTH = Integer.MAX_VALUE;
+	/**
+	 * The channel of the file.
+	 */
+	private FileChannel channel;
+	/**
+	 * The size of the file when it was opened. Rounds appended later are not read.
+	 */
+	private long fileSize;
+	/**
+	 * Whether to check the checksum of every block.
+	 */
+	private boolean verifyChecksums;
+	/**
+	 * Computes the checksums of the blocks.
+	 */
+	private CRC32 checksum;
+	/**
+	 * The mapped region of the file, or null before the first block.
+	 */
+	private MappedByteBuffer region;
+	/**
+	 * The position in the file where the mapped region starts.
+	 */
+	private long regionStart;
+	/**
+	 * The position in the file of the block after the current one.
+	 */
+	private long nextBlockStart;
+	/**
+	 * The position in the mapped region of the code of the next round.
+	 */
+	private int position;
+	/**
+	 * The position in the mapped region just after the codes of the current block.
+	 */
+	private int blockEnd;
+	/**
+	 * The code of the round the reader is at.
+	 */
+	private int code;
+	/**
+	 * Whether the journal ended with a block that was cut short.
+	 */
+	private boolean truncated;
+}
@@ -0,0 +1,365 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects metrics of running games and publishes them through JMX (see GameMetricsMBean): rounds per second,
+ * the latencies of Thrower.makeThrow(), Player.makeThrow() and Judge.decideAndRecord(), the win, draw, and loss rates,
+ * the number of sessions that failed, and the streak and hit percentage of every PatternAgent of a watched ThrowerBrain.
+ *
+ * Games do not write to a GameMetrics directly. Every game loop has its own Recorder, which is cheap enough to leave on:
+ * <ul>
+ *   <li>every round is counted as soon as it is decided, in LongAdders, which threads can add to at once without
+ *   	waiting for each other;</li>
+ *   <li>only one round in every SAMPLE_INTERVAL is timed, since reading the clock takes about as long as a whole round
+ *   	of a simulation.</li>
+ * </ul>
+ * So a round that is not sampled costs one decrement and one increment, and recording never takes a lock or creates objects.
+ * Any number of game loops (e.g. the threads of a Tournament or the event loops of a GameServer) can share a GameMetrics.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+	/**
+	 * Constructor. Starts with no rounds and no watched ThrowerBrain.
+	 */
+	public GameMetrics() {
+		playerWins = new LongAdder();
+		draws = new LongAdder();
+		throwerWins = new LongAdder();
+		failedSessions = new LongAdder();
+		throwerLatency = new LatencyHistogram();
+		playerLatency = new LatencyHistogram();
+		judgeLatency = new LatencyHistogram();
+		previousSampleNanos = System.nanoTime();
+		lastSampleNanos = previousSampleNanos;
+	}
+
+	/**
+	 * Registers the GameMetrics with the platform MBeanServer, so that JMX clients can read it.
+	 * @param name the name of the metrics, e.g. "game" or "server".
+	 * @return the ObjectName under which the GameMetrics is registered.
+	 * @throws JMException if the GameMetrics cannot be registered (e.g. the name is taken).
+	 */
+	public ObjectName register(String name) throws JMException {
+		ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=GameMetrics,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+		return objectName;
+	}
+
+	/**
+	 * Sets the ThrowerBrain whose PatternAgents are published. Their streaks and hit counts are read without synchronization,
+	 * so they may be a round behind.
+	 * @param brain the ThrowerBrain, or null to publish no agents.
+	 */
+	public void watchBrain(ThrowerBrain brain) {
+		watchedBrain = brain;
+	}
+
+	/**
+	 * Counts a session that was closed because serving it failed, e.g. because its GameJournal could not be written.
+	 */
+	public void recordFailedSession() {
+		failedSessions.increment();
+	}
+
+	/**
+	 * Creates a Recorder for a game loop.
+	 * @return a new Recorder.
+	 */
+	public Recorder newRecorder() {
+		return new Recorder();
+	}
+
+	/**
+	 * Records the metrics of one game loop into the GameMetrics. Not safe to use from several threads at once;
+	 * every game loop has its own.
+	 *
+	 * The game loop passes the result of every round to recordRound(), and calls isSampleRound() before every round.
+	 * If it returns true, the loop times the round and passes the durations to recordSample().
+	 */
+	public class Recorder {
+
+		/**
+		 * Constructor.
+		 */
+		private Recorder() {
+			roundsUntilSample = SAMPLE_INTERVAL;
+		}
+
+		/**
+		 * Returns whether the coming round should be timed: true once every SAMPLE_INTERVAL rounds.
+		 * @return true if the coming round should be timed.
+		 */
+		public boolean isSampleRound() {
+			roundsUntilSample--;
+			if (roundsUntilSample > 0) {
+				return false;
+			}
+			roundsUntilSample = SAMPLE_INTERVAL;
+			return true;
+		}
+
+		/**
+		 * Counts a round.
+		 * @param result the result of the round, as a short constant in Talker.
+		 */
+		public void recordRound(short result) {
+			if (result == Talker.PLAYER_WIN) {
+				playerWins.increment();
+			} else if (result == Talker.THROWER_WIN) {
+				throwerWins.increment();
+			} else {
+				draws.increment();
+			}
+		}
+
+		/**
+		 * Counts many rounds at once, e.g. rounds that were skipped over instead of played (see SimulationEngine.setCycleDetection()).
+		 * @param numPlayerWins the number of the rounds the Player won.
+		 * @param numDraws the number of draws among the rounds.
+		 * @param numThrowerWins the number of the rounds the Thrower won.
+		 */
+		public void recordRounds(long numPlayerWins, long numDraws, long numThrowerWins) {
+			playerWins.add(numPlayerWins);
+			draws.add(numDraws);
+			throwerWins.add(numThrowerWins);
+		}
+
+		/**
+		 * Records the durations of a timed round.
+		 * @param throwerNanos the duration of Thrower.makeThrow().
+		 * @param playerNanos the duration of Player.makeThrow().
+		 * @param judgeNanos the duration of Judge.decideAndRecord().
+		 */
+		public void recordSample(long throwerNanos, long playerNanos, long judgeNanos) {
+			throwerLatency.record(throwerNanos);
+			playerLatency.record(playerNanos);
+			judgeLatency.record(judgeNanos);
+		}
+
+		/**
+		 * The number of rounds until the next sample.
+		 */
+		private int roundsUntilSample;
+	}
+
+	@Override
+	public long getRounds() {
+		return playerWins.sum() + draws.sum() + throwerWins.sum();
+	}
+
+	/**
+	 * Returns the rounds played per second over the last RATE_INTERVAL_NANOS or so. The rate is measured from the older of two
+	 * snapshots of the number of rounds, which are taken RATE_INTERVAL_NANOS apart as the rate is read, so reading it more often
+	 * neither moves the snapshots nor shortens the interval.
+	 * @return the rounds played per second recently.
+	 */
+	@Override
+	public synchronized double getRoundsPerSecond() {
+		long now = System.nanoTime();
+		long rounds = getRounds();
+		if (now - lastSampleNanos >= RATE_INTERVAL_NANOS) {
+			previousSampleNanos = lastSampleNanos;
+			previousSampleRounds = lastSampleRounds;
+			lastSampleNanos = now;
+			lastSampleRounds = rounds;
+		}
+		long elapsed = now - previousSampleNanos;
+		return elapsed == 0 ? 0 : (rounds - previousSampleRounds) * 1e9 / elapsed;
+	}
+
+	@Override
+	public long getPlayerWins() {
+		return playerWins.sum();
+	}
+
+	@Override
+	public long getDraws() {
+		return draws.sum();
+	}
+
+	@Override
+	public long getThrowerWins() {
+		return throwerWins.sum();
+	}
+
+	@Override
+	public double getPlayerWinPercentage() {
+		return percentage(playerWins.sum(), getRounds());
+	}
+
+	@Override
+	public double getDrawPercentage() {
+		return percentage(draws.sum(), getRounds());
+	}
+
+	@Override
+	public double getThrowerWinPercentage() {
+		return percentage(throwerWins.sum(), getRounds());
+	}
+
+	@Override
+	public double getThrowerLatencyMean() {
+		return throwerLatency.getMean();
+	}
+
+	@Override
+	public long getThrowerLatencyP50() {
+		return throwerLatency.getPercentile(50);
+	}
+
+	@Override
+	public long getThrowerLatencyP99() {
+		return throwerLatency.getPercentile(99);
+	}
+
+	@Override
+	public double getPlayerLatencyMean() {
+		return playerLatency.getMean();
+	}
+
+	@Override
+	public long getPlayerLatencyP50() {
+		return playerLatency.getPercentile(50);
+	}
+
+	@Override
+	public long getPlayerLatencyP99() {
+		return playerLatency.getPercentile(99);
+	}
+
+	@Override
+	public double getJudgeLatencyMean() {
+		return judgeLatency.getMean();
+	}
+
+	@Override
+	public long getJudgeLatencyP50() {
+		return judgeLatency.getPercentile(50);
+	}
+
+	@Override
+	public long getJudgeLatencyP99() {
+		return judgeLatency.getPercentile(99);
+	}
+
+	@Override
+	public long getFailedSessions() {
+		return failedSessions.sum();
+	}
+
+	@Override
+	public String[] getAgentNames() {
+		ThrowerBrain brain = watchedBrain;
+		if (brain == null) {
+			return new String[0];
+		}
+		String[] names = new String[brain.getNumAgents()];
+		for (int i = 0; i < names.length; i++) {
+			names[i] = brain.getAgent(i).getClass().getSimpleName();
+		}
+		return names;
+	}
+
+	@Override
+	public long[] getAgentStreaks() {
+		ThrowerBrain brain = watchedBrain;
+		if (brain == null) {
+			return new long[0];
+		}
+		long[] streaks = new long[brain.getNumAgents()];
+		for (int i = 0; i < streaks.length; i++) {
+			streaks[i] = brain.getAgent(i).getStreak();
+		}
+		return streaks;
+	}
+
+	@Override
+	public double[] getAgentHitPercentages() {
+		ThrowerBrain brain = watchedBrain;
+		if (brain == null) {
+			return new double[0];
+		}
+		double[] hitPercentages = new double[brain.getNumAgents()];
+		for (int i = 0; i < hitPercentages.length; i++) {
+			PatternAgent agent = brain.getAgent(i);
+			hitPercentages[i] = percentage(agent.getNumHits(), agent.getNumGuesses());
+		}
+		return hitPercentages;
+	}
+
+	/**
+	 * Returns part as a percentage of whole.
+	 * @param part the part.
+	 * @param whole the whole.
+	 * @return the percentage, or 0 if whole is 0.
+	 */
+	private static double percentage(long part, long whole) {
+		return whole == 0 ? 0 : part * 100.0 / whole;
+	}
+
+	/**
+	 * The JMX domain under which all GameMetrics are registered.
+	 */
+	public static final String JMX_DOMAIN = "RPSLK";
+	/**
+	 * Every how many rounds a Recorder times a round.
+	 */
+	public static final int SAMPLE_INTERVAL = 64;
+	/**
+	 * How far apart the snapshots of the number of rounds are from which getRoundsPerSecond() measures the rate, in nanoseconds.
+	 */
+	public static final long RATE_INTERVAL_NANOS = 1000000000L;
+	/**
+	 * The number of rounds the Player won.
+	 */
+	private LongAdder playerWins;
+	/**
+	 * The number of draws.
+	 */
+	private LongAdder draws;
+	/**
+	 * The number of rounds the Thrower won.
+	 */
+	private LongAdder throwerWins;
+	/**
+	 * The number of sessions that failed.
+	 */
+	private LongAdder failedSessions;
+	/**
+	 * The latencies of Thrower.makeThrow().
+	 */
+	private LatencyHistogram throwerLatency;
+	/**
+	 * The latencies of Player.makeThrow().
+	 */
+	private LatencyHistogram playerLatency;
+	/**
+	 * The latencies of Judge.decideAndRecord().
+	 */
+	private LatencyHistogram judgeLatency;
+	/**
+	 * The ThrowerBrain whose PatternAgents are published, or null.
+	 */
+	private volatile ThrowerBrain watchedBrain;
+	/**
+	 * When the older snapshot for getRoundsPerSecond() was taken.
+	 */
+	private long previousSampleNanos;
+	/**
+	 * The number of rounds at the older snapshot.
+	 */
+	private long previousSampleRounds;
+	/**
+	 * When the newer snapshot for getRoundsPerSecond() was taken.
+	 */
+	private long lastSampleNanos;
+	/**
+	 * The number of rounds at the newer snapshot.
+	 */
+	private long lastSampleRounds;
+}
@@ -0,0 +1,135 @@
+/**
+ * The management interface of GameMetrics, through which JMX clients (e.g. JConsole) read the metrics of running games.
+ * Latencies are in nanoseconds; percentiles are the upper ends of their LatencyHistogram buckets.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public interface GameMetricsMBean {
+
+	/**
+	 * Returns the number of rounds played.
+	 * @return the number of rounds played.
+	 */
+	long getRounds();
+
+	/**
+	 * Returns the rounds played per second over the last second or two.
+	 * @return the rounds played per second recently.
+	 */
+	double getRoundsPerSecond();
+
+	/**
+	 * Returns the number of rounds the Player won.
+	 * @return the number of rounds the Player won.
+	 */
+	long getPlayerWins();
+
+	/**
+	 * Returns the number of draws.
+	 * @return the number of draws.
+	 */
+	long getDraws();
+
+	/**
+	 * Returns the number of rounds the Thrower won.
+	 * @return the number of rounds the Thrower won.
+	 */
+	long getThrowerWins();
+
+	/**
+	 * Returns the Player's wins as a percentage of all rounds.
+	 * @return the Player's wins as a percentage of all rounds.
+	 */
+	double getPlayerWinPercentage();
+
+	/**
+	 * Returns the draws as a percentage of all rounds.
+	 * @return the draws as a percentage of all rounds.
+	 */
+	double getDrawPercentage();
+
+	/**
+	 * Returns the Thrower's wins as a percentage of all rounds.
+	 * @return the Thrower's wins as a percentage of all rounds.
+	 */
+	double getThrowerWinPercentage();
+
+	/**
+	 * Returns the mean latency of Thrower.makeThrow().
+	 * @return the mean latency of Thrower.makeThrow().
+	 */
+	double getThrowerLatencyMean();
+
+	/**
+	 * Returns the median latency of Thrower.makeThrow().
+	 * @return the median latency of Thrower.makeThrow().
+	 */
+	long getThrowerLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of Thrower.makeThrow().
+	 * @return the 99th percentile latency of Thrower.makeThrow().
+	 */
+	long getThrowerLatencyP99();
+
+	/**
+	 * Returns the mean latency of Player.makeThrow().
+	 * @return the mean latency of Player.makeThrow().
+	 */
+	double getPlayerLatencyMean();
+
+	/**
+	 * Returns the median latency of Player.makeThrow().
+	 * @return the median latency of Player.makeThrow().
+	 */
+	long getPlayerLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of Player.makeThrow().
+	 * @return the 99th percentile latency of Player.makeThrow().
+	 */
+	long getPlayerLatencyP99();
+
+	/**
+	 * Returns the mean latency of Judge.decideAndRecord().
+	 * @return the mean latency of Judge.decideAndRecord().
+	 */
+	double getJudgeLatencyMean();
+
+	/**
+	 * Returns the median latency of Judge.decideAndRecord().
+	 * @return the median latency of Judge.decideAndRecord().
+	 */
+	long getJudgeLatencyP50();
+
+	/**
+	 * Returns the 99th percentile latency of Judge.decideAndRecord().
+	 * @return the 99th percentile latency of Judge.decideAndRecord().
+	 */
+	long getJudgeLatencyP99();
+
+	/**
+	 * Returns the number of sessions that were closed because serving them failed (see GameServer).
+	 * @return the number of sessions that failed.
+	 */
+	long getFailedSessions();
+
+	/**
+	 * Returns the class names of the PatternAgents of the watched ThrowerBrain, in the order they were registered.
+	 * @return the class names of the PatternAgents of the watched ThrowerBrain, in the order they were registered.
+	 */
+	String[] getAgentNames();
+
+	/**
+	 * Returns the current streak of every PatternAgent of the watched ThrowerBrain.
+	 * @return the current streak of every PatternAgent of the watched ThrowerBrain.
+	 */
+	long[] getAgentStreaks();
+
+	/**
+	 * Returns the percentage of correct guesses of every PatternAgent of the watched ThrowerBrain.
+	 * @return the percentage of correct guesses of every PatternAgent of the watched ThrowerBrain.
+	 */
+	double[] getAgentHitPercentages();
+}
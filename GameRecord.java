@@ -1,8 +1,24 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Keeps track of all of the previous rounds played with instances of Rounds.
  * Has methods that can return all the rounds, the last round, or the number of rounds played.  
+ * Also keeps running statistics (the Player's wins, draws, and losses, how often each throw was thrown, and streaks of equal results),
+ * so that they never have to be counted from the rounds. getStats() returns a snapshot of them.
+ * 
+ * If given a GameJournal (see setJournal()), also appends every round to it, so that the game can be read back after the program ends.
+ * 
+ * Subclasses can store the rounds differently (see PackedGameRecord and WindowedGameRecord) by overriding storeRound()
+ * and the methods that return rounds.
+ * 
+ * repeatRounds() records the last rounds again many times over without playing them, for games that have come back to
+ * an earlier state (see SimulationEngine.setCycleDetection()).
+ * 
+ * writeState() and readState() save and restore the statistics and the stored rounds for a GameCheckpoint.
  * @author Haidun Liu
  * @version 1.01 2015-10-1
  */
@@ -12,7 +28,21 @@ public class GameRecord {
 	 * The constructor. Sets up the ArrayList rounds.
 	 */
 	public GameRecord() {
-		rounds = new ArrayList<Round>();
+		this(true);
+	}
+
+	/**
+	 * The constructor for subclasses. Subclasses that store the rounds themselves, overriding storeRound() and the methods
+	 * that return rounds, do not need the ArrayList rounds.
+	 * @param listBacked whether to set up the ArrayList rounds.
+	 */
+	protected GameRecord(boolean listBacked) {
+		if (listBacked) {
+			rounds = new ArrayList<Round>();
+		}
+		int numThrows = Talker.getThrowChoices().length;
+		throwerThrowCounts = new long[numThrows];
+		playerThrowCounts = new long[numThrows];
 	}
 	
 	/**
@@ -22,18 +52,147 @@ public class GameRecord {
 	 * @param result who won, or if the game resulted in a draw
 	 */
 	public void addRound(char throwerChoice, char playerChoice, short result){
+		storeRound(throwerChoice, playerChoice, result);
+		updateStats(throwerChoice, playerChoice, result);
+		if (journal != null) {
+			journal.append(throwerChoice, playerChoice);
+		}
+	}
+
+	/**
+	 * Sets the GameJournal to which every round recorded from now on is appended. The GameRecord does not close it.
+	 * @param journal the GameJournal, or null to stop journaling.
+	 */
+	public void setJournal(GameJournal journal) {
+		this.journal = journal;
+	}
+
+	/**
+	 * Updates the running statistics with a round that was just recorded.
+	 * @param playerChoice the user's throw
+	 * @param throwerChoice the thrower's throw
+	 * @param result who won, or if the game resulted in a draw
+	 */
+	private void updateStats(char throwerChoice, char playerChoice, short result){
+		if (result == Talker.PLAYER_WIN) {
+			numPlayerWins++;
+		} else if (result == Talker.THROWER_WIN) {
+			numThrowerWins++;
+		} else {
+			numDraws++;
+		}
+		int throwerIndex = Talker.getThrowIndex(throwerChoice);
+		if (throwerIndex > -1) {
+			throwerThrowCounts[throwerIndex]++;
+		}
+		int playerIndex = Talker.getThrowIndex(playerChoice);
+		if (playerIndex > -1) {
+			playerThrowCounts[playerIndex]++;
+		}
+		if (result == currentStreakResult) {
+			currentStreakLength++;
+		} else {
+			currentStreakResult = result;
+			currentStreakLength = 1;
+		}
+		updateLongestStreak(result, currentStreakLength);
+	}
+
+	/**
+	 * Updates the longest streak of a result with a streak of that result.
+	 * @param result the result of the streak.
+	 * @param streakLength the number of rounds in the streak.
+	 */
+	private void updateLongestStreak(short result, long streakLength) {
+		if (result == Talker.PLAYER_WIN) {
+			longestPlayerWinStreak = Math.max(longestPlayerWinStreak, streakLength);
+		} else if (result == Talker.THROWER_WIN) {
+			longestThrowerWinStreak = Math.max(longestThrowerWinStreak, streakLength);
+		} else {
+			longestDrawStreak = Math.max(longestDrawStreak, streakLength);
+		}
+	}
+
+	/**
+	 * Records the rounds played since the statistics were cycleStart again, cycles times over, as if they had been played
+	 * again in the same order: the rounds are stored (see storeRepeatedRounds()), and the statistics end up as they would after
+	 * playing them. The counts grow by cycles times what they grew by since cycleStart. A streak can only outgrow the streaks
+	 * seen so far if it runs across the end of one repeat into the next, so only that streak is looked at.
+	 * The repeated rounds are not appended to the GameJournal.
+	 * Precondition: at least one round was recorded since cycleStart, and leadingRun and leadingResult describe those rounds.
+	 * @param cycleStart the statistics before the first of the rounds to repeat.
+	 * @param leadingRun the number of rounds in a row, from the first of the rounds to repeat, that had the result of the first.
+	 * @param leadingResult the result of the first of the rounds to repeat.
+	 * @param cycles the number of times to repeat the rounds.
+	 */
+	public void repeatRounds(GameStats cycleStart, long leadingRun, short leadingResult, long cycles) {
+		long cycleLength = numPlayerWins + numDraws + numThrowerWins - cycleStart.getNumRounds();
+		if (cycles <= 0) {
+			return;
+		}
+		storeRepeatedRounds((int) cycleLength, cycles);
+		numPlayerWins += cycles * (numPlayerWins - cycleStart.getNumPlayerWins());
+		numDraws += cycles * (numDraws - cycleStart.getNumDraws());
+		numThrowerWins += cycles * (numThrowerWins - cycleStart.getNumThrowerWins());
+		for (int i = 0; i < throwerThrowCounts.length; i++) {
+			throwerThrowCounts[i] += cycles * (throwerThrowCounts[i] - cycleStart.getThrowerThrowCount(i));
+			playerThrowCounts[i] += cycles * (playerThrowCounts[i] - cycleStart.getPlayerThrowCount(i));
+		}
+		if (currentStreakLength >= cycleLength) {
+			//every repeated round has the same result, so the current streak goes on through all of them
+			currentStreakLength += cycles * cycleLength;
+			updateLongestStreak(currentStreakResult, currentStreakLength);
+		} else if (leadingResult == currentStreakResult) {
+			//the streak at the end of each repeat goes on into the next one; the current streak is the same after every repeat
+			updateLongestStreak(currentStreakResult, currentStreakLength + leadingRun);
+		}
+	}
+
+	/**
+	 * Stores the last cycleLength rounds again, cycles times over. Called by repeatRounds().
+	 * Subclasses that do not keep every round can override it to store the rounds more cheaply.
+	 * @param cycleLength the number of rounds to repeat.
+	 * @param cycles the number of times to repeat them.
+	 */
+	protected void storeRepeatedRounds(int cycleLength, long cycles) {
+		long numRepeated = cycles * cycleLength;
+		for (long i = 0; i < numRepeated; i++) {
+			Round round = getRound(getNumRounds() - cycleLength);
+			storeRound(round.getThrowerChoice(), round.getPlayerChoice(), round.getResult());
+		}
+	}
+
+	/**
+	 * Stores a round of playing. Called by addRound().
+	 * @param playerChoice the user's throw
+	 * @param throwerChoice the thrower's throw
+	 * @param result who won, or if the game resulted in a draw
+	 */
+	protected void storeRound(char throwerChoice, char playerChoice, short result){
 		Round addition = new Round(throwerChoice ,playerChoice, result);
 		rounds.add(addition);
 	}
 	
 	/**
-	 * Returns an ArrayList of all the rounds that were played
-	 * @return an ArrayList of all the rounds that were played
+	 * Returns a list of all the rounds that were played
+	 * @return a list of all the rounds that were played
 	 */
-	public ArrayList<Round> getRounds() {
+	public List<Round> getRounds() {
 		return rounds;
 	}
 	
+	/**
+	 * Returns the round with the given index (the first round played has index 0)
+	 * @param index the index of the round
+	 * @return the round with the given index
+	 */
+	public Round getRound(long index) {
+		if (index < 0 || index >= rounds.size()) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + rounds.size());
+		}
+		return rounds.get((int) index);
+	}
+	
 	/**
 	 * Returns the last round that was played
 	 * @return the last round that was played
@@ -46,13 +205,174 @@ public class GameRecord {
 	 * Returns the number of rounds already played.
 	 * @return the number of rounds already played.
 	 */
-	public int getNumRounds() {
+	public long getNumRounds() {
 		return rounds.size();
 	}
 	
 	/**
-	 * The list of all rounds played.
+	 * Returns the number of rounds the Player won.
+	 * @return the number of rounds the Player won.
+	 */
+	public long getNumPlayerWins() {
+		return numPlayerWins;
+	}
+
+	/**
+	 * Returns the number of draws.
+	 * @return the number of draws.
+	 */
+	public long getNumDraws() {
+		return numDraws;
+	}
+
+	/**
+	 * Returns the number of rounds the Thrower won.
+	 * @return the number of rounds the Thrower won.
+	 */
+	public long getNumThrowerWins() {
+		return numThrowerWins;
+	}
+
+	/**
+	 * Returns the result of the last round, or 0 if no round was played.
+	 * @return the result of the last round.
+	 */
+	public short getCurrentStreakResult() {
+		return currentStreakResult;
+	}
+
+	/**
+	 * Returns the number of rounds in a row, up to the last round, that had the same result as the last round.
+	 * @return the length of the current streak.
+	 */
+	public long getCurrentStreakLength() {
+		return currentStreakLength;
+	}
+
+	/**
+	 * Returns a snapshot of the running statistics of the game. Takes the same time no matter how many rounds were played.
+	 * @return a snapshot of the running statistics of the game.
+	 */
+	public GameStats getStats() {
+		return new GameStats(numPlayerWins, numDraws, numThrowerWins, throwerThrowCounts, playerThrowCounts,
+				currentStreakResult, currentStreakLength, longestPlayerWinStreak, longestDrawStreak, longestThrowerWinStreak);
+	}
+	
+	/**
+	 * Writes the running statistics and the stored rounds, for a GameCheckpoint. The journal is not part of the state.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(numPlayerWins);
+		out.writeLong(numDraws);
+		out.writeLong(numThrowerWins);
+		GameCheckpoint.writeLongs(out, throwerThrowCounts);
+		GameCheckpoint.writeLongs(out, playerThrowCounts);
+		out.writeShort(currentStreakResult);
+		out.writeLong(currentStreakLength);
+		out.writeLong(longestPlayerWinStreak);
+		out.writeLong(longestDrawStreak);
+		out.writeLong(longestThrowerWinStreak);
+		writeRounds(out);
+	}
+
+	/**
+	 * Reads the state written by writeState(), replacing the statistics and storing the rounds.
+	 * Precondition: no round has been recorded yet, and the game's RuleSet is the one of the saved game.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the GameRecord.
+	 */
+	public void readState(DataInput in) throws IOException {
+		numPlayerWins = in.readLong();
+		numDraws = in.readLong();
+		numThrowerWins = in.readLong();
+		GameCheckpoint.readLongs(in, throwerThrowCounts);
+		GameCheckpoint.readLongs(in, playerThrowCounts);
+		currentStreakResult = in.readShort();
+		currentStreakLength = in.readLong();
+		longestPlayerWinStreak = in.readLong();
+		longestDrawStreak = in.readLong();
+		longestThrowerWinStreak = in.readLong();
+		readRounds(in);
+	}
+
+	/**
+	 * Writes the stored rounds: the number of rounds as an int, which is enough for a GameRecord that keeps every round,
+	 * then the code of every round (see Round.encode()) as a char.
+	 * Called by writeState().
+	 * @param out where to write the rounds.
+	 * @throws IOException if the rounds cannot be written.
+	 */
+	protected void writeRounds(DataOutput out) throws IOException {
+		int numRounds = (int) getNumRounds();
+		out.writeInt(numRounds);
+		for (int i = 0; i < numRounds; i++) {
+			Round round = getRound(i);
+			out.writeChar(Round.encode(round.getThrowerChoice(), round.getPlayerChoice()));
+		}
+	}
+
+	/**
+	 * Reads the rounds written by writeRounds() and stores them with storeRound(). Called by readState().
+	 * @param in where to read the rounds from.
+	 * @throws IOException if the rounds cannot be read.
+	 */
+	protected void readRounds(DataInput in) throws IOException {
+		int numRounds = in.readInt();
+		for (int i = 0; i < numRounds; i++) {
+			Round round = GameCheckpoint.readRound(in);
+			storeRound(round.getThrowerChoice(), round.getPlayerChoice(), round.getResult());
+		}
+	}
+
+	/**
+	 * The list of all rounds played, or null if a subclass stores the rounds itself.
 	 */
 	private ArrayList<Round> rounds;
+	/**
+	 * The number of rounds the Player won.
+	 */
+	private long numPlayerWins;
+	/**
+	 * The number of draws.
+	 */
+	private long numDraws;
+	/**
+	 * The number of rounds the Thrower won.
+	 */
+	private long numThrowerWins;
+	/**
+	 * How often the Thrower threw each throw option, indexed as in Talker.getThrowChoices().
+	 */
+	private long[] throwerThrowCounts;
+	/**
+	 * How often the Player threw each throw option, indexed as in Talker.getThrowChoices().
+	 */
+	private long[] playerThrowCounts;
+	/**
+	 * The result of the last round, or 0 if no round was played.
+	 */
+	private short currentStreakResult;
+	/**
+	 * The number of rounds in a row, up to the last round, that had the same result as the last round.
+	 */
+	private long currentStreakLength;
+	/**
+	 * The most rounds in a row the Player won.
+	 */
+	private long longestPlayerWinStreak;
+	/**
+	 * The most draws in a row.
+	 */
+	private long longestDrawStreak;
+	/**
+	 * The most rounds in a row the Thrower won.
+	 */
+	private long longestThrowerWinStreak;
+	/**
+	 * The GameJournal to which every round is appended, or null.
+	 */
+	private GameJournal journal;
 	
 }
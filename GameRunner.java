@@ -1,3 +1,7 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import javax.management.JMException;
+
 /**
  * Runs the game!
  * Ends the game when sentinel character is typed. When sentinel character is typed a SentinelException would
@@ -12,37 +16,137 @@ public class GameRunner {
 	 * The main method of the program. 
 	 * Initiates the GameRecord of the game, the Thrower, the Player, and the Judge.
 	 * Would ask the user if the Player should be automated, and if the Thrower's AI should be deactivated. (do so through the Talker)
+	 * If not, asks if the Player's throws should come from a script (see ScriptedPlayer).
+	 * If the Player is automated or scripted, also asks how much of the game should be printed (see OutputSink).
 	 * Prints a welcome message that explains the rules.
 	 * Carries on the game until the method catches a SentinelException.  
+	 * The metrics of the game are published through JMX while it runs (see GameMetrics).
+	 * If a file is given, every round is also appended to it (see GameJournal), and GameJournalReader can read it back.
+	 * When the user plays at the console, every round is written to the file before the next prompt, so killing the program
+	 * (e.g. with Ctrl-C) loses no round.
+	 * If a rule set is given, the game is played by its rules instead of RPSLK (see RuleSet.forName()).
+	 * @param args optionally, the path of the journal file (or - for none), and the name or path of the rule set.
 	 */
 	public static void main(String[] args){
+		if (args.length > 1) {
+			try {
+				Talker.setRuleSet(RuleSet.forName(args[1]));
+			} catch (IOException | IllegalArgumentException e) {
+				System.out.println("Cannot load the rule set " + args[1] + ": " + e.getMessage());
+				return;
+			}
+		}
 		myGameRecord = new GameRecord();
+		GameJournal journal = null;
+		if (args.length > 0 && !args[0].equals("-")) {
+			try {
+				journal = new GameJournal(Paths.get(args[0]));
+				myGameRecord.setJournal(journal);
+			} catch (IOException e) {
+				System.out.println("Cannot open the journal " + args[0] + ": " + e.getMessage());
+			}
+		}
 		myThrower = new Thrower(myGameRecord);
 		myJudge = new Judge(myGameRecord);
+		GameMetrics metrics = new GameMetrics();
+		metrics.watchBrain(myThrower.getBrain());
+		try {
+			metrics.register("game");
+		} catch (JMException e) {
+			System.out.println("Cannot publish the metrics through JMX: " + e.getMessage());
+		}
+		myRecorder = metrics.newRecorder();
 
 		if (Talker.isPlayerAutomated()) {
 			makeAutomatedPlayer();
+			Talker.setOutputSink(Talker.askOutputSink());
 		} else {
-			myPlayer = new Player();
+			makeScriptedOrHumanPlayer();
 		}
 
 		Talker.printWelcome();
 		boolean gameContinue = true;
 		while(gameContinue){
 			try{
-				myThrower.makeThrow(myJudge);
-				myPlayer.makeThrow(myJudge);
-				myJudge.decideAndRecord();
+				if (myRecorder.isSampleRound()) {
+					playSampledRound();
+				} else {
+					myThrower.makeThrow(myJudge);
+					myPlayer.makeThrow(myJudge);
+					myRecorder.recordRound(myJudge.decideAndRecord());
+				}
+				if (interactive && journal != null) {
+					journal.flush();
+				}
 				Talker.printLastRound(myGameRecord);
 			}
 			catch (SentinelException e){
 				gameContinue = false;
+				myThrower.getBrain().endGame();
 				Talker.printGameResult(myGameRecord);
+				closeJournal(journal);
 			}
 		}
 	}
 
 
+	/**
+	 * Plays a round, timing the Thrower, the Player and the Judge for the metrics of the game.
+	 * @throws SentinelException if the game should end.
+	 */
+	private static void playSampledRound() throws SentinelException {
+		long start = System.nanoTime();
+		myThrower.makeThrow(myJudge);
+		long thrown = System.nanoTime();
+		myPlayer.makeThrow(myJudge);
+		long played = System.nanoTime();
+		short result = myJudge.decideAndRecord();
+		myRecorder.recordSample(thrown - start, played - thrown, System.nanoTime() - played);
+		myRecorder.recordRound(result);
+	}
+
+	/**
+	 * Closes the journal of the game, if there is one, so that every round is in the file.
+	 * @param journal the journal, or null.
+	 */
+	private static void closeJournal(GameJournal journal) {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			System.out.println("Cannot write the journal: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Asks the user whether the Player's throws should come from a script (do so through the Talker).
+	 * Creates a ScriptedPlayer for myPlayer if so, and asks how much of the game should be printed;
+	 * otherwise (or if the script cannot be opened) creates a Player that asks the user for every throw.
+	 */
+	private static void makeScriptedOrHumanPlayer() {
+		String scriptPath = Talker.askScriptPath();
+		if (scriptPath == null) {
+			myPlayer = new Player();
+			interactive = true;
+			return;
+		}
+		if (scriptPath.equals("-")) {
+			myPlayer = new ScriptedPlayer(Talker.getInput());
+		} else {
+			try {
+				myPlayer = new ScriptedPlayer(Paths.get(scriptPath));
+			} catch (IOException e) {
+				System.out.println("Cannot open the script " + scriptPath + ": " + e.getMessage() + ". Play by hand instead.");
+				myPlayer = new Player();
+				interactive = true;
+				return;
+			}
+		}
+		Talker.setOutputSink(Talker.askOutputSink());
+	}
+
 	/**
 	 * Asks the user for the type of AutomatedPlayer that should be created (do so through the Talker)
 	 * Creates an AutomatedPlayer for myPlayer according to the user's request.
@@ -83,4 +187,12 @@ public class GameRunner {
 	 * The Judge that decides win/losses.
 	 */
 	private static Judge myJudge;
+	/**
+	 * Records the metrics of the game, which are published through JMX (see GameMetrics).
+	 */
+	private static GameMetrics.Recorder myRecorder;
+	/**
+	 * Whether the user plays every throw at the console, in which case every round is written to the journal at once.
+	 */
+	private static boolean interactive;
 }
@@ -0,0 +1,511 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.management.JMException;
+
+/**
+ * Lets any number of users play over the network at the same time, each in a GameSession of their own.
+ *
+ * Unlike GameRunner, which plays a single game through the Talker and the console, the GameServer accepts TCP connections
+ * and plays a separate game on every connection. All connections are served by a small, fixed number of event loops,
+ * each a thread with its own java.nio Selector: a connection is handed to one event loop when it is accepted
+ * and stays with it, so its GameSession is only ever touched by one thread. Nothing blocks, so a few threads can serve
+ * thousands of sessions.
+ *
+ * The protocol is line based, in ISO-8859-1 (one byte per char), which holds every weapon of every RuleSet
+ * (see RuleSet.isWeaponChar()). The client sends one line per throw: r, p, s, l, or k (as on the console).
+ * The server answers every line with one line:
+ <ul>
+   <li>for a throw: the Thrower's throw, a space, and the result for the Player: w (Player won), d (draw), or l (Player lost).
+   	For example "k l" means the Thrower threw Spock and the Player lost.</li>
+   <li>for the sentinel character (GameRunner.SENTINEL): "=" followed by the Player's wins, the draws, and the Player's losses,
+   	separated by spaces. Then the server closes the connection.</li>
+   <li>for anything else: "?", and the line is ignored.</li>
+ </ul>
+ * Empty lines are ignored, and a line may end in "\r\n". A client may send many lines without waiting for the answers;
+ * they are answered in order. A line longer than MAX_LINE_LENGTH closes the connection.
+ *
+ * GameClient plays many sessions against a GameServer, e.g. over loopback.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameServer {
+
+	/**
+	 * Constructor. Does not open the port yet; see start().
+	 * @param port the TCP port to listen on, or 0 for any free port (see getPort()).
+	 * @param numLoops the number of event loops (threads). Must be at least 1.
+	 * @param brainFactory creates the ThrowerBrain of every session.
+	 * @param seed the seed from which the RandomSources of all sessions are split.
+	 */
+	public GameServer(int port, int numLoops, BrainFactory brainFactory, long seed) {
+		if (numLoops < 1) {
+			throw new IllegalArgumentException("There must be at least one event loop: " + numLoops);
+		}
+		this.port = port;
+		this.brainFactory = brainFactory;
+		myRandom = new XoshiroRandomSource(seed);
+		metrics = new GameMetrics();
+		loops = new EventLoop[numLoops];
+		running = false;
+	}
+
+	/**
+	 * Starts a server in which every session is played by a ThrowerBrain, and leaves it running.
+	 * The metrics of all sessions are published through JMX (see GameMetrics).
+	 * @param args optionally, the port and the number of event loops.
+	 * @throws IOException if the port cannot be opened.
+	 */
+	public static void main(String[] args) throws IOException {
+		int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+		int numLoops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+		GameServer server = new GameServer(port, numLoops, (r, rand) -> new ThrowerBrain(r, rand), System.nanoTime());
+		server.start();
+		try {
+			server.getMetrics().register("server");
+		} catch (JMException e) {
+			System.out.println("Cannot publish the metrics through JMX: " + e.getMessage());
+		}
+		System.out.println("Listening on port " + server.getPort() + " with " + numLoops + " event loops.");
+	}
+
+	/**
+	 * Opens the port and starts the event loops. The first event loop also accepts the connections.
+	 * @throws IOException if the port or a Selector cannot be opened.
+	 */
+	public synchronized void start() throws IOException {
+		if (running) {
+			throw new IllegalStateException("The server is already running.");
+		}
+		serverChannel = ServerSocketChannel.open();
+		serverChannel.bind(new InetSocketAddress(port));
+		serverChannel.configureBlocking(false);
+		port = serverChannel.socket().getLocalPort();
+		running = true;
+		for (int i = 0; i < loops.length; i++) {
+			loops[i] = new EventLoop(myRandom.split());
+		}
+		serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+		for (int i = 0; i < loops.length; i++) {
+			loops[i].thread = new Thread(loops[i], "GameServer-" + i);
+			loops[i].thread.start();
+		}
+	}
+
+	/**
+	 * Stops the event loops, closes every connection and the port, and waits for the event loops to end.
+	 * @throws InterruptedException if interrupted while waiting.
+	 */
+	public synchronized void stop() throws InterruptedException {
+		if (!running) {
+			return;
+		}
+		running = false;
+		for (EventLoop loop : loops) {
+			loop.selector.wakeup();
+		}
+		for (EventLoop loop : loops) {
+			loop.thread.join();
+		}
+		try {
+			serverChannel.close();
+		} catch (IOException e) {
+			//nothing left to clean up
+		}
+	}
+
+	/**
+	 * Returns the port the server listens on. After start(), this is the port actually opened, even if the constructor was given 0.
+	 * @return the port the server listens on.
+	 */
+	public int getPort() {
+		return port;
+	}
+
+	/**
+	 * Returns the metrics of all sessions of the server.
+	 * @return the metrics of all sessions.
+	 */
+	public GameMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * A thread with its own Selector, serving all connections handed to it.
+	 */
+	private class EventLoop implements Runnable {
+
+		/**
+		 * Constructor. Opens the Selector.
+		 * @param myRandom the RandomSource from which the RandomSources of the event loop's sessions are split.
+		 * @throws IOException if the Selector cannot be opened.
+		 */
+		private EventLoop(RandomSource myRandom) throws IOException {
+			selector = Selector.open();
+			newChannels = new ConcurrentLinkedQueue<SocketChannel>();
+			this.myRandom = myRandom;
+		}
+
+		/**
+		 * Waits for connections that are ready, and serves them, until the server is stopped.
+		 */
+		@Override
+		public void run() {
+			boolean failed = false;
+			try {
+				while (running) {
+					selector.select();
+					registerNewChannels();
+					Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+					while (keys.hasNext()) {
+						SelectionKey key = keys.next();
+						keys.remove();
+						if (!key.isValid()) {
+							continue;
+						}
+						if (key.isAcceptable()) {
+							accept();
+						} else {
+							serve((Connection) key.attachment(), key);
+						}
+					}
+				}
+			} catch (IOException e) {
+				//the Selector failed, so every connection of the event loop fails with it
+				failed = true;
+			} finally {
+				for (SelectionKey key : selector.keys()) {
+					if (key.attachment() instanceof Connection) {
+						((Connection) key.attachment()).close();
+						if (failed) {
+							metrics.recordFailedSession();
+						}
+					}
+				}
+				try {
+					selector.close();
+				} catch (IOException e) {
+					//nothing left to clean up
+				}
+			}
+		}
+
+		/**
+		 * Serves a connection that is ready. If serving it fails with an unchecked exception (e.g. an UncheckedIOException
+		 * from its GameJournal), only that connection is closed and counted as a failed session (see GameMetrics.getFailedSessions()),
+		 * and the event loop goes on with the others.
+		 * @param connection the connection.
+		 * @param key the key of the connection.
+		 */
+		private void serve(Connection connection, SelectionKey key) {
+			try {
+				connection.handle(key);
+			} catch (RuntimeException e) {
+				metrics.recordFailedSession();
+				try {
+					connection.close();
+				} catch (RuntimeException e2) {
+					//the channel is closed anyway (see Connection.close())
+				}
+			}
+		}
+
+		/**
+		 * Accepts all waiting connections and hands them to the event loops in turn.
+		 * @throws IOException if the server channel fails.
+		 */
+		private void accept() throws IOException {
+			SocketChannel channel = serverChannel.accept();
+			while (channel != null) {
+				EventLoop loop = loops[nextLoop];
+				nextLoop = (nextLoop + 1) % loops.length;
+				loop.newChannels.add(channel);
+				loop.selector.wakeup();
+				channel = serverChannel.accept();
+			}
+		}
+
+		/**
+		 * Registers the connections handed to this event loop, each with a new GameSession.
+		 * Runs in the event loop's thread, so the GameSessions are created with its RandomSource.
+		 */
+		private void registerNewChannels() {
+			SocketChannel channel = newChannels.poll();
+			while (channel != null) {
+				try {
+					channel.configureBlocking(false);
+					channel.socket().setTcpNoDelay(true);
+					GameSession session = new GameSession(brainFactory, myRandom.split());
+					session.setMetrics(metrics);
+					Connection connection = new Connection(channel, session);
+					connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+				} catch (IOException e) {
+					try {
+						channel.close();
+					} catch (IOException e2) {
+						//nothing left to clean up
+					}
+				}
+				channel = newChannels.poll();
+			}
+		}
+
+		/**
+		 * The Selector of the event loop.
+		 */
+		private Selector selector;
+		/**
+		 * The connections accepted for this event loop that are not registered yet.
+		 */
+		private ConcurrentLinkedQueue<SocketChannel> newChannels;
+		/**
+		 * The RandomSource from which the RandomSources of the event loop's sessions are split.
+		 */
+		private RandomSource myRandom;
+		/**
+		 * The thread running the event loop.
+		 */
+		private Thread thread;
+		/**
+		 * The event loop that gets the next accepted connection. Only used by the first event loop.
+		 */
+		private int nextLoop;
+	}
+
+	/**
+	 * A connection to one client, with its GameSession and buffers. Every throw is played as soon as its line is read,
+	 * with GameSession.playRound(char), in the event loop's thread.
+	 * Lines are only read while there is room for their answers; if the client does not read the answers,
+	 * the server stops reading its lines.
+	 */
+	private static class Connection {
+
+		/**
+		 * Constructor.
+		 * @param channel the channel of the connection.
+		 * @param session the game played on the connection.
+		 */
+		private Connection(SocketChannel channel, GameSession session) {
+			this.channel = channel;
+			this.session = session;
+			in = ByteBuffer.allocate(MAX_LINE_LENGTH);
+			out = ByteBuffer.allocate(OUT_BUFFER_SIZE);
+			closing = false;
+			closed = false;
+		}
+
+		/**
+		 * Reads and answers lines, and writes answers, as far as the channel allows.
+		 * @param key the key of the connection, which is ready for reading or writing.
+		 */
+		private void handle(SelectionKey key) {
+			try {
+				if (key.isReadable() && channel.read(in) < 0) {
+					close();
+					return;
+				}
+				answerLines();
+				flush();
+				if (!closing && out.position() == 0) {
+					//the answers are written, so lines that waited for room can be answered now.
+					answerLines();
+					flush();
+				}
+			} catch (IOException e) {
+				close();
+			}
+		}
+
+		/**
+		 * Answers every complete line in the input buffer, as long as there is room for the answers.
+		 */
+		private void answerLines() {
+			in.flip();
+			int lineStart = in.position();
+			for (int i = lineStart; i < in.limit() && !closing; i++) {
+				if (in.get(i) != '\n') {
+					continue;
+				}
+				if (out.remaining() < MAX_ANSWER_LENGTH) {
+					break;
+				}
+				answerLine(lineStart, i);
+				lineStart = i + 1;
+			}
+			in.position(lineStart);
+			in.compact();
+			if (!in.hasRemaining() && out.remaining() >= MAX_ANSWER_LENGTH) {
+				//the input buffer is full, but holds no complete line.
+				closing = true;
+			}
+		}
+
+		/**
+		 * Answers one line.
+		 * @param start the index of the first character of the line in the input buffer.
+		 * @param end the index of the '\n' that ends the line.
+		 */
+		private void answerLine(int start, int end) {
+			if (end > start && in.get(end - 1) == '\r') {
+				end--;
+			}
+			if (end == start) {
+				return;
+			}
+			char input = (char) (in.get(start) & 0xFF);
+			if (end - start != 1) {
+				out.put(INVALID_ANSWER);
+			} else if (Character.toLowerCase(input) == GameRunner.SENTINEL.charAt(0)) {
+				GameRecord myGameRecord = session.getGameRecord();
+				String summary = "= " + myGameRecord.getNumPlayerWins() + " " + myGameRecord.getNumDraws() + " "
+						+ myGameRecord.getNumThrowerWins() + "\n";
+				out.put(summary.getBytes(StandardCharsets.US_ASCII));
+				closing = true;
+			} else if (Talker.getThrowIndex(input) > -1) {
+				short result = session.playRound(input);
+				out.put((byte) session.getGameRecord().getLastRound().getThrowerChoice());
+				out.put((byte) ' ');
+				if (result == Talker.PLAYER_WIN) {
+					out.put((byte) 'w');
+				} else if (result == Talker.THROWER_WIN) {
+					out.put((byte) 'l');
+				} else {
+					out.put((byte) 'd');
+				}
+				out.put((byte) '\n');
+			} else {
+				out.put(INVALID_ANSWER);
+			}
+		}
+
+		/**
+		 * Writes as much of the output buffer as the channel takes, and decides what the Selector should wait for next:
+		 * writing, if answers are left, and reading, if there is room for more lines. Closes the connection once
+		 * it is closing and everything is written.
+		 * @throws IOException if the channel fails.
+		 */
+		private void flush() throws IOException {
+			out.flip();
+			channel.write(out);
+			out.compact();
+			if (closing && out.position() == 0) {
+				close();
+				return;
+			}
+			int ops = 0;
+			if (out.position() > 0) {
+				ops |= SelectionKey.OP_WRITE;
+			}
+			if (!closing && in.hasRemaining()) {
+				ops |= SelectionKey.OP_READ;
+			}
+			key.interestOps(ops);
+		}
+
+		/**
+		 * Closes the connection, unless it is closed already.
+		 */
+		private void close() {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				session.endGame();
+			} finally {
+				key.cancel();
+				try {
+					channel.close();
+				} catch (IOException e) {
+					//nothing left to clean up
+				}
+			}
+		}
+
+		/**
+		 * The channel of the connection.
+		 */
+		private SocketChannel channel;
+		/**
+		 * The key of the channel in its event loop's Selector.
+		 */
+		private SelectionKey key;
+		/**
+		 * The game played on the connection.
+		 */
+		private GameSession session;
+		/**
+		 * The lines received and not answered yet.
+		 */
+		private ByteBuffer in;
+		/**
+		 * The answers not written yet.
+		 */
+		private ByteBuffer out;
+		/**
+		 * Whether the connection is to be closed once all answers are written.
+		 */
+		private boolean closing;
+		/**
+		 * Whether close() was called.
+		 */
+		private boolean closed;
+	}
+
+	/**
+	 * The port used by main() if no port is given.
+	 */
+	public static final int DEFAULT_PORT = 5839;
+	/**
+	 * The longest line a client may send, including the line end.
+	 */
+	public static final int MAX_LINE_LENGTH = 256;
+	/**
+	 * The longest answer the server sends: the summary with three numbers of up to 19 digits.
+	 */
+	private static final int MAX_ANSWER_LENGTH = 64;
+	/**
+	 * The size of the output buffer of every connection.
+	 */
+	private static final int OUT_BUFFER_SIZE = 4096;
+	/**
+	 * The answer to a line that is neither a throw nor the sentinel.
+	 */
+	private static final byte[] INVALID_ANSWER = "?\n".getBytes(StandardCharsets.US_ASCII);
+	/**
+	 * The port the server listens on.
+	 */
+	private int port;
+	/**
+	 * Creates the ThrowerBrain of every session.
+	 */
+	private BrainFactory brainFactory;
+	/**
+	 * The RandomSource from which the RandomSources of the event loops are split.
+	 */
+	private RandomSource myRandom;
+	/**
+	 * The metrics of all sessions.
+	 */
+	private GameMetrics metrics;
+	/**
+	 * The event loops.
+	 */
+	private EventLoop[] loops;
+	/**
+	 * The channel on which connections are accepted.
+	 */
+	private ServerSocketChannel serverChannel;
+	/**
+	 * Whether the server is running. The event loops stop once it is false.
+	 */
+	private volatile boolean running;
+}
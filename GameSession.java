@@ -0,0 +1,174 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A single game between a ThrowerBrain and a Player whose throws come from outside the game (e.g. over the network),
+ * one throw at a time.
+ * The throws are either passed to playRound(char) directly, or requested from the session's Player by playRound(),
+ * which does not wait for the throw: with a RemotePlayer, a session waiting for its user holds no thread.
+ * 
+ * Like SimulationEngine, every GameSession owns its own GameRecord, Thrower, Player and Judge, so any number of sessions
+ * can be played side by side. The GameRecord only keeps the last SimulationEngine.HISTORY_WINDOW rounds, so a session
+ * takes the same memory no matter how long it is played.
+ * A GameSession is not safe to use from several threads at once.
+ * A session can be saved with GameCheckpoint and resumed in another GameSession created with the same BrainFactory.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameSession {
+
+	/**
+	 * Constructor. Sets up a new game.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param myRandom the RandomSource the ThrowerBrain should use for random throws.
+	 */
+	public GameSession(BrainFactory brainFactory, RandomSource myRandom) {
+		this(brainFactory, myRandom, new Player());
+	}
+
+	/**
+	 * Constructor. Sets up a new game with a Player whose throws playRound() requests.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param myRandom the RandomSource the ThrowerBrain should use for random throws.
+	 * @param myPlayer the Player of the game.
+	 */
+	public GameSession(BrainFactory brainFactory, RandomSource myRandom, Player myPlayer) {
+		myGameRecord = new WindowedGameRecord(SimulationEngine.HISTORY_WINDOW);
+		myThrower = new Thrower(myGameRecord, brainFactory.create(myGameRecord, myRandom));
+		this.myPlayer = myPlayer;
+		myJudge = new Judge(myGameRecord);
+	}
+
+	/**
+	 * Plays a round: the Thrower makes its throw, then the Player's throw is submitted, and the Judge decides and records the round.
+	 * The Thrower's throw can be found in the last round of the GameRecord.
+	 * Precondition: playerThrow is a valid throw (see Talker.isThrowValid()).
+	 * @param playerThrow the Player's throw.
+	 * @return the result of the round, as a short constant in Talker.
+	 */
+	public short playRound(char playerThrow) {
+		if (myRecorder != null && myRecorder.isSampleRound()) {
+			long start = System.nanoTime();
+			myThrower.makeThrow(myJudge);
+			long thrown = System.nanoTime();
+			myJudge.setThrow(playerThrow, myPlayer);
+			long played = System.nanoTime();
+			short result = myJudge.decideAndRecord();
+			myRecorder.recordSample(thrown - start, played - thrown, System.nanoTime() - played);
+			myRecorder.recordRound(result);
+			return result;
+		}
+		myThrower.makeThrow(myJudge);
+		myJudge.setThrow(playerThrow, myPlayer);
+		short result = myJudge.decideAndRecord();
+		if (myRecorder != null) {
+			myRecorder.recordRound(result);
+		}
+		return result;
+	}
+
+	/**
+	 * Records the metrics of the rounds played with playRound(char) or playRound() into the given GameMetrics from now on
+	 * (see GameMetrics.Recorder).
+	 * @param metrics the GameMetrics.
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		myRecorder = metrics.newRecorder();
+	}
+
+	/**
+	 * Ends the session: lets the ThrowerBrain commit the event of its last decision (see ThrowerBrain.endGame()).
+	 */
+	public void endGame() {
+		myThrower.getBrain().endGame();
+	}
+
+	/**
+	 * Plays a round with the Player's next throw, without waiting for it: the Thrower makes its throw now, and the Player's
+	 * throw is requested with Player.requestThrow(). When it arrives, the Judge decides and records the round in the thread
+	 * that completed the request (or in this thread, if the Player had its throw ready, like an AutomatedPlayer).
+	 * Only one round may be waiting for its throw at a time. A sampled round (see setMetrics()) counts the wait for the throw
+	 * as the Player's time, as GameRunner does for a user at the console.
+	 * @return a stage that completes with the result of the round, as a short constant in Talker, or with a SentinelException
+	 * 	if the game ended instead.
+	 */
+	public CompletionStage<Short> playRound() {
+		boolean sampled = myRecorder != null && myRecorder.isSampleRound();
+		long start = sampled ? System.nanoTime() : 0;
+		myThrower.makeThrow(myJudge);
+		long thrown = sampled ? System.nanoTime() : 0;
+		return myPlayer.requestThrow().thenApply(playerThrow -> {
+			long played = sampled ? System.nanoTime() : 0;
+			myJudge.setThrow(playerThrow, myPlayer);
+			short result = myJudge.decideAndRecord();
+			if (sampled) {
+				myRecorder.recordSample(thrown - start, played - thrown, System.nanoTime() - played);
+			}
+			if (myRecorder != null) {
+				myRecorder.recordRound(result);
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Writes the state of the game, for a GameCheckpoint: the class name and state of the ThrowerBrain, and the GameRecord.
+	 * The Player is not part of the state, since its throws come from outside the game.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		ThrowerBrain myBrain = myThrower.getBrain();
+		out.writeUTF(myBrain.getClass().getName());
+		myBrain.writeState(out);
+		myGameRecord.writeState(out);
+	}
+
+	/**
+	 * Reads the state written by writeState(), so that the ThrowerBrain goes on exactly as the saved one would have.
+	 * Precondition: no round has been played yet, and the BrainFactory is the one of the saved session.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the game.
+	 */
+	public void readState(DataInput in) throws IOException {
+		if (myGameRecord.getNumRounds() != 0) {
+			throw new IllegalStateException("A session can only be restored before its first round");
+		}
+		ThrowerBrain myBrain = myThrower.getBrain();
+		GameCheckpoint.checkClass(in, myBrain);
+		myBrain.readState(in);
+		myGameRecord.readState(in);
+	}
+
+	/**
+	 * Returns the GameRecord of the game.
+	 * @return the GameRecord of the game.
+	 */
+	public GameRecord getGameRecord() {
+		return myGameRecord;
+	}
+
+	/**
+	 * The GameRecord of the game.
+	 */
+	private GameRecord myGameRecord;
+	/**
+	 * The Thrower playing the game.
+	 */
+	private Thrower myThrower;
+	/**
+	 * The Player of the game, whose throws are submitted to the Judge.
+	 */
+	private Player myPlayer;
+	/**
+	 * The Judge that decides win/losses.
+	 */
+	private Judge myJudge;
+	/**
+	 * Records the metrics of the game, or null if they are not recorded.
+	 */
+	private GameMetrics.Recorder myRecorder;
+}
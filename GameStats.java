@@ -0,0 +1,208 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A snapshot of the running statistics of a game, taken from GameRecord.
+ * 
+ * GameRecord updates its statistics every time a round is added, so taking a snapshot never looks at the rounds themselves
+ * and takes the same time no matter how many rounds were played.
+ * 
+ * Includes the counts of wins, draws, and losses (from the Player's point of view, as in Talker), how often each throw option
+ * was thrown by the Thrower and by the Player, the current streak of equal results, and the longest streak of each result.
+ * Throw options are indexed as in Talker.getThrowChoices().
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class GameStats {
+
+	/**
+	 * Constructor. Saves the statistics. The arrays are copied.
+	 * @param numPlayerWins the number of rounds the Player won
+	 * @param numDraws the number of draws
+	 * @param numThrowerWins the number of rounds the Thrower won
+	 * @param throwerThrowCounts how often the Thrower threw each throw option
+	 * @param playerThrowCounts how often the Player threw each throw option
+	 * @param currentStreakResult the result of the last round, or 0 if no round was played
+	 * @param currentStreakLength the number of rounds in a row, up to the last round, that had the same result as the last round
+	 * @param longestPlayerWinStreak the most rounds in a row the Player won
+	 * @param longestDrawStreak the most draws in a row
+	 * @param longestThrowerWinStreak the most rounds in a row the Thrower won
+	 */
+	public GameStats(long numPlayerWins, long numDraws, long numThrowerWins, long[] throwerThrowCounts, long[] playerThrowCounts,
+			short currentStreakResult, long currentStreakLength, long longestPlayerWinStreak, long longestDrawStreak, long longestThrowerWinStreak) {
+		this.numPlayerWins = numPlayerWins;
+		this.numDraws = numDraws;
+		this.numThrowerWins = numThrowerWins;
+		this.throwerThrowCounts = throwerThrowCounts.clone();
+		this.playerThrowCounts = playerThrowCounts.clone();
+		this.currentStreakResult = currentStreakResult;
+		this.currentStreakLength = currentStreakLength;
+		this.longestPlayerWinStreak = longestPlayerWinStreak;
+		this.longestDrawStreak = longestDrawStreak;
+		this.longestThrowerWinStreak = longestThrowerWinStreak;
+	}
+
+	/**
+	 * Returns the number of rounds played.
+	 * @return the number of rounds played
+	 */
+	public long getNumRounds() {
+		return numPlayerWins + numDraws + numThrowerWins;
+	}
+
+	/**
+	 * Returns the number of rounds the Player won.
+	 * @return the number of rounds the Player won
+	 */
+	public long getNumPlayerWins() {
+		return numPlayerWins;
+	}
+
+	/**
+	 * Returns the number of draws.
+	 * @return the number of draws
+	 */
+	public long getNumDraws() {
+		return numDraws;
+	}
+
+	/**
+	 * Returns the number of rounds the Thrower won.
+	 * @return the number of rounds the Thrower won
+	 */
+	public long getNumThrowerWins() {
+		return numThrowerWins;
+	}
+
+	/**
+	 * Returns how often the Thrower threw a throw option.
+	 * @param throwIndex the index of the throw option in Talker.getThrowChoices()
+	 * @return how often the Thrower threw it
+	 */
+	public long getThrowerThrowCount(int throwIndex) {
+		return throwerThrowCounts[throwIndex];
+	}
+
+	/**
+	 * Returns how often the Player threw a throw option.
+	 * @param throwIndex the index of the throw option in Talker.getThrowChoices()
+	 * @return how often the Player threw it
+	 */
+	public long getPlayerThrowCount(int throwIndex) {
+		return playerThrowCounts[throwIndex];
+	}
+
+	/**
+	 * Returns the result of the current streak, i.e. the result of the last round.
+	 * @return the result of the last round as a short constant in Talker, or 0 if no round was played
+	 */
+	public short getCurrentStreakResult() {
+		return currentStreakResult;
+	}
+
+	/**
+	 * Returns the length of the current streak: how many rounds in a row, up to the last round, had the same result as the last round.
+	 * @return the length of the current streak
+	 */
+	public long getCurrentStreakLength() {
+		return currentStreakLength;
+	}
+
+	/**
+	 * Returns the most rounds in a row the Player won.
+	 * @return the longest winning streak of the Player
+	 */
+	public long getLongestPlayerWinStreak() {
+		return longestPlayerWinStreak;
+	}
+
+	/**
+	 * Returns the most draws in a row.
+	 * @return the longest streak of draws
+	 */
+	public long getLongestDrawStreak() {
+		return longestDrawStreak;
+	}
+
+	/**
+	 * Returns the most rounds in a row the Thrower won.
+	 * @return the longest winning streak of the Thrower
+	 */
+	public long getLongestThrowerWinStreak() {
+		return longestThrowerWinStreak;
+	}
+
+	/**
+	 * Tells whether another object is a GameStats with the same statistics.
+	 * @param other the object to compare with.
+	 * @return whether the statistics are equal.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof GameStats)) {
+			return false;
+		}
+		GameStats stats = (GameStats) other;
+		return numPlayerWins == stats.numPlayerWins && numDraws == stats.numDraws && numThrowerWins == stats.numThrowerWins
+				&& Arrays.equals(throwerThrowCounts, stats.throwerThrowCounts) && Arrays.equals(playerThrowCounts, stats.playerThrowCounts)
+				&& currentStreakResult == stats.currentStreakResult && currentStreakLength == stats.currentStreakLength
+				&& longestPlayerWinStreak == stats.longestPlayerWinStreak && longestDrawStreak == stats.longestDrawStreak
+				&& longestThrowerWinStreak == stats.longestThrowerWinStreak;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(numPlayerWins, numDraws, numThrowerWins, Arrays.hashCode(throwerThrowCounts),
+				Arrays.hashCode(playerThrowCounts), currentStreakResult, currentStreakLength);
+	}
+
+	@Override
+	public String toString() {
+		return numPlayerWins + " player wins, " + numDraws + " draws, " + numThrowerWins + " thrower wins, thrower throws "
+				+ Arrays.toString(throwerThrowCounts) + ", player throws " + Arrays.toString(playerThrowCounts)
+				+ ", current streak " + currentStreakLength + " of " + currentStreakResult + ", longest streaks " + longestPlayerWinStreak
+				+ "/" + longestDrawStreak + "/" + longestThrowerWinStreak;
+	}
+
+	/**
+	 * The number of rounds the Player won.
+	 */
+	private long numPlayerWins;
+	/**
+	 * The number of draws.
+	 */
+	private long numDraws;
+	/**
+	 * The number of rounds the Thrower won.
+	 */
+	private long numThrowerWins;
+	/**
+	 * How often the Thrower threw each throw option, indexed as in Talker.getThrowChoices().
+	 */
+	private long[] throwerThrowCounts;
+	/**
+	 * How often the Player threw each throw option, indexed as in Talker.getThrowChoices().
+	 */
+	private long[] playerThrowCounts;
+	/**
+	 * The result of the last round, or 0 if no round was played.
+	 */
+	private short currentStreakResult;
+	/**
+	 * The number of rounds in a row, up to the last round, that had the same result as the last round.
+	 */
+	private long currentStreakLength;
+	/**
+	 * The most rounds in a row the Player won.
+	 */
+	private long longestPlayerWinStreak;
+	/**
+	 * The most draws in a row.
+	 */
+	private long longestDrawStreak;
+	/**
+	 * The most rounds in a row the Thrower won.
+	 */
+	private long longestThrowerWinStreak;
+}
@@ -0,0 +1,126 @@
+import java.util.Arrays;
+
+/**
+ * Everything that decides how a game goes on from a given round, written down as a sequence of ints, so that
+ * SimulationEngine can tell when a game has come back to a state it was in before.
+ *
+ * The ThrowerBrain, its PatternAgents, the AutomatedPlayer and their RandomSources each add the part of the state they own
+ * (see their addJointState() methods). A part is only left out if it cannot change what happens next, e.g. the counts of
+ * wins and losses; two games with equal JointStates play out the same way from then on.
+ *
+ * A hash is kept up to date as ints are added, so two JointStates that differ are almost always told apart without
+ * comparing their ints, and equals() is still exact.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class JointState {
+
+	/**
+	 * Constructor. Starts empty.
+	 */
+	public JointState() {
+		values = new int[INITIAL_CAPACITY];
+		size = 0;
+		hash = 1;
+	}
+
+	/**
+	 * Adds an int to the state.
+	 * @param value the int.
+	 */
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, values.length * 2);
+		}
+		values[size] = value;
+		size++;
+		hash = hash * 31 + value;
+	}
+
+	/**
+	 * Adds a long to the state, as two ints.
+	 * @param value the long.
+	 */
+	public void add(long value) {
+		add((int) (value >>> 32));
+		add((int) value);
+	}
+
+	/**
+	 * Adds part of an array of ints to the state.
+	 * @param array the array.
+	 * @param offset the index of the first int to add.
+	 * @param length the number of ints to add.
+	 */
+	public void add(int[] array, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			add(array[i]);
+		}
+	}
+
+	/**
+	 * Removes all the ints, so that the JointState can be filled again without creating a new one.
+	 */
+	public void clear() {
+		size = 0;
+		hash = 1;
+	}
+
+	/**
+	 * Makes this JointState a copy of another one.
+	 * @param other the JointState to copy.
+	 */
+	public void copyFrom(JointState other) {
+		if (values.length < other.size) {
+			values = new int[other.values.length];
+		}
+		System.arraycopy(other.values, 0, values, 0, other.size);
+		size = other.size;
+		hash = other.hash;
+	}
+
+	/**
+	 * Returns the number of ints in the state.
+	 * @return the number of ints in the state.
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Tells whether another object is a JointState with the same ints in the same order.
+	 * @param other the object to compare with.
+	 * @return whether the states are equal.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof JointState)) {
+			return false;
+		}
+		JointState state = (JointState) other;
+		return size == state.size && hash == state.hash && Arrays.equals(values, 0, size, state.values, 0, size);
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	/**
+	 * The number of ints a new JointState has room for.
+	 */
+	private static final int INITIAL_CAPACITY = 256;
+	/**
+	 * The ints of the state, followed by unused room.
+	 */
+	private int[] values;
+	/**
+	 * The number of ints in the state.
+	 */
+	private int size;
+	/**
+	 * The hash of the ints in the state, as in Arrays.hashCode().
+	 */
+	private int hash;
+}
@@ -1,6 +1,6 @@
 /**
- * Decide the win and loss between 2 throws by looking for the throw (represented by char constants in Talker)
- * in a string that represents either the list of preys or the list of predators for a particular throw. (The string is a constant in Talker class).
+ * Decide the win and loss between 2 throws by looking them up in the RuleSet of the game (see Talker.getRuleSet()), which keeps
+ * the weapons each weapon beats as a bitset, so deciding a round takes the same time no matter how many throw options there are.
  * The Thrower passes its choice of throw to the Judge first. Then, the Player passes its choice of Throw.
  * Then, GameRunner would ask the Judge to decide the round. 
  * After deciding a round, the Judge passes the two throw options and the result to GameRecord, which records it in an instance of Round.
@@ -39,68 +39,104 @@ public class Judge {
 	/**
 	 * Decides who won (or if there is a draw) and records into GameRecord.
 	 * Precondition: both thrower and player has submitted their throws into subs[].
+	 * @return the result of the round, as a short constant in Talker.
 	 */
-	public void decideAndRecord(){
+	public short decideAndRecord(){
 		short result = decide();
 		recordRound(result);
+		return result;
 	}
 
 	/**
-	 * Decides whether the player won, the thrower won, or if there was a draw. It does so
-	 * by looking for the Player's throw choice (represented by char constants in Talker)
-	 * in a string that represents either the list of preys or the list of predators for the Thrower's throw.
+	 * Decides whether the player won, the thrower won, or if there was a draw, using the throws submitted into subs[].
 	 */
 	private short decide(){
-		String allChoices = ""+Talker.ROCK + Talker.PAPER + Talker.SCISSORS + Talker.LIZARD + Talker.SPOCK;
-		int throwerIndex = allChoices.indexOf(subs[0]);
-		switch (throwerIndex){
-		case 0: {
-			if (Talker.ROCK_PREY.indexOf(subs[1]) > -1){
-				return Talker.THROWER_WIN;
-			}else if (Talker.ROCK_PREDATOR.indexOf(subs[1]) > -1){
-				return Talker.PLAYER_WIN;
-			}else{
-				return Talker.DRAW;
-			}
-		}
-		case 1: {
-			if (Talker.PAPER_PREY.indexOf(subs[1]) > -1){
-				return Talker.THROWER_WIN;
-			}else if (Talker.PAPER_PREDATOR.indexOf(subs[1]) > -1){
-				return Talker.PLAYER_WIN;
-			}else{
-				return Talker.DRAW;
-			}
-		}
-		case 2: {
-			if (Talker.SCISSORS_PREY.indexOf(subs[1]) > -1){
-				return Talker.THROWER_WIN;
-			}else if (Talker.SCISSORS_PREDATOR.indexOf(subs[1]) > -1){
-				return Talker.PLAYER_WIN;
-			}else{
-				return Talker.DRAW;
-			}
+		return decide(subs[0], subs[1]);
+	}
+
+	/**
+	 * Decides the outcome between two throw choices (represented by the chars of the weapons of the RuleSet).
+	 * Looks the pair up in the RuleSet's bitsets, so it never allocates and never searches.
+	 * @param throwerChoice the Thrower's throw choice
+	 * @param playerChoice the Player's throw choice
+	 * @return Talker.PLAYER_WIN, Talker.THROWER_WIN or Talker.DRAW, or -1 if either throw choice is invalid
+	 */
+	public static short decide(char throwerChoice, char playerChoice){
+		RuleSet rules = Talker.getRuleSet();
+		int throwerIndex = rules.getIndex(throwerChoice);
+		int playerIndex = rules.getIndex(playerChoice);
+		if (throwerIndex < 0 || playerIndex < 0) {
+			return -1;
 		}
-		case 3: {
-			if (Talker.LIZARD_PREY.indexOf(subs[1]) > -1){
-				return Talker.THROWER_WIN;
-			}else if (Talker.LIZARD_PREDATOR.indexOf(subs[1]) > -1){
-				return Talker.PLAYER_WIN;
-			}else{
-				return Talker.DRAW;
+		return rules.decide(throwerIndex, playerIndex);
+	}
+
+	/**
+	 * Decides the outcome between two throw choices given by their indexes in Talker.getThrowChoices().
+	 * Precondition: both indexes are valid.
+	 * @param throwerIndex index of the Thrower's throw choice
+	 * @param playerIndex index of the Player's throw choice
+	 * @return Talker.PLAYER_WIN, Talker.THROWER_WIN or Talker.DRAW
+	 */
+	public static short decide(int throwerIndex, int playerIndex){
+		return Talker.getRuleSet().decide(throwerIndex, playerIndex);
+	}
+
+	/**
+	 * Checks the RuleSet lookups against the rules of RPSLK as they were first written, as a string of preys and a string of predators
+	 * for each throw: decides all 25 pairs by both decide() methods and by searching the strings, and prints every pair that differs.
+	 * Then checks that every built-in RuleSet decides every pair the opposite way round when the throws are swapped.
+	 * Exits with status 1 if any check fails.
+	 * @param args not used.
+	 */
+	public static void main(String[] args) {
+		RuleSet original = Talker.getRuleSet();
+		Talker.setRuleSet(RuleSet.RPSLK);
+		char[] throwChoices = {Talker.ROCK, Talker.PAPER, Talker.SCISSORS, Talker.LIZARD, Talker.SPOCK};
+		int mismatches = 0;
+		for (int t = 0; t < throwChoices.length; t++) {
+			for (int p = 0; p < throwChoices.length; p++) {
+				short expected = Talker.DRAW;
+				if (RPSLK_PREYS[t].indexOf(throwChoices[p]) > -1) {
+					expected = Talker.THROWER_WIN;
+				} else if (RPSLK_PREDATORS[t].indexOf(throwChoices[p]) > -1) {
+					expected = Talker.PLAYER_WIN;
+				}
+				short byChar = decide(throwChoices[t], throwChoices[p]);
+				short byIndex = decide(Talker.getThrowIndex(throwChoices[t]), Talker.getThrowIndex(throwChoices[p]));
+				if (byChar != expected || byIndex != expected) {
+					System.out.println("Thrower " + throwChoices[t] + " against Player " + throwChoices[p] + ": " + byChar + " and "
+							+ byIndex + " instead of " + expected);
+					mismatches++;
+				}
 			}
 		}
-		case 4: {
-			if (Talker.SPOCK_PREY.indexOf(subs[1]) > -1){
-				return Talker.THROWER_WIN;
-			}else if (Talker.SPOCK_PREDATOR.indexOf(subs[1]) > -1){
-				return Talker.PLAYER_WIN;
-			}else{
-				return Talker.DRAW;
+		boolean failed = mismatches > 0;
+		System.out.println(failed ? mismatches + " of 25 RPSLK pairs differ from the prey and predator strings."
+				: "All 25 RPSLK pairs match the prey and predator strings.");
+		for (RuleSet rules : new RuleSet[] {RuleSet.RPSLK, RuleSet.RPS, RuleSet.RPS_7, RuleSet.RPS_101}) {
+			Talker.setRuleSet(rules);
+			int asymmetric = 0;
+			int n = rules.getNumWeapons();
+			for (int t = 0; t < n; t++) {
+				for (int p = 0; p < n; p++) {
+					short result = decide(t, p);
+					short swapped = decide(p, t);
+					boolean consistent = t == p ? result == Talker.DRAW
+							: (result == Talker.THROWER_WIN && swapped == Talker.PLAYER_WIN)
+							|| (result == Talker.PLAYER_WIN && swapped == Talker.THROWER_WIN);
+					if (!consistent) {
+						asymmetric++;
+					}
+				}
 			}
+			failed |= asymmetric > 0;
+			System.out.println(rules.getName() + ": " + (asymmetric == 0 ? "all " + n * n + " pairs are consistent." : asymmetric + " pairs are not."));
 		}
+		Talker.setRuleSet(original);
+		if (failed) {
+			System.exit(1);
 		}
-		return -1;
 	}
 
 	/**
@@ -110,6 +146,14 @@ public class Judge {
 		myGameRecord.addRound(subs[0], subs[1], result);
 	}
 
+	/**
+	 * The throws each RPSLK throw beats, in the order Rock, Paper, Scissors, Lizard, Spock, as first written in Talker. Used by main().
+	 */
+	private static final String[] RPSLK_PREYS = {"ls", "kr", "lp", "kp", "rs"};
+	/**
+	 * The throws each RPSLK throw loses to, in the same order as RPSLK_PREYS. Used by main().
+	 */
+	private static final String[] RPSLK_PREDATORS = {"kp", "ls", "kr", "rs", "lp"};
 	/**
 	 * The GameRecord in the game.
 	 */
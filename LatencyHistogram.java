@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long something took, in buckets of powers of two nanoseconds: bucket i counts the durations
+ * from 2^(i-1) to 2^i - 1 nanoseconds (bucket 0 counts durations of 0).
+ * 
+ * The buckets are fixed, so recording a duration only adds to a LongAdder and never creates objects or takes a lock,
+ * and any number of threads can record at once. Percentiles are only known up to the bucket: getPercentile() returns the
+ * upper end of the bucket the percentile falls in, so it is at most twice the real value.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class LatencyHistogram {
+
+	/**
+	 * Constructor. Starts with all buckets empty.
+	 */
+	public LatencyHistogram() {
+		buckets = new LongAdder[NUM_BUCKETS];
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			buckets[i] = new LongAdder();
+		}
+		totalNanos = new LongAdder();
+	}
+
+	/**
+	 * Records a duration.
+	 * @param nanos the duration in nanoseconds. Negative durations (from a clock that went back) count as 0.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+		totalNanos.add(nanos);
+	}
+
+	/**
+	 * Returns the number of durations recorded.
+	 * @return the number of durations recorded.
+	 */
+	public long getCount() {
+		long count = 0;
+		for (LongAdder bucket : buckets) {
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the mean of the durations recorded, in nanoseconds.
+	 * @return the mean duration, or 0 if none was recorded.
+	 */
+	public double getMean() {
+		long count = getCount();
+		return count == 0 ? 0 : (double) totalNanos.sum() / count;
+	}
+
+	/**
+	 * Returns the upper end of the bucket in which the given percentile of the durations falls.
+	 * @param percentile the percentile, from 0 to 100.
+	 * @return the upper end of the bucket in nanoseconds, or 0 if no duration was recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long[] counts = new long[NUM_BUCKETS];
+		long count = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			counts[i] = buckets[i].sum();
+			count += counts[i];
+		}
+		long rank = (long) Math.ceil(count * percentile / 100);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank && seen > 0) {
+				return i == 0 ? 0 : (1L << i) - 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * The number of buckets: one for 0, and one for every bit length of a positive long.
+	 */
+	public static final int NUM_BUCKETS = Long.SIZE;
+	/**
+	 * The number of durations in every bucket.
+	 */
+	private LongAdder[] buckets;
+	/**
+	 * The sum of all durations recorded, in nanoseconds.
+	 */
+	private LongAdder totalNanos;
+}
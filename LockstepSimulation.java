@@ -0,0 +1,469 @@
+import java.util.Arrays;
+
+/**
+ * Plays many independent games between a ThrowerBrain and an AutomatedPlayer at once, all advancing one round at a time in lockstep.
+ * Meant for sweeping over many seeds or players, where SimulationEngine would spend most of its time on calls between
+ * the Thrower, the Player, the Judge and the GameRecord of every single game.
+ *
+ * The state of all games is kept as a structure of arrays: one array per piece of state (the last two throws of both sides,
+ * the streak of every PatternAgent of the ThrowerBrain, the counts of the MarkovPatternAgent, the results), indexed by game.
+ * Every round is played in passes over all games: the ThrowerBrain's analysis, its suggestion, the Players' throws, and the Judge.
+ * The passes are plain loops over int arrays without calls, objects or (mostly) branches; the Judge looks every pair of throws up in
+ * a flat outcome table, and the streaks are updated without branches, so the JIT compiler can keep them tight.
+ *
+ * Every game plays exactly as a SimulationEngine with a ThrowerBrain and the same kind of AutomatedPlayer would, given
+ * the same RandomSource: the same throws, and so the same result. The ThrowerBrain is the one with a MarkovPatternAgent (the Markov,
+ * repeater, rotator and reflector PatternAgents, in that order); the Players can be repeaters, rotators, reflectors or randomizers
+ * (see the AutomatedPlayer constants in Talker). Each game still has its own RandomSources for the random throws of both sides.
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class LockstepSimulation {
+
+	/**
+	 * Constructor. Sets up the games. The RandomSource of every game is split from the given one, in the order of the games, and then
+	 * split into the RandomSources of the ThrowerBrain and the Player, as in SimulationEngine.
+	 * @param playerTypes the type of the Player of every game: Talker.REPEATER_PLAYER, ROTATOR_PLAYER, REFLECTOR_PLAYER or RANDOMIZER_PLAYER.
+	 * @param myRandom the RandomSource from which the RandomSources of the games are split.
+	 * @throws IllegalArgumentException if a player type is not one of these, or the counts of the MarkovPatternAgents would not fit in an array.
+	 */
+	public LockstepSimulation(int[] playerTypes, RandomSource myRandom) {
+		numGames = playerTypes.length;
+		RuleSet rules = Talker.getRuleSet();
+		numThrows = rules.getNumWeapons();
+		outcomes = new byte[numThrows * numThrows];
+		counters = new int[numThrows];
+		for (int t = 0; t < numThrows; t++) {
+			for (int p = 0; p < numThrows; p++) {
+				short result = rules.decide(t, p);
+				outcomes[t * numThrows + p] = result == Talker.PLAYER_WIN ? PLAYER_WIN : result == Talker.DRAW ? DRAW : THROWER_WIN;
+			}
+			counters[t] = rules.getIndex(rules.getCounter(t));
+		}
+		numContexts = 1;
+		for (int i = 0; i < MarkovPatternAgent.DEFAULT_ORDER; i++) {
+			numContexts *= numThrows;
+		}
+		numRows = MarkovPatternAgent.getNumRows(numThrows, MarkovPatternAgent.DEFAULT_ORDER);
+		long numCounts = (long) numGames * numRows * numThrows;
+		if (numCounts > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many games for " + numThrows + " throw options: " + numGames);
+		}
+
+		this.playerTypes = playerTypes.clone();
+		brainRandoms = new RandomSource[numGames];
+		playerRandoms = new RandomSource[numGames];
+		repeaterThrows = new int[numGames];
+		rotatorThrows = new int[numGames];
+		for (int g = 0; g < numGames; g++) {
+			int type = playerTypes[g];
+			if (type != Talker.REPEATER_PLAYER && type != Talker.ROTATOR_PLAYER && type != Talker.REFLECTOR_PLAYER
+					&& type != Talker.RANDOMIZER_PLAYER) {
+				throw new IllegalArgumentException("Unsupported player type: " + type);
+			}
+			RandomSource gameRandom = myRandom.split();
+			brainRandoms[g] = gameRandom.split();
+			playerRandoms[g] = gameRandom.split();
+			//like the constructor of AutomatedPlayer, every Player draws its repeater throw first.
+			repeaterThrows[g] = playerRandoms[g].nextInt(numThrows);
+		}
+
+		throwerThrows = new int[numGames];
+		playerThrows = new int[numGames];
+		throwersLastThrows = new int[numGames];
+		playersLastThrows = new int[numGames];
+		throwersSecondToLastThrows = new int[numGames];
+		playersSecondToLastThrows = new int[numGames];
+		markovStreaks = new int[numGames];
+		repeaterStreaks = new int[numGames];
+		rotatorStreaks = new int[numGames];
+		reflectorStreaks = new int[numGames];
+		markovCounts = new int[(int) numCounts];
+		markovContexts = new int[numGames];
+		markovPredictions = new int[numGames];
+		Arrays.fill(markovPredictions, NO_PREDICTION);
+		results = new long[numGames * 3];
+		numRounds = 0;
+	}
+
+	/**
+	 * Plays a few thousand games against every kind of supported Player in lockstep, checks some of them against SimulationEngine,
+	 * and prints the ThrowerBrain's win percentage against every kind and how fast the games were played.
+	 * Exits with status 1 if a checked game differs from SimulationEngine.
+	 * @param args optionally, the number of games, the number of rounds per game, and the seed.
+	 */
+	public static void main(String[] args) {
+		int numGames = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_GAMES;
+		long rounds = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_ROUNDS;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		int[] kinds = {Talker.REPEATER_PLAYER, Talker.ROTATOR_PLAYER, Talker.REFLECTOR_PLAYER, Talker.RANDOMIZER_PLAYER};
+		String[] kindNames = {"repeater", "rotator", "reflector", "randomizer"};
+		int[] playerTypes = new int[numGames];
+		for (int g = 0; g < numGames; g++) {
+			playerTypes[g] = kinds[g % kinds.length];
+		}
+
+		LockstepSimulation simulation = new LockstepSimulation(playerTypes, new XoshiroRandomSource(seed));
+		long start = System.nanoTime();
+		simulation.run(rounds);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println("ThrowerBrain's win percentage out of all non-draw rounds, " + numGames + " games of " + rounds
+				+ " rounds (seed " + seed + "):");
+		for (int k = 0; k < kinds.length; k++) {
+			long playerWins = 0;
+			long draws = 0;
+			long throwerWins = 0;
+			for (int g = k; g < numGames; g += kinds.length) {
+				SimulationResult result = simulation.getResult(g);
+				playerWins += result.getPlayerWins();
+				draws += result.getDraws();
+				throwerWins += result.getThrowerWins();
+			}
+			System.out.println(String.format("%-10s | %9.2f%%", kindNames[k],
+					new SimulationResult(playerWins, draws, throwerWins).getThrowerWinPercentage()));
+		}
+		double totalRounds = (double) rounds * numGames;
+		System.out.println("Played " + (long) totalRounds + " rounds in " + (elapsed / 1000000) + " ms ("
+				+ (long) (totalRounds * 1000000000 / elapsed) + " rounds/s).");
+
+		RandomSource checkRandom = new XoshiroRandomSource(seed);
+		int numChecked = Math.min(numGames, CHECKED_GAMES);
+		for (int g = 0; g < numChecked; g++) {
+			SimulationResult expected = SimulationEngine.simulate((r, rand) -> new ThrowerBrain(r, rand, true),
+					createPlayerFactory(playerTypes[g]), rounds, checkRandom.split());
+			SimulationResult actual = simulation.getResult(g);
+			if (expected.getPlayerWins() != actual.getPlayerWins() || expected.getDraws() != actual.getDraws()
+					|| expected.getThrowerWins() != actual.getThrowerWins()) {
+				System.out.println("Game " + g + " differs from SimulationEngine: " + actual + " instead of " + expected);
+				System.exit(1);
+			}
+		}
+		System.out.println("The first " + numChecked + " games match SimulationEngine.");
+	}
+
+	/**
+	 * Plays the given number of rounds of every game. May be called repeatedly; the games carry on where the previous call stopped.
+	 * @param rounds the number of rounds to play.
+	 */
+	public void run(long rounds) {
+		for (long i = 0; i < rounds; i++) {
+			if (numRounds <= 2) {
+				throwRandomly();
+			} else {
+				analyze();
+				learn();
+				suggest();
+			}
+			throwPlayers();
+			judge();
+			numRounds++;
+		}
+	}
+
+	/**
+	 * Returns the counts of wins, draws, and losses of a game.
+	 * @param game the index of the game.
+	 * @return the result of the game so far.
+	 */
+	public SimulationResult getResult(int game) {
+		return new SimulationResult(results[game * 3 + PLAYER_WIN], results[game * 3 + DRAW], results[game * 3 + THROWER_WIN]);
+	}
+
+	/**
+	 * Returns the number of games.
+	 * @return the number of games.
+	 */
+	public int getNumGames() {
+		return numGames;
+	}
+
+	/**
+	 * Returns the number of rounds every game has played.
+	 * @return the number of rounds played.
+	 */
+	public long getNumRounds() {
+		return numRounds;
+	}
+
+	/**
+	 * Creates a factory of the AutomatedPlayer of the given type, as used by SimulationEngine.
+	 * @param playerType the type of the Player, as in the constructor.
+	 * @return the factory.
+	 */
+	private static PlayerFactory createPlayerFactory(int playerType) {
+		if (playerType == Talker.REPEATER_PLAYER) {
+			return (r, lifespan, rand) -> new RepeaterPlayer(r, lifespan, rand);
+		} else if (playerType == Talker.ROTATOR_PLAYER) {
+			return (r, lifespan, rand) -> new RotatorPlayer(r, lifespan, rand);
+		} else if (playerType == Talker.REFLECTOR_PLAYER) {
+			return (r, lifespan, rand) -> new ReflectorPlayer(r, lifespan, rand);
+		}
+		return (r, lifespan, rand) -> new RandomizerPlayer(r, lifespan, rand);
+	}
+
+	/**
+	 * The Thrower's throw in the first three rounds of every game, when the Thrower throws randomly (see Thrower.makeThrow()).
+	 */
+	private void throwRandomly() {
+		for (int g = 0; g < numGames; g++) {
+			throwerThrows[g] = brainRandoms[g].nextInt(numThrows);
+		}
+	}
+
+	/**
+	 * The first half of ThrowerBrain.analyze() for the repeater, rotator and reflector PatternAgents: each guesses the Player's
+	 * last throw from the round before, and its streak grows by 1 if the guess was right, or drops to 0 if it was not.
+	 * Also the guess of the MarkovPatternAgent, which it made in the previous suggest().
+	 */
+	private void analyze() {
+		for (int g = 0; g < numGames; g++) {
+			int playersLastThrow = playersLastThrows[g];
+			int playersSecondToLastThrow = playersSecondToLastThrows[g];
+			int rotatorGuess = playersSecondToLastThrow + 1 == numThrows ? 0 : playersSecondToLastThrow + 1;
+			//a streak times -1 (all bits set) if the guess was right, times 0 if it was not.
+			markovStreaks[g] = (markovStreaks[g] + 1) & -(markovPredictions[g] == playersLastThrow ? 1 : 0);
+			repeaterStreaks[g] = (repeaterStreaks[g] + 1) & -(playersSecondToLastThrow == playersLastThrow ? 1 : 0);
+			rotatorStreaks[g] = (rotatorStreaks[g] + 1) & -(rotatorGuess == playersLastThrow ? 1 : 0);
+			reflectorStreaks[g] = (reflectorStreaks[g] + 1) & -(throwersSecondToLastThrows[g] == playersLastThrow ? 1 : 0);
+		}
+	}
+
+	/**
+	 * The second half of ThrowerBrain.analyze(): the MarkovPatternAgent learns the Player's last throw (see MarkovPatternAgent.observe()),
+	 * and predicts the Player's next throw from its counts.
+	 *
+	 * The MarkovPatternAgent starts its sequence with the Player's throw of the second round, and counts from the fourth round on.
+	 */
+	private void learn() {
+		int rowLength = numThrows;
+		int gameLength = numRows * rowLength;
+		for (int g = 0; g < numGames; g++) {
+			int playersLastThrow = playersLastThrows[g];
+			int context = markovContexts[g];
+			if (numRounds == 3) {
+				context = playersSecondToLastThrows[g];
+			} else {
+				int row = g * gameLength + (context % numRows) * rowLength;
+				if (markovCounts[row + playersLastThrow] == MarkovPatternAgent.MAX_COUNT) {
+					for (int i = row; i < row + rowLength; i++) {
+						markovCounts[i] >>= 1;
+					}
+				}
+				markovCounts[row + playersLastThrow]++;
+			}
+			context = (context * numThrows + playersLastThrow) % numContexts;
+			markovContexts[g] = context;
+
+			int row = g * gameLength + (context % numRows) * rowLength;
+			int best = NO_PREDICTION;
+			int bestCount = 0;
+			for (int i = 0; i < rowLength; i++) {
+				if (markovCounts[row + i] > bestCount) {
+					best = i;
+					bestCount = markovCounts[row + i];
+				}
+			}
+			markovPredictions[g] = best;
+		}
+	}
+
+	/**
+	 * ThrowerBrain.suggest(): the Thrower beats the prediction of the PatternAgent with the highest streak, where ties go to the
+	 * agent with the higher priority (the later one), or throws randomly if no agent has a streak.
+	 */
+	private void suggest() {
+		for (int g = 0; g < numGames; g++) {
+			int playersLastThrow = playersLastThrows[g];
+			int bestStreak = markovStreaks[g];
+			int prediction = markovPredictions[g] == NO_PREDICTION ? playersLastThrow : markovPredictions[g];
+			if (repeaterStreaks[g] > 0 && repeaterStreaks[g] >= bestStreak) {
+				bestStreak = repeaterStreaks[g];
+				prediction = playersLastThrow;
+			}
+			if (rotatorStreaks[g] > 0 && rotatorStreaks[g] >= bestStreak) {
+				bestStreak = rotatorStreaks[g];
+				prediction = playersLastThrow + 1 == numThrows ? 0 : playersLastThrow + 1;
+			}
+			if (reflectorStreaks[g] > 0 && reflectorStreaks[g] >= bestStreak) {
+				bestStreak = reflectorStreaks[g];
+				prediction = throwersLastThrows[g];
+			}
+			if (bestStreak == 0) {
+				throwerThrows[g] = brainRandoms[g].nextInt(numThrows);
+			} else {
+				throwerThrows[g] = counters[prediction];
+			}
+		}
+	}
+
+	/**
+	 * The Players' throws, by their types (see AutomatedPlayer).
+	 */
+	private void throwPlayers() {
+		for (int g = 0; g < numGames; g++) {
+			int type = playerTypes[g];
+			int myThrow;
+			if (type == Talker.REPEATER_PLAYER) {
+				myThrow = repeaterThrows[g];
+			} else if (type == Talker.ROTATOR_PLAYER) {
+				myThrow = rotatorThrows[g];
+				rotatorThrows[g] = myThrow + 1 == numThrows ? 0 : myThrow + 1;
+			} else if (type == Talker.REFLECTOR_PLAYER && numRounds > 0) {
+				myThrow = throwersLastThrows[g];
+			} else {
+				myThrow = playerRandoms[g].nextInt(numThrows);
+			}
+			playerThrows[g] = myThrow;
+		}
+	}
+
+	/**
+	 * Judge.decideAndRecord(): counts the result of every game's round, and moves the round into the history of the game.
+	 */
+	private void judge() {
+		for (int g = 0; g < numGames; g++) {
+			int throwerThrow = throwerThrows[g];
+			int playerThrow = playerThrows[g];
+			results[g * 3 + outcomes[throwerThrow * numThrows + playerThrow]]++;
+			throwersSecondToLastThrows[g] = throwersLastThrows[g];
+			playersSecondToLastThrows[g] = playersLastThrows[g];
+			throwersLastThrows[g] = throwerThrow;
+			playersLastThrows[g] = playerThrow;
+		}
+	}
+
+	/**
+	 * The number of games played by main() unless given.
+	 */
+	public static final int DEFAULT_GAMES = 4096;
+	/**
+	 * The number of rounds per game played by main() unless given.
+	 */
+	public static final long DEFAULT_ROUNDS = 100000;
+	/**
+	 * The number of games main() checks against SimulationEngine.
+	 */
+	private static final int CHECKED_GAMES = 16;
+	/**
+	 * The index of the Player's wins among the results of a game, and in the outcome table.
+	 */
+	private static final byte PLAYER_WIN = 0;
+	/**
+	 * The index of the draws among the results of a game, and in the outcome table.
+	 */
+	private static final byte DRAW = 1;
+	/**
+	 * The index of the Thrower's wins among the results of a game, and in the outcome table.
+	 */
+	private static final byte THROWER_WIN = 2;
+	/**
+	 * The prediction of a MarkovPatternAgent that has none. Never equal to the index of a throw.
+	 */
+	private static final int NO_PREDICTION = -1;
+	/**
+	 * The number of games.
+	 */
+	private int numGames;
+	/**
+	 * The number of throw options.
+	 */
+	private int numThrows;
+	/**
+	 * The number of sequences the MarkovPatternAgent counts throws after (see MarkovPatternAgent).
+	 */
+	private int numContexts;
+	/**
+	 * The number of rows of counts the MarkovPatternAgent keeps (see MarkovPatternAgent.getNumRows()).
+	 */
+	private int numRows;
+	/**
+	 * The number of rounds every game has played.
+	 */
+	private long numRounds;
+	/**
+	 * The outcome of every pair of throws (PLAYER_WIN, DRAW or THROWER_WIN), indexed by throwerIndex * numThrows + playerIndex.
+	 */
+	private byte[] outcomes;
+	/**
+	 * The index of the preferred counter-move of every throw (see Talker.getPredator()).
+	 */
+	private int[] counters;
+	/**
+	 * The type of the Player of every game.
+	 */
+	private int[] playerTypes;
+	/**
+	 * The RandomSource of the ThrowerBrain of every game.
+	 */
+	private RandomSource[] brainRandoms;
+	/**
+	 * The RandomSource of the Player of every game.
+	 */
+	private RandomSource[] playerRandoms;
+	/**
+	 * The throw of the Player of every game if it is a repeater.
+	 */
+	private int[] repeaterThrows;
+	/**
+	 * The next throw of the Player of every game if it is a rotator.
+	 */
+	private int[] rotatorThrows;
+	/**
+	 * The Thrower's throw of the current round of every game. All throws are indexes in Talker.getThrowChoices().
+	 */
+	private int[] throwerThrows;
+	/**
+	 * The Player's throw of the current round of every game.
+	 */
+	private int[] playerThrows;
+	/**
+	 * The Thrower's throw of the last round of every game.
+	 */
+	private int[] throwersLastThrows;
+	/**
+	 * The Player's throw of the last round of every game.
+	 */
+	private int[] playersLastThrows;
+	/**
+	 * The Thrower's throw of the second to last round of every game.
+	 */
+	private int[] throwersSecondToLastThrows;
+	/**
+	 * The Player's throw of the second to last round of every game.
+	 */
+	private int[] playersSecondToLastThrows;
+	/**
+	 * The streak of the MarkovPatternAgent of every game.
+	 */
+	private int[] markovStreaks;
+	/**
+	 * The streak of the RepeaterPatternAgent of every game.
+	 */
+	private int[] repeaterStreaks;
+	/**
+	 * The streak of the RotatorPatternAgent of every game.
+	 */
+	private int[] rotatorStreaks;
+	/**
+	 * The streak of the ReflectorPatternAgent of every game.
+	 */
+	private int[] reflectorStreaks;
+	/**
+	 * The counts of the MarkovPatternAgent of every game, numRows rows of numThrows counts per game.
+	 */
+	private int[] markovCounts;
+	/**
+	 * The current sequence of the MarkovPatternAgent of every game (see MarkovPatternAgent).
+	 */
+	private int[] markovContexts;
+	/**
+	 * The prediction of the MarkovPatternAgent of every game for the coming round, or NO_PREDICTION.
+	 */
+	private int[] markovPredictions;
+	/**
+	 * The counts of the Player's wins, the draws, and the Thrower's wins of every game, three per game.
+	 */
+	private long[] results;
+}
@@ -0,0 +1,307 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * MarkovPatternAgent only exist in the ThrowerBrain.
+ * Unlike the other PatternAgents, this PatternAgent does not look for one fixed pattern. Instead it learns from the Player's throws
+ * 	how often each throw followed each sequence of the Player's last few throws (the "order" of the agent, e.g. 2 throws),
+ * 	and guesses that the Player will make the throw that followed the current sequence most often.
+ * When asked, the PatternAgent can also suggest a throw (for the Thrower) based on its prediction of the Player's pattern.
+ * 
+ * The counts are kept in a single flat int array with one row of counts per sequence, so guessing, suggesting, and learning from a throw
+ * 	each take the same time no matter how long the game is, and never create objects.
+ * Counts are capped: when a count reaches MAX_COUNT, every count in its row is halved. Older throws therefore count less than recent ones,
+ * 	which lets the agent follow a Player that changes its pattern (e.g. MixerPlayer).
+ * The table is capped too, at MAX_TABLE_SIZE counts: with many throw options (e.g. RPS-101) there are more sequences than rows,
+ * 	and sequences share the row of their number modulo the number of rows (see getNumRows()).
+ * Only the rows that have counted a throw are part of the agent's JointState, in the order they first did.
+ * 
+ * Note, the agent learns the Player's last throw in observe(), which the ThrowerBrain only calls after the agent has made its guess,
+ * 	so the agent does not cheat in the guessPlayersLastThrow method.
+ * @author Haidun Liu
+ * @version 1.02
+ */
+
+public class MarkovPatternAgent extends PatternAgent {
+
+	/**
+	 * Constructor. Uses the default order.
+	 */
+	public MarkovPatternAgent() {
+		this(DEFAULT_ORDER);
+	}
+
+	/**
+	 * Constructor.
+	 * @param order how many of the Player's last throws make up the sequence that predicts the next throw. Must be at least 1.
+	 */
+	public MarkovPatternAgent(int order) {
+		if (order < 1) {
+			throw new IllegalArgumentException("Order must be at least 1: " + order);
+		}
+		this.order = order;
+		numThrows = Talker.getThrowChoices().length;
+		long sequences = 1;
+		for (int i = 0; i < order; i++) {
+			sequences *= numThrows;
+			if (sequences > Integer.MAX_VALUE / numThrows) {
+				throw new IllegalArgumentException("Order too high for " + numThrows + " throw options: " + order);
+			}
+		}
+		numContexts = (int) sequences;
+		numRows = getNumRows(numThrows, order);
+		counts = new int[numRows * numThrows];
+		touchedRows = new int[Math.min(numRows, INITIAL_TOUCHED_CAPACITY)];
+		isTouched = new boolean[numRows];
+		numTouched = 0;
+		context = 0;
+		numSeen = 0;
+	}
+
+	/**
+	 * Returns the number of rows of counts a MarkovPatternAgent keeps: one per sequence of throws, but no more than fit
+	 * into MAX_TABLE_SIZE counts.
+	 * @param numThrows the number of throw options.
+	 * @param order the order of the agent.
+	 * @return the number of rows.
+	 */
+	public static int getNumRows(int numThrows, int order) {
+		long sequences = 1;
+		for (int i = 0; i < order && sequences <= MAX_TABLE_SIZE; i++) {
+			sequences *= numThrows;
+		}
+		return (int) Math.min(sequences, MAX_TABLE_SIZE / numThrows);
+	}
+
+	/**
+	 * Guesses what the player's most current throw would be: the throw that most often followed the Player's current sequence of throws.
+	 * Before it has seen enough throws, or if it has never seen the current sequence, it makes no guess (returns NO_PREDICTION).
+	 * @param playersSecondToLastThrow the player's second to last throw.
+	 * @return conjecture as to what the player's most current throw would be, or NO_PREDICTION.
+	 */
+	public char guessPlayersLastThrow (char playersSecondToLastThrow) {
+		if (numSeen == 0) {
+			//the first guess of the game: the sequence starts with the player's second to last throw.
+			pushThrow(Talker.getThrowIndex(playersSecondToLastThrow));
+		}
+		int prediction = predict();
+		if (prediction < 0) {
+			return NO_PREDICTION;
+		}
+		return Talker.getThrowChoices()[prediction];
+	}
+
+	/**
+	 * Learns the Player's last throw: counts it as following the previous sequence, then adds it to the sequence.
+	 * @param playersLastThrow the player's last throw.
+	 */
+	@Override
+	public void observe (char playersLastThrow) {
+		int throwIndex = Talker.getThrowIndex(playersLastThrow);
+		if (numSeen >= order) {
+			if (!isTouched[context % numRows]) {
+				touchRow(context % numRows);
+			}
+			int row = (context % numRows) * numThrows;
+			if (counts[row + throwIndex] == MAX_COUNT) {
+				for (int i = row; i < row + numThrows; i++) {
+					counts[i] >>= 1;
+				}
+			}
+			counts[row + throwIndex]++;
+		}
+		pushThrow(throwIndex);
+	}
+
+	/**
+	 * Suggests a throw (for the Thrower) that beats the throw that most often followed the Player's current sequence of throws.
+	 * If there is no such throw yet, beats the player's last throw.
+	 * @param playersLastThrow the player's last throw.
+	 * @return suggested throw for the Thrower.
+	 */
+	public char suggest (char playersLastThrow) {
+		int prediction = predict();
+		if (prediction < 0) {
+			return getPredator(playersLastThrow);
+		}
+		return getPredator(Talker.getThrowChoices()[prediction]);
+	}
+
+	/**
+	 * Predicts the Player's next throw: the throw that most often followed the Player's current sequence of throws.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the predicted next throw of the Player, or NO_PREDICTION if there is no such throw yet.
+	 */
+	@Override
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		int prediction = predict();
+		if (prediction < 0) {
+			return NO_PREDICTION;
+		}
+		return Talker.getThrowChoices()[prediction];
+	}
+
+	/**
+	 * Finds the throw that most often followed the current sequence. Ties go to the throw that comes first in Talker.getThrowChoices().
+	 * @return the index of that throw, or -1 if there is no current sequence yet or it was never followed by a throw.
+	 */
+	private int predict() {
+		if (numSeen < order) {
+			return -1;
+		}
+		int row = (context % numRows) * numThrows;
+		int best = -1;
+		int bestCount = 0;
+		for (int i = 0; i < numThrows; i++) {
+			if (counts[row + i] > bestCount) {
+				best = i;
+				bestCount = counts[row + i];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Adds how much of the sequence has been seen, the current sequence, and the rows of counts that have counted a throw
+	 * to a JointState. Rows that never counted a throw are all 0, so leaving them out keeps the state small
+	 * while the Player only makes a few of the possible sequences.
+	 * @param state the JointState.
+	 * @return true.
+	 */
+	@Override
+	public boolean addJointState (JointState state) {
+		state.add(numSeen);
+		state.add(context);
+		state.add(numTouched);
+		for (int i = 0; i < numTouched; i++) {
+			state.add(touchedRows[i]);
+			state.add(counts, touchedRows[i] * numThrows, numThrows);
+		}
+		return true;
+	}
+
+	/**
+	 * Writes the streak, the statistics, the counts, and the current sequence, for a GameCheckpoint.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out);
+		out.writeInt(order);
+		GameCheckpoint.writeInts(out, counts);
+		out.writeInt(context);
+		out.writeInt(numSeen);
+	}
+
+	/**
+	 * Reads the state written by writeState().
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read, or was written by a MarkovPatternAgent of another order.
+	 */
+	@Override
+	public void readState(DataInput in) throws IOException {
+		super.readState(in);
+		int savedOrder = in.readInt();
+		if (savedOrder != order) {
+			throw new IOException("Saved MarkovPatternAgent has order " + savedOrder + ", not " + order);
+		}
+		GameCheckpoint.readInts(in, counts);
+		context = in.readInt();
+		numSeen = in.readInt();
+		Arrays.fill(isTouched, false);
+		numTouched = 0;
+		for (int row = 0; row < numRows; row++) {
+			for (int i = row * numThrows; i < row * numThrows + numThrows; i++) {
+				if (counts[i] > 0) {
+					touchRow(row);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a row to the rows that have counted a throw.
+	 * @param row the index of the row.
+	 */
+	private void touchRow(int row) {
+		if (numTouched == touchedRows.length) {
+			touchedRows = Arrays.copyOf(touchedRows, Math.min(numRows, touchedRows.length * 2));
+		}
+		touchedRows[numTouched] = row;
+		numTouched++;
+		isTouched[row] = true;
+	}
+
+	/**
+	 * Adds a throw to the end of the current sequence, dropping the oldest throw once the sequence is longer than the order.
+	 * @param throwIndex the index of the throw in Talker.getThrowChoices().
+	 */
+	private void pushThrow(int throwIndex) {
+		context = (context * numThrows + throwIndex) % numContexts;
+		if (numSeen < order) {
+			numSeen++;
+		}
+	}
+
+	/**
+	 * The order used by the constructor without parameters.
+	 */
+	public static final int DEFAULT_ORDER = 2;
+	/**
+	 * The highest value a count can reach before its row is halved.
+	 */
+	public static final int MAX_COUNT = 15;
+	/**
+	 * The largest number of counts a MarkovPatternAgent keeps.
+	 */
+	public static final int MAX_TABLE_SIZE = 1 << 16;
+	/**
+	 * The number of rows the list of rows that have counted a throw has room for at first.
+	 */
+	private static final int INITIAL_TOUCHED_CAPACITY = 16;
+	/**
+	 * How many of the Player's last throws make up a sequence.
+	 */
+	private int order;
+	/**
+	 * The number of throw options.
+	 */
+	private int numThrows;
+	/**
+	 * The number of different sequences: numThrows to the power of order.
+	 */
+	private int numContexts;
+	/**
+	 * The number of rows of counts: numContexts, or fewer if they would not fit into MAX_TABLE_SIZE counts.
+	 */
+	private int numRows;
+	/**
+	 * How often each throw followed each sequence. The counts for sequence s are in row r = s % numRows,
+	 * 	at r * numThrows to r * numThrows + numThrows - 1.
+	 */
+	private int[] counts;
+	/**
+	 * The rows that have counted a throw, in the order they first did. The first numTouched are used.
+	 */
+	private int[] touchedRows;
+	/**
+	 * Whether each row is in touchedRows.
+	 */
+	private boolean[] isTouched;
+	/**
+	 * The number of rows in touchedRows.
+	 */
+	private int numTouched;
+	/**
+	 * The current sequence, i.e. the Player's last throws as a number in base numThrows (the most recent throw is the last digit).
+	 */
+	private int context;
+	/**
+	 * How many throws are in the current sequence, up to order.
+	 */
+	private int numSeen;
+}
@@ -1,3 +1,7 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * Throws the result from a random throw method among the 4 options.
  * Uses the same throwing method for the length of phaseLength, which the user specifies upon creating the class.
@@ -23,17 +27,85 @@ public class MixerPlayer extends AutomatedPlayer {
 	}
 
 	/**
-	 * Makes a mixer throw and passes it to the judge of the game.
+	 * The constructor used by simulations. Takes the phase length instead of asking the user for it.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the number of rounds this AutomatedPlayer should last for
+	 * @param phaseLength how many rounds the mixer should use a throwing method for
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public MixerPlayer(GameRecord myGameRecord, long lifespan, int phaseLength, RandomSource myRandom) {
+		super(myGameRecord, lifespan, myRandom);
+		this.phaseLength = phaseLength;
+		roundsLeftBeforeChange = 0;
+	}
+
+	/**
+	 * Makes a mixer throw.
+	 * @return the throw.
 	 */
 	@Override
-	public void makeThrow(Judge myJudge) throws SentinelException{
-		char myThrow = mixerThrow();
-		myJudge.setThrow(myThrow, this);
-		roundsLeft--;
-		if (roundsLeft == -1) throw new SentinelException();
+	protected char chooseThrow() {
+		return mixerThrow();
 	}
 	
 
+	/**
+	 * Makes the mixer throws of the rest of the current phase, up to length of them, or picks a method first
+	 * if the phase is over. A block never crosses into the next phase. In a reflector phase, makes a single throw,
+	 * since it depends on the Thrower's throw of the previous round.
+	 * @return the number of throws filled.
+	 */
+	@Override
+	protected int chooseThrows(char[] buffer, int offset, int length) {
+		if (roundsLeftBeforeChange < 1) {
+			changeMethod();
+		}
+		if (throwerIndex == 2) {
+			roundsLeftBeforeChange--;
+			buffer[offset] = reflectorThrow();
+			return 1;
+		}
+		int count = Math.min(length, roundsLeftBeforeChange);
+		roundsLeftBeforeChange -= count;
+		if (throwerIndex == 0) {
+			repeaterThrows(buffer, offset, count);
+		} else if (throwerIndex == 1) {
+			rotatorThrows(buffer, offset, count);
+		} else {
+			randomizerThrows(buffer, offset, count);
+		}
+		return count;
+	}
+
+	/**
+	 * Writes the state of the AutomatedPlayer, then the phase length, the current method, and the rounds left in the phase.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		super.writeState(out);
+		out.writeInt(phaseLength);
+		out.writeInt(throwerIndex);
+		out.writeInt(roundsLeftBeforeChange);
+	}
+
+	/**
+	 * Reads the state written by writeState().
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the MixerPlayer.
+	 */
+	@Override
+	public void readState(DataInput in) throws IOException {
+		super.readState(in);
+		phaseLength = in.readInt();
+		throwerIndex = in.readInt();
+		roundsLeftBeforeChange = in.readInt();
+		if (throwerIndex < 0 || throwerIndex > 3) {
+			throw new IOException("Invalid MixerPlayer method: " + throwerIndex);
+		}
+	}
+
 	/**
 	 * If roundsLeftBeforeChange = 0, picks a random throwing method among the 4 throwing methods and set roundsLeftBeforeChange to phaseLength.
 	 * When roundsLeftBeforeChange > 0, returns result from the throwing method used for last time.
@@ -0,0 +1,99 @@
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * Where the Talker prints the rounds and the result of the game.
+ * 
+ * Printing every round on the console (the way a user playing by hand wants it) makes a game against an AutomatedPlayer
+ * wait for the console rather than for the Thrower. So the Talker prints the rounds and the result through an OutputSink,
+ * which decides how much of it to print:
+ <ul>
+   <li>VerboseOutputSink: every round, as the game always did.</li>
+   <li>ProgressOutputSink: a line with the running counts every given number of rounds.</li>
+   <li>SilentOutputSink: nothing but the result of the game.</li>
+ </ul>
+ * All sinks print the result of the game the same way, and write through one large buffer instead of a call to System.out
+ * per line. The Talker flushes the sink before it asks the user anything, so the output is always complete when the user
+ * has to answer.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public abstract class OutputSink {
+
+	/**
+	 * Constructor. Prints to the console through a buffer of BUFFER_SIZE characters.
+	 */
+	public OutputSink() {
+		this(new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE), false));
+	}
+
+	/**
+	 * Constructor. Prints to the given writer.
+	 * @param out the writer to print to.
+	 */
+	public OutputSink(PrintWriter out) {
+		this.out = out;
+	}
+
+	/**
+	 * Prints the last round of the game, if the sink prints rounds.
+	 * @param myGameRecord the GameRecord from which the sink obtains information.
+	 */
+	public abstract void printLastRound(GameRecord myGameRecord);
+
+	/**
+	 * Gets a snapshot of the game's statistics from GameRecord. Interprets it.
+	 * Prints the number and percentage of Player wins,
+	 * Player losses, and
+	 * draws.
+	 * Prints the pure percentage of wins and pure percentage of losses, and comments on them.
+	 * Then flushes the sink.
+	 * @param myGameRecord the GameRecord from which the sink obtains information.
+	 */
+	public void printGameResult(GameRecord myGameRecord) {
+		GameStats stats = myGameRecord.getStats();
+		long numWins = stats.getNumPlayerWins();
+		long numDraws = stats.getNumDraws();
+		long numLosses = stats.getNumThrowerWins();
+		long numRounds = stats.getNumRounds();
+		out.println();
+		out.println("-------");
+		out.println("Out of the " + numRounds + " rounds,");
+		double percWins = (((double)numWins)/numRounds)*100;
+		out.println("you won " + numWins + " rounds (" + percWins + "%),");
+		double percLosses = (((double)numLosses)/numRounds)*100;
+		out.println("lost " + numLosses + " rounds (" + percLosses + "%),");
+		double percDraws = (((double)numDraws)/numRounds)*100;
+		out.println("and experienced " + numDraws + " draws (" + percDraws + "%).");
+		out.println();
+		double pureWinPerc = (((double)numWins)/(numRounds-numDraws))*100;
+		out.println("You won " + pureWinPerc + "% of all the non-draw rounds, while ");
+		double pureLossPerc = 100-pureWinPerc;
+		out.println("Gegner won " + pureLossPerc + "% of all the non-draw rounds.");
+		out.println("Your longest winning streak was " + stats.getLongestPlayerWinStreak() + " rounds, Gegner's was "
+				+ stats.getLongestThrowerWinStreak() + " rounds.");
+		if (pureWinPerc < 40) {
+			out.println("\nIsn't it worth noting that you won substantially less than 50% of the time?");
+			out.println("Trying to develop strategies for this game...doesn't really help.");
+		}
+		flush();
+	}
+
+	/**
+	 * Writes everything printed so far to the console (or the writer).
+	 */
+	public void flush() {
+		out.flush();
+	}
+
+	/**
+	 * The size of the buffer used when printing to the console, in characters.
+	 */
+	public static final int BUFFER_SIZE = 1 << 16;
+	/**
+	 * The writer the sink prints to.
+	 */
+	protected PrintWriter out;
+}
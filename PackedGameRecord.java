@@ -0,0 +1,138 @@
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A GameRecord that packs every round into a single byte instead of keeping an instance of Round per round.
+ * 
+ * The byte is the code of the round (see Round.encode()), so a round takes one byte of memory and recording a round allocates nothing
+ * (except when the array has to grow). Rounds are handed out through Round.decode(), which returns shared instances, so
+ * getRounds(), getRound() and getLastRound() do not allocate either. getRounds() returns a read-only view backed by the packed array.
+ * 
+ * Used for long automated games, e.g. by SimulationEngine.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class PackedGameRecord extends GameRecord {
+
+	/**
+	 * The constructor. Sets up an empty array of packed rounds.
+	 * @throws IllegalStateException if the codes of the rounds of the game's RuleSet do not fit in a byte (see RuleSet.hasByteCodes()).
+	 */
+	public PackedGameRecord() {
+		super(false);
+		if (!Talker.getRuleSet().hasByteCodes()) {
+			throw new IllegalStateException("The rounds of " + Talker.getRuleSet().getName() + " do not fit in a byte");
+		}
+		codes = new byte[INITIAL_CAPACITY];
+		numRounds = 0;
+		view = new RoundView();
+	}
+
+	/**
+	 * Stores a round of playing. Called by addRound().
+	 * The result is not stored, because it follows from the two throws.
+	 * @param playerChoice the user's throw
+	 * @param throwerChoice the thrower's throw
+	 * @param result who won, or if the game resulted in a draw
+	 */
+	@Override
+	protected void storeRound(char throwerChoice, char playerChoice, short result) {
+		int code = Round.encode(throwerChoice, playerChoice);
+		if (code < 0) {
+			throw new IllegalArgumentException("Invalid throw: " + throwerChoice + ", " + playerChoice);
+		}
+		if (numRounds == codes.length) {
+			grow();
+		}
+		codes[numRounds] = (byte) code;
+		numRounds++;
+	}
+
+	/**
+	 * Returns a read-only list of all the rounds that were played, backed by the packed array.
+	 * @return a list of all the rounds that were played
+	 */
+	@Override
+	public List<Round> getRounds() {
+		return view;
+	}
+
+	/**
+	 * Returns the round with the given index (the first round played has index 0)
+	 * @param index the index of the round
+	 * @return the round with the given index
+	 */
+	@Override
+	public Round getRound(long index) {
+		if (index < 0 || index >= numRounds) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numRounds);
+		}
+		return Round.decode(codes[(int) index] & 0xFF);
+	}
+
+	/**
+	 * Returns the last round that was played
+	 * @return the last round that was played
+	 */
+	@Override
+	public Round getLastRound() {
+		return getRound(numRounds - 1);
+	}
+
+	/**
+	 * Returns the number of rounds already played.
+	 * @return the number of rounds already played.
+	 */
+	@Override
+	public long getNumRounds() {
+		return numRounds;
+	}
+
+	/**
+	 * Doubles the capacity of the array of packed rounds.
+	 */
+	private void grow() {
+		if (codes.length == Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Too many rounds to record");
+		}
+		int capacity = (int) Math.min((long) codes.length * 2, Integer.MAX_VALUE - 8);
+		byte[] larger = new byte[capacity];
+		System.arraycopy(codes, 0, larger, 0, numRounds);
+		codes = larger;
+	}
+
+	/**
+	 * A read-only list view of the packed rounds.
+	 */
+	private class RoundView extends AbstractList<Round> implements RandomAccess {
+
+		@Override
+		public Round get(int index) {
+			return getRound(index);
+		}
+
+		@Override
+		public int size() {
+			return numRounds;
+		}
+	}
+
+	/**
+	 * The number of rounds the array can hold before it first has to grow.
+	 */
+	private static final int INITIAL_CAPACITY = 64;
+	/**
+	 * The codes of all rounds played, in order.
+	 */
+	private byte[] codes;
+	/**
+	 * The number of rounds played.
+	 */
+	private int numRounds;
+	/**
+	 * The list view handed out by getRounds().
+	 */
+	private RoundView view;
+}
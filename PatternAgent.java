@@ -1,6 +1,10 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 /**
  * PatternAgents only exist in the ThrowerBrain.
- * Each PatternAgent is responsible for a possible pattern (reflector, rotator, or repeater).
+ * Each PatternAgent is responsible for a possible pattern (reflector, rotator, or repeater), or learns the Player's pattern (Markov).
  * Based on the Player's second to last throw in GameRecord, the PatternAgent guesses what the Player's most recent throw would be. 
  * When asked, the PatternAgent can also suggest a throw (for the Thrower) based on its prediction of the Player's pattern.
  * 
@@ -26,23 +30,53 @@ public abstract class PatternAgent {
 	 */
 	public abstract char suggest (char playersLastThrow);
 	
+	/**
+	 * Predicts the Player's next throw, based on the PatternAgent's idea of the Player's pattern.
+	 * suggest() returns a throw that beats this prediction. Brains that combine the predictions of several agents
+	 * (e.g. IocaineThrowerBrain) need the prediction itself.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the predicted next throw of the Player, or NO_PREDICTION if the PatternAgent has no prediction.
+	 */
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		return NO_PREDICTION;
+	}
+	
+	/**
+	 * Tells the PatternAgent what the Player's most recent throw actually was. Called by the ThrowerBrain after the PatternAgent
+	 * has guessed it. Only PatternAgents that learn from the Player's throws (e.g. MarkovPatternAgent) need to do anything here.
+	 * @param playersLastThrow the player's last throw.
+	 */
+	public void observe (char playersLastThrow) {
+		//empty
+	}
+	
 	/**
 	 * Finds a predator for the given throw choice.
 	 * @param subject the throw choice for whom the method is to find a predator.
 	 * @return a predator for the subject.
 	 */
 	protected char getPredator (char subject) {
-		if (subject == Talker.ROCK) {
-			return Talker.ROCK_PREDATOR.charAt(0);
-		} else if (subject == Talker.PAPER) {
-			return Talker.PAPER_PREDATOR.charAt(0);
-		} else if (subject == Talker.SCISSORS) {
-			return Talker.SCISSORS_PREDATOR.charAt(0);
-		} else if (subject == Talker.LIZARD) {
-			return Talker.LIZARD_PREDATOR.charAt(0);
-		} else {
-			return Talker.SPOCK_PREDATOR.charAt(0);
-		}
+		return Talker.getPredator(subject);
+	}
+	
+	/**
+	 * Adds the state of the PatternAgent that decides its future guesses and suggestions to a JointState, apart from the streak,
+	 * which the ThrowerBrain adds. PatternAgents that keep no state of their own add nothing.
+	 * @param state the JointState.
+	 * @return whether the state could be added. false unless overridden, since a PatternAgent may keep state this class
+	 * 	does not know about; the game then does not take part in cycle detection (see SimulationEngine.setCycleDetection()).
+	 */
+	public boolean addJointState (JointState state) {
+		return false;
+	}
+
+	/**
+	 * Returns the priority of the PatternAgent. When two PatternAgents have the same streak, the ThrowerBrain
+	 * consults the one with the higher priority.
+	 * @return the priority of the PatternAgent. 0 unless overridden.
+	 */
+	public int getPriority() {
+		return 0;
 	}
 	
 	/**
@@ -50,6 +84,8 @@ public abstract class PatternAgent {
 	 */
 	public void addStreak() {
 		streak++;
+		numGuesses++;
+		numHits++;
 	}
 	
 	/**
@@ -57,18 +93,87 @@ public abstract class PatternAgent {
 	 */
 	public void resetStreak() {
 		streak = 0;
+		numGuesses++;
 	}
 	
+	/**
+	 * Makes the last cycleLength guesses again, cycles times over, without making them: the statistics end up as they would
+	 * after making them. The streak only grows if every one of the guesses was correct; otherwise it was reset among them,
+	 * and is the same after every repeat.
+	 * @param cycleLength the number of guesses to repeat.
+	 * @param cycleHits the number of correct guesses among them.
+	 * @param cycles the number of times to repeat them.
+	 */
+	public void repeatGuesses(int cycleLength, long cycleHits, long cycles) {
+		if (streak >= cycleLength) {
+			streak += cycles * cycleLength;
+		}
+		numGuesses += cycles * cycleLength;
+		numHits += cycles * cycleHits;
+	}
+
+	/**
+	 * Returns the number of guesses the PatternAgent has made so far, i.e. the number of times its streak was added to or reset.
+	 * @return the number of guesses.
+	 */
+	public long getNumGuesses() {
+		return numGuesses;
+	}
+
+	/**
+	 * Returns the number of correct guesses the PatternAgent has made so far.
+	 * @return the number of correct guesses.
+	 */
+	public long getNumHits() {
+		return numHits;
+	}
+
 	/**
 	 * Get the streak of the PatternAgent.
 	 * @return streak of the PatternAgent
 	 */
-	public int getStreak() {
+	public long getStreak() {
 		return streak;
 	}
+
+	/**
+	 * Writes the streak and the statistics of the PatternAgent, for a GameCheckpoint.
+	 * Sub-classes with state of their own write it after them.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(streak);
+		out.writeLong(numGuesses);
+		out.writeLong(numHits);
+	}
+
+	/**
+	 * Reads the state written by writeState() into this PatternAgent.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the PatternAgent.
+	 */
+	public void readState(DataInput in) throws IOException {
+		streak = GameCheckpoint.readCount(in);
+		numGuesses = in.readLong();
+		numHits = in.readLong();
+	}
+	
+	/**
+	 * Returned by predictPlayersNextThrow when the PatternAgent has no prediction. Never equal to a throw option.
+	 */
+	public static final char NO_PREDICTION = 0;
 	
 	/**
 	 * The streak of the agent. Only the ThrowerBrain is allowed to change it. 
 	 */
-	private int streak = 0;
+	private long streak = 0;
+	/**
+	 * The number of guesses the agent has made.
+	 */
+	private long numGuesses = 0;
+	/**
+	 * The number of correct guesses the agent has made.
+	 */
+	private long numHits = 0;
 }
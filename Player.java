@@ -1,3 +1,6 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
 /**
  * The virtualization of the user in the game.
  * When GameRunner asks Player to make a throw, it calls a method in the Talker class which
@@ -19,4 +22,20 @@ public class Player {
 		myJudge.setThrow(myThrow, this);
 	}
 
+	/**
+	 * Asks for the Player's next throw without making the caller wait for it: returns a stage that completes with the throw,
+	 * or with a SentinelException when the game should end. The caller then passes the throw to the judge itself.
+	 * Players whose throws come from elsewhere (see RemotePlayer) return a stage that completes later, so a game waiting for
+	 * a throw does not hold a thread.
+	 * This Player asks the user through the Talker (which waits for the console), so the stage is complete when it is returned.
+	 * @return a stage that completes with the Player's next throw.
+	 */
+	public CompletionStage<Character> requestThrow() {
+		try {
+			return CompletableFuture.completedFuture(Talker.askThrow());
+		} catch (SentinelException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
 }
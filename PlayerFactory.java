@@ -0,0 +1,19 @@
+/**
+ * Creates the AutomatedPlayer for a simulated game.
+ * Used by SimulationEngine, which creates a fresh GameRecord and RandomSource for every game, so that
+ * each game gets its own AutomatedPlayer that does not share any state with other games.
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public interface PlayerFactory {
+
+	/**
+	 * Creates an AutomatedPlayer.
+	 * @param myGameRecord the GameRecord in the game.
+	 * @param lifespan the number of rounds the AutomatedPlayer should last for. SimulationEngine passes Long.MAX_VALUE,
+	 * 	so that its games last as long as they are run.
+	 * @param myRandom the RandomSource the AutomatedPlayer should use to choose anything random.
+	 * @return a new AutomatedPlayer.
+	 */
+	AutomatedPlayer create(GameRecord myGameRecord, long lifespan, RandomSource myRandom);
+}
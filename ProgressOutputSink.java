@@ -0,0 +1,62 @@
+import java.io.PrintWriter;
+
+/**
+ * An OutputSink that prints a line with the running counts of wins, losses, and draws every given number of rounds,
+ * instead of every round. Meant for long games against an AutomatedPlayer.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class ProgressOutputSink extends OutputSink {
+
+	/**
+	 * Constructor. Prints to the console.
+	 * @param interval the number of rounds between progress lines. Must be at least 1.
+	 */
+	public ProgressOutputSink(long interval) {
+		super();
+		setInterval(interval);
+	}
+
+	/**
+	 * Constructor. Prints to the given writer.
+	 * @param out the writer to print to.
+	 * @param interval the number of rounds between progress lines. Must be at least 1.
+	 */
+	public ProgressOutputSink(PrintWriter out, long interval) {
+		super(out);
+		setInterval(interval);
+	}
+
+	/**
+	 * Prints a progress line if the number of rounds played is a multiple of the interval, and flushes the sink,
+	 * so that every progress line shows up as soon as it is printed.
+	 * @param myGameRecord the GameRecord from which the sink obtains information.
+	 */
+	@Override
+	public void printLastRound(GameRecord myGameRecord) {
+		long numRounds = myGameRecord.getNumPlayerWins() + myGameRecord.getNumDraws() + myGameRecord.getNumThrowerWins();
+		if (numRounds % interval != 0) {
+			return;
+		}
+		out.println("After " + numRounds + " rounds: you won " + myGameRecord.getNumPlayerWins() + ", lost "
+				+ myGameRecord.getNumThrowerWins() + ", and drew " + myGameRecord.getNumDraws() + ".");
+		flush();
+	}
+
+	/**
+	 * Checks and saves the interval.
+	 * @param interval the number of rounds between progress lines.
+	 */
+	private void setInterval(long interval) {
+		if (interval < 1) {
+			throw new IllegalArgumentException("Interval must be at least 1: " + interval);
+		}
+		this.interval = interval;
+	}
+
+	/**
+	 * The number of rounds between progress lines.
+	 */
+	private long interval;
+}
@@ -0,0 +1,74 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A source of random numbers for the ThrowerBrains and AutomatedPlayers.
+ * 
+ * Every ThrowerBrain and AutomatedPlayer is handed its own RandomSource instead of creating a java.util.Random,
+ * so a game can be seeded and replayed, and games running side by side never share (or contend on) random state.
+ * A RandomSource is not safe to use from several threads at once; split() gives another thread its own.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public interface RandomSource {
+
+	/**
+	 * Returns a random int from 0 (inclusive) to bound (exclusive), with every value equally likely.
+	 * @param bound the upper bound of the int. Must be positive.
+	 * @return a random int from 0 to bound-1.
+	 */
+	int nextInt(int bound);
+
+	/**
+	 * Fills part of an array with random ints from 0 (inclusive) to bound (exclusive), with every value equally likely.
+	 * The ints are the same, in the same order, as length calls to nextInt(bound) would return.
+	 * @param bound the upper bound of the ints. Must be positive.
+	 * @param dest the array to fill.
+	 * @param offset the index of the first int to fill.
+	 * @param length the number of ints to fill.
+	 */
+	default void nextInts(int bound, int[] dest, int offset, int length) {
+		for (int i = offset; i < offset + length; i++) {
+			dest[i] = nextInt(bound);
+		}
+	}
+
+	/**
+	 * Returns a random long, with every value equally likely.
+	 * @return a random long.
+	 */
+	long nextLong();
+
+	/**
+	 * Adds the state of the RandomSource to a JointState, so that cycle detection can tell two states with different
+	 * future numbers apart.
+	 * @param state the JointState.
+	 * @return whether the state could be added. false unless overridden.
+	 */
+	default boolean addJointState(JointState state) {
+		return false;
+	}
+
+	/**
+	 * Writes the state of the RandomSource, for a GameCheckpoint.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	void writeState(DataOutput out) throws IOException;
+
+	/**
+	 * Reads the state written by writeState(), so that this RandomSource goes on with the numbers of the saved one.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or is not a valid state.
+	 */
+	void readState(DataInput in) throws IOException;
+
+	/**
+	 * Creates a new RandomSource whose numbers are independent of this one's, and advances this one.
+	 * Splitting a RandomSource that was created from a seed in the same order always gives the same RandomSources.
+	 * @return a new RandomSource.
+	 */
+	RandomSource split();
+}
@@ -1,5 +1,5 @@
 /**
- * Throws a random throw among the 5 throw options.
+ * Throws a random throw among the throw options.
  * Might be different for every round.
  * Passes its throw choice to the Judge.
  * The win percentage it produces tends to be slightly higher than 40%.
@@ -19,16 +19,34 @@ public class RandomizerPlayer extends AutomatedPlayer {
 		super(myGameRecord, lifespan);
 	}
 
+	/**
+	 * The constructor used by simulations. Saves the GameRecord, the desired lifespan and the RandomSource to use.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the number of rounds this AutomatedPlayer should last for
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public RandomizerPlayer(GameRecord myGameRecord, long lifespan, RandomSource myRandom) {
+		super(myGameRecord, lifespan, myRandom);
+	}
+
+
+	/**
+	 * Makes a randomizer throw.
+	 * @return the throw.
+	 */
+	@Override
+	protected char chooseThrow() {
+		return randomizerThrow();
+	}
 
 	/**
-	 * Makes a randomizer throw and passes it to the judge of the game.
+	 * Makes a whole block of randomizer throws, since they never depend on the Thrower.
+	 * @return length, the number of throws filled.
 	 */
 	@Override
-	public void makeThrow(Judge myJudge) throws SentinelException{
-		char myThrow = randomizerThrow();
-		myJudge.setThrow(myThrow, this);
-		roundsLeft--;
-		if (roundsLeft == -1) throw new SentinelException();
+	protected int chooseThrows(char[] buffer, int offset, int length) {
+		randomizerThrows(buffer, offset, length);
+		return length;
 	}
 
 }
@@ -1,5 +1,3 @@
-import java.util.ArrayList;
-
 /**
  * ReflectorPatternAgent only exist in the ThrowerBrain.
  * This PatternAgent only guesses the reflector pattern.
@@ -29,8 +27,7 @@ public class ReflectorPatternAgent extends PatternAgent {
 	 * @return conjecture as to what the player's most current throw would be.
 	 */
 	public char guessPlayersLastThrow (char playersSecondToLastThrow) {
-		ArrayList<Round> allRounds = myGameRecord.getRounds();
-		char throwersSecondToLastThrow = allRounds.get(allRounds.size()-2).getThrowerChoice();
+		char throwersSecondToLastThrow = myGameRecord.getRound(myGameRecord.getNumRounds()-2).getThrowerChoice();
 		return throwersSecondToLastThrow;
 	}
 	
@@ -40,14 +37,46 @@ public class ReflectorPatternAgent extends PatternAgent {
 	 * @return suggested throw for the Thrower.
 	 */
 	public char suggest (char playersLastThrow) {
-		ArrayList<Round> allRounds = myGameRecord.getRounds();
-		char throwersLastThrow = allRounds.get(allRounds.size()-1).getThrowerChoice();
-		return getPredator(throwersLastThrow);
+		return getPredator(predictPlayersNextThrow(playersLastThrow));
+	}
+
+	/**
+	 * Predicts the Player's next throw, assuming that the Player throws according to a reflector's pattern.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the thrower's last throw.
+	 */
+	@Override
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		char throwersLastThrow = myGameRecord.getLastRound().getThrowerChoice();
+		return throwersLastThrow;
+	}
+
+	/**
+	 * Adds nothing, since the PatternAgent only looks at the last two rounds of the GameRecord.
+	 * @param state the JointState.
+	 * @return true.
+	 */
+	@Override
+	public boolean addJointState (JointState state) {
+		return true;
+	}
+
+	/**
+	 * Returns the priority of the PatternAgent. When streaks are tied, the reflector pattern is favored over all other patterns.
+	 * @return the priority of the PatternAgent.
+	 */
+	@Override
+	public int getPriority() {
+		return REFLECTOR_PRIORITY;
 	}
 
 	/**
 	 * The GameRecord in the game.
 	 */
 	private GameRecord myGameRecord;
+	/**
+	 * The priority of the PatternAgent.
+	 */
+	public static final int REFLECTOR_PRIORITY = 3;
 	
 }
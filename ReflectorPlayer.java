@@ -2,6 +2,7 @@
  * Throws the throw that Thrower has thrown in the previous round.
  * If it is the first round (this info would come from GameRecord), this Player calls RandomizerPlayer to randomly pick a throw.
  * Passes its throw choice to the Judge.
+ * Since every throw depends on the Thrower's throw of the previous round, fillThrows() only ever makes one throw at a time.
  * The win percentage it produces tends to be slightly higher than 40%.
  *  To test the win percentage, set its lifespan to 10,000 when you run the program. This is a large enough factor to show pattern,
  * and runtime isn't very long.
@@ -20,14 +21,32 @@ public class ReflectorPlayer extends AutomatedPlayer {
 	}
 
 	/**
-	 * Makes a reflector throw and passes it to the judge of the game.
+	 * The constructor used by simulations. Saves the GameRecord, the desired lifespan and the RandomSource to use.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the number of rounds this AutomatedPlayer should last for
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public ReflectorPlayer(GameRecord myGameRecord, long lifespan, RandomSource myRandom) {
+		super(myGameRecord, lifespan, myRandom);
+	}
+
+	/**
+	 * Makes a reflector throw.
+	 * @return the throw.
+	 */
+	@Override
+	protected char chooseThrow() {
+		return reflectorThrow();
+	}
+
+	/**
+	 * Adds nothing, since its throws only depend on the GameRecord once the first round is played.
+	 * @param state the JointState.
+	 * @return true.
 	 */
 	@Override
-	public void makeThrow(Judge myJudge) throws SentinelException{
-		char myThrow = reflectorThrow();
-		myJudge.setThrow(myThrow, this);
-		roundsLeft--;
-		if (roundsLeft == -1) throw new SentinelException();
+	public boolean addJointState(JointState state) {
+		return true;
 	}
 
 }
@@ -0,0 +1,98 @@
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * A Player whose throws are submitted from outside the game (e.g. by a GameServer when a line arrives),
+ * whenever they arrive.
+ * 
+ * requestThrow() returns a stage that completes once submitThrow() or end() is called. Until then the game is only
+ * a waiting CompletableFuture, and no thread waits for the throw, so any number of games can wait for their users at once.
+ * A throw (or the end) submitted before the game asks for it is kept, and the next requestThrow() returns it at once;
+ * only one is kept, so a user cannot get more than one throw ahead of the game.
+ * A RemotePlayer is not safe to use from several threads at once, except that submitThrow() and end() may be called
+ * from any thread.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class RemotePlayer extends Player {
+
+	/**
+	 * Waits for the next throw and passes it to the judge of the game. Holds the calling thread until the throw is submitted;
+	 * games that should not hold a thread use requestThrow() instead.
+	 * @param myJudge the judge in the game
+	 * @throws SentinelException if the game was ended instead.
+	 */
+	@Override
+	public void makeThrow(Judge myJudge) throws SentinelException {
+		try {
+			myJudge.setThrow(requestThrow().toCompletableFuture().join(), this);
+		} catch (CompletionException e) {
+			throw new SentinelException();
+		}
+	}
+
+	/**
+	 * Returns a stage that completes with the next throw submitted through submitThrow(), or with a SentinelException
+	 * if end() is called first. If a throw or the end was already submitted, the stage is complete when it is returned.
+	 * @return a stage that completes with the Player's next throw.
+	 */
+	@Override
+	public synchronized CompletionStage<Character> requestThrow() {
+		if (pendingThrow == null) {
+			pendingThrow = new CompletableFuture<Character>();
+		}
+		CompletableFuture<Character> next = pendingThrow;
+		if (next.isDone()) {
+			//a throw submitted early, which this request takes
+			pendingThrow = null;
+		}
+		return next;
+	}
+
+	/**
+	 * Submits the Player's next throw, completing the stage returned by requestThrow(), or keeping the throw for the next
+	 * requestThrow() if the game is not waiting for a throw yet.
+	 * Precondition: myThrow is a valid throw (see Talker.getThrowIndex()).
+	 * @param myThrow the throw.
+	 * @return true if the throw was taken, false if a throw or the end was already kept (in which case the throw is ignored).
+	 */
+	public boolean submitThrow(char myThrow) {
+		CompletableFuture<Character> waiting = takePendingThrow(CompletableFuture.completedFuture(myThrow));
+		return waiting == null || waiting.complete(myThrow);
+	}
+
+	/**
+	 * Ends the game, completing the stage returned by requestThrow() with a SentinelException, or keeping the end for the
+	 * next requestThrow() if the game is not waiting for a throw yet.
+	 * @return true if the end was taken, false if a throw or the end was already kept.
+	 */
+	public boolean end() {
+		CompletableFuture<Character> waiting = takePendingThrow(CompletableFuture.failedFuture(new SentinelException()));
+		return waiting == null || waiting.completeExceptionally(new SentinelException());
+	}
+
+	/**
+	 * Returns the stage waiting for a throw, if any, and forgets it, so that the next requestThrow() waits for the next throw.
+	 * If the game is not waiting, keeps the given complete stage for the next requestThrow() instead, unless one is already kept.
+	 * @param early the complete stage to keep if the game is not waiting.
+	 * @return the stage waiting for a throw; null if there was none and early is kept; or a complete stage if one was
+	 * 	already kept, which cannot be completed again.
+	 */
+	private synchronized CompletableFuture<Character> takePendingThrow(CompletableFuture<Character> early) {
+		CompletableFuture<Character> waiting = pendingThrow;
+		if (waiting == null) {
+			pendingThrow = early;
+		} else if (!waiting.isDone()) {
+			pendingThrow = null;
+		}
+		return waiting;
+	}
+
+	/**
+	 * The stage returned by requestThrow() that is waiting for a throw, a complete stage holding a throw or the end submitted
+	 * before the game asked for it, or null if neither.
+	 */
+	private CompletableFuture<Character> pendingThrow;
+}
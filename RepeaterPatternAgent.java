@@ -25,7 +25,41 @@ public class RepeaterPatternAgent extends PatternAgent {
 	 * @return suggested throw for the Thrower.
 	 */
 	public char suggest (char playersLastThrow) {
-		return getPredator(playersLastThrow);
+		return getPredator(predictPlayersNextThrow(playersLastThrow));
 	}
-	
+
+	/**
+	 * Predicts the Player's next throw, assuming that the Player throws according to a Repeater's pattern.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the player's last throw.
+	 */
+	@Override
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		return playersLastThrow;
+	}
+
+	/**
+	 * Adds nothing, since the PatternAgent only looks at the Player's throws it is given.
+	 * @param state the JointState.
+	 * @return true.
+	 */
+	@Override
+	public boolean addJointState (JointState state) {
+		return true;
+	}
+
+	/**
+	 * Returns the priority of the PatternAgent. When streaks are tied, the repeater pattern is favored over the MarkovPatternAgent.
+	 * @return the priority of the PatternAgent.
+	 */
+	@Override
+	public int getPriority() {
+		return REPEATER_PRIORITY;
+	}
+
+	/**
+	 * The priority of the PatternAgent.
+	 */
+	public static final int REPEATER_PRIORITY = 1;
+
 }
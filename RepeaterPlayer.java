@@ -20,16 +20,43 @@ public class RepeaterPlayer extends AutomatedPlayer{
 	}
 
 	/**
-	 * Makes a repeater throw and passes it to the judge of the game.
+	 * The constructor used by simulations. Saves the GameRecord, the desired lifespan and the RandomSource to use.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the number of rounds this AutomatedPlayer should last for
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public RepeaterPlayer(GameRecord myGameRecord, long lifespan, RandomSource myRandom) {
+		super(myGameRecord, lifespan, myRandom);
+	}
+
+	/**
+	 * Makes a repeater throw.
+	 * @return the throw.
+	 */
+	@Override
+	protected char chooseThrow() {
+		return repeaterThrow();
+	}
+
+	/**
+	 * Makes a whole block of repeater throws, since they never depend on the Thrower.
+	 * @return length, the number of throws filled.
+	 */
+	@Override
+	protected int chooseThrows(char[] buffer, int offset, int length) {
+		repeaterThrows(buffer, offset, length);
+		return length;
+	}
+
+	/**
+	 * Adds the throw it repeats to a JointState.
+	 * @param state the JointState.
+	 * @return true.
 	 */
 	@Override
-	public void makeThrow(Judge myJudge) throws SentinelException{
-		char myThrow = repeaterThrow();
-		myJudge.setThrow(myThrow, this);
-		roundsLeft--;
-		if (roundsLeft == -1) throw new SentinelException();
+	public boolean addJointState(JointState state) {
+		state.add(repeaterThrowChoice);
+		return true;
 	}
-	
-	
 
 }
@@ -4,6 +4,7 @@
  * Based on the Player's second to last throw in GameRecord, it guesses what the Player's most recent throw would be, assuming that the Player
  * 	throws according to a rotator's pattern. 
  * When asked, the PatternAgent can also suggest a throw (for the Thrower) based on its prediction of the Player's pattern. 
+ * The rotation goes through Talker.getThrowChoices() in order, and from the last throw option back to the first.
  * @author Haidun Liu
  * @version 1.01 2015-10-1
  */
@@ -17,8 +18,8 @@ public class RotatorPatternAgent extends PatternAgent {
 	 */
 	public char guessPlayersLastThrow (char playersSecondToLastThrow) {
 		char[] allThrowChoices = Talker.getThrowChoices();
-		int index = getIndexInArray(playersSecondToLastThrow, allThrowChoices); //Player's second to last throw's index
-		return allThrowChoices[index+1];
+		int index = Talker.getThrowIndex(playersSecondToLastThrow); //Player's second to last throw's index
+		return allThrowChoices[(index + 1) % allThrowChoices.length];
 	}
 	
 	/**
@@ -27,25 +28,44 @@ public class RotatorPatternAgent extends PatternAgent {
 	 * @return suggested throw for the Thrower.
 	 */
 	public char suggest (char playersLastThrow) {
-		char[] allThrowChoices = Talker.getThrowChoices();
-		int index = getIndexInArray(playersLastThrow, allThrowChoices); //Player's last throw's index
-		char nextPlayerThrow = allThrowChoices[index+1];
+		char nextPlayerThrow = predictPlayersNextThrow(playersLastThrow);
 		return getPredator (nextPlayerThrow);
 		}
-	
+
 	/**
-	 * Finds the index of a target in a given array. Returns -1 if target is not found in the array.
-	 * @param target the target to search for.
-	 * @param array the array to search in.
-	 * @return the index of target in array. (-1 if target not found).
+	 * Predicts the Player's next throw, assuming that the Player throws according to a rotator's pattern.
+	 * @param playersLastThrow the player's last throw.
+	 * @return the throw following the player's last throw in the rotation.
 	 */
-	private int getIndexInArray (char target, char[] array) {
-		for (int i = 0; i < array.length-1; i++) {
-			if (target == array[i]) {
-				return i;
-			}
-		}
-		return -1;
+	@Override
+	public char predictPlayersNextThrow (char playersLastThrow) {
+		char[] allThrowChoices = Talker.getThrowChoices();
+		int index = Talker.getThrowIndex(playersLastThrow); //Player's last throw's index
+		return allThrowChoices[(index + 1) % allThrowChoices.length];
 	}
 	
+	/**
+	 * Adds nothing, since the PatternAgent only looks at the Player's throws it is given.
+	 * @param state the JointState.
+	 * @return true.
+	 */
+	@Override
+	public boolean addJointState (JointState state) {
+		return true;
+	}
+
+	/**
+	 * Returns the priority of the PatternAgent. When streaks are tied, the rotator pattern is favored over the repeater pattern.
+	 * @return the priority of the PatternAgent.
+	 */
+	@Override
+	public int getPriority() {
+		return ROTATOR_PRIORITY;
+	}
+
+	/**
+	 * The priority of the PatternAgent.
+	 */
+	public static final int ROTATOR_PRIORITY = 2;
+
 }
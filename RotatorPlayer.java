@@ -1,5 +1,5 @@
 /**
- * Throws each of the 5 throw choices cyclically, in the order of Rock, Paper, Scissors, Lizard, and Spock.
+ * Throws each of the throw choices cyclically, in the order of Talker.getThrowChoices() (Rock, Paper, Scissors, Lizard, and Spock in RPSLK).
  * Passes its throw choice to the Judge.
  * The win percentage it produces tends to be slightly less than 40%.
  *  To test the win percentage, set its lifespan to 10,000 when you run the program. This is a large enough factor to show pattern,
@@ -19,14 +19,43 @@ public class RotatorPlayer extends AutomatedPlayer {
 	}
 
 	/**
-	 * Makes a rotator throw and passes it to the judge of the game.
+	 * The constructor used by simulations. Saves the GameRecord, the desired lifespan and the RandomSource to use.
+	 * @param myGameRecord the game record in the game
+	 * @param lifespan the number of rounds this AutomatedPlayer should last for
+	 * @param myRandom the RandomSource used to choose anything random
+	 */
+	public RotatorPlayer(GameRecord myGameRecord, long lifespan, RandomSource myRandom) {
+		super(myGameRecord, lifespan, myRandom);
+	}
+
+	/**
+	 * Makes a rotator throw.
+	 * @return the throw.
+	 */
+	@Override
+	protected char chooseThrow() {
+		return rotatorThrow();
+	}
+
+	/**
+	 * Makes a whole block of rotator throws, since they never depend on the Thrower.
+	 * @return length, the number of throws filled.
+	 */
+	@Override
+	protected int chooseThrows(char[] buffer, int offset, int length) {
+		rotatorThrows(buffer, offset, length);
+		return length;
+	}
+
+	/**
+	 * Adds the index of its next throw to a JointState.
+	 * @param state the JointState.
+	 * @return true.
 	 */
 	@Override
-	public void makeThrow(Judge myJudge) throws SentinelException{
-		char myThrow = rotatorThrow();
-		myJudge.setThrow(myThrow, this);
-		roundsLeft--;
-		if (roundsLeft == -1) throw new SentinelException();
+	public boolean addJointState(JointState state) {
+		state.add(rotatorThrowIndex);
+		return true;
 	}
 
 }
@@ -4,6 +4,10 @@
  * Records who threw what and the outcome.
  * Can be passed to Thrower and AutomatedPlayer for analysis,
  * and to Talker for printing information to the user.
+ * 
+ * A round can also be packed into a single small int code (see encode()), which is how PackedGameRecord stores rounds.
+ * Since the result follows from the two throws, there are only as many different rounds as pairs of throws,
+ * and decode() hands out one shared instance per pair, kept by the RuleSet of the game.
  * @author Haidun Liu
  * @version 1.01 2015-10-1
  */
@@ -47,6 +51,33 @@ public class Round {
 		return result;
 	}
 
+	/**
+	 * Packs the two throws of a round into a code between 0 and (number of throw choices)^2 - 1.
+	 * The result of the round is not part of the code, because the Judge decides it from the two throws alone.
+	 * @param throwerChoice the thrower's throw
+	 * @param playerChoice the user's throw
+	 * @return the code of the round, or -1 if either throw is invalid
+	 */
+	public static int encode(char throwerChoice, char playerChoice) {
+		RuleSet rules = Talker.getRuleSet();
+		int throwerIndex = rules.getIndex(throwerChoice);
+		int playerIndex = rules.getIndex(playerChoice);
+		if (throwerIndex < 0 || playerIndex < 0) {
+			return -1;
+		}
+		return throwerIndex * rules.getNumWeapons() + playerIndex;
+	}
+
+	/**
+	 * Returns the round with the given code. Does not create a new Round.
+	 * Precondition: code was returned by encode().
+	 * @param code the code of the round
+	 * @return the shared Round instance for the code
+	 */
+	public static Round decode(int code) {
+		return Talker.getRuleSet().getRound(code);
+	}
+
 	/**
 	 * The throw choice made by the Player in this round. Uses the char constants for throw choices in the Talker class.
 	 */
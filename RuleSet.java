@@ -0,0 +1,391 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The rules of a game: the throw options ("weapons"), and which weapon beats which.
+ *
+ * A rule set can have any odd number of weapons, from 3 (Rock Paper Scissors) to MAX_WEAPONS, as long as every weapon
+ * beats exactly half of the other weapons and loses to the other half, so that no weapon is better than another.
+ * Every weapon must be a char all the front ends can carry (see isWeaponChar()): the console, scripts, and the one byte
+ * per throw of GameServer and GameClient.
+ * The rule set of the game is kept by the Talker (see Talker.setRuleSet()); the Judge, the PatternAgents and the AutomatedPlayers
+ * only ever see it through Talker.getThrowChoices(), Talker.getThrowIndex(), Talker.getPredator() and Judge.decide().
+ *
+ * Everything is worked out when the rule set is created, so every lookup takes the same time no matter how many weapons there are:
+ * <ul>
+ *   <li>which weapons each weapon beats is kept as a bitset, one bit per weapon, so deciding a round is a single bit test;</li>
+ *   <li>the counter-move ("predator") of each weapon, the weapon that beats it and is preferred by the rules, is kept in a table;</li>
+ *   <li>the index of every weapon is kept in a table indexed by the weapon's char;</li>
+ *   <li>there is one shared Round for every pair of weapons (see Round.decode()).</li>
+ * </ul>
+ *
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class RuleSet {
+
+	/**
+	 * Constructor. Checks the rules and works out the lookup tables.
+	 * @param name the name of the rule set, e.g. "RPSLK".
+	 * @param weapons the char of every weapon, e.g. 'r' for Rock.
+	 * @param weaponNames the name of every weapon, in the same order.
+	 * @param predators for every weapon, the chars of the weapons that beat it, the preferred counter-move first.
+	 * @throws IllegalArgumentException if the number of weapons is not odd, between 3 and MAX_WEAPONS, if a char cannot be
+	 * 	a weapon (see isWeaponChar()) or is used for two weapons, or if a weapon does not lose to exactly half of the other weapons,
+	 * 	or two weapons beat each other.
+	 */
+	public RuleSet(String name, char[] weapons, String[] weaponNames, String[] predators) {
+		int n = weapons.length;
+		if (n < 3 || n > MAX_WEAPONS || n % 2 == 0) {
+			throw new IllegalArgumentException(name + ": the number of weapons must be odd, from 3 to " + MAX_WEAPONS + ": " + n);
+		}
+		if (weaponNames.length != n || predators.length != n) {
+			throw new IllegalArgumentException(name + ": every weapon needs a name and a list of predators");
+		}
+		this.name = name;
+		this.weapons = weapons.clone();
+		this.weaponNames = weaponNames.clone();
+		int maxWeapon = 0;
+		for (char weapon : weapons) {
+			if (!isWeaponChar(weapon)) {
+				throw new IllegalArgumentException(name + ": the char " + weapon + " (U+" + String.format("%04X", (int) weapon)
+						+ ") cannot be a weapon; weapons must be printable ISO-8859-1 chars, other than the sentinel "
+						+ GameRunner.SENTINEL + " in either case and the chars " + RESERVED_CHARS);
+			}
+			maxWeapon = Math.max(maxWeapon, weapon);
+		}
+		indexes = new short[maxWeapon + 1];
+		Arrays.fill(indexes, (short) -1);
+		for (int i = 0; i < n; i++) {
+			if (indexes[weapons[i]] > -1) {
+				throw new IllegalArgumentException(name + ": two weapons use the char " + weapons[i]);
+			}
+			indexes[weapons[i]] = (short) i;
+		}
+		numWords = (n + Long.SIZE - 1) / Long.SIZE;
+		beats = new long[n * numWords];
+		counters = new char[n];
+		for (int prey = 0; prey < n; prey++) {
+			if (predators[prey].length() != n / 2) {
+				throw new IllegalArgumentException(name + ": " + weaponNames[prey] + " must lose to exactly " + (n / 2) + " weapons");
+			}
+			for (int k = 0; k < predators[prey].length(); k++) {
+				int predator = getIndex(predators[prey].charAt(k));
+				if (predator < 0 || predator == prey || beats(predator, prey)) {
+					throw new IllegalArgumentException(name + ": invalid predator " + predators[prey].charAt(k) + " of " + weaponNames[prey]);
+				}
+				beats[predator * numWords + (prey >>> 6)] |= 1L << prey;
+			}
+			counters[prey] = predators[prey].charAt(0);
+		}
+		for (int a = 0; a < n; a++) {
+			for (int b = a + 1; b < n; b++) {
+				if (beats(a, b) == beats(b, a)) {
+					throw new IllegalArgumentException(name + ": " + weaponNames[a] + " and " + weaponNames[b] + " beat each other");
+				}
+			}
+		}
+		rounds = new Round[n * n];
+		for (int t = 0; t < n; t++) {
+			for (int p = 0; p < n; p++) {
+				rounds[t * n + p] = new Round(weapons[t], weapons[p], decide(t, p));
+			}
+		}
+	}
+
+	/**
+	 * Tells whether a char can be a weapon. It must fit in the one byte per throw of GameServer, GameClient and script files
+	 * (ISO-8859-1), and be printable, so that it can be typed at the console and shown: no control chars, no whitespace,
+	 * and no soft hyphen. The sentinel (GameRunner.SENTINEL, in either case), which ends the game, cannot be a weapon,
+	 * and neither can RESERVED_CHARS.
+	 * @param weapon the char.
+	 * @return whether the char can be a weapon.
+	 */
+	public static boolean isWeaponChar(char weapon) {
+		boolean printable = (weapon > ' ' && weapon < 0x7F) || (weapon > 0xA0 && weapon <= 0xFF && weapon != 0xAD);
+		return printable && Character.toLowerCase(weapon) != GameRunner.SENTINEL.charAt(0) && RESERVED_CHARS.indexOf(weapon) < 0;
+	}
+
+	/**
+	 * Creates a rule set in which every weapon beats the half of the weapons that follow it in the list, wrapping around
+	 * at the end (as in RPS-7 and RPS-101). The preferred counter-move of a weapon is the weapon right before it.
+	 * @param name the name of the rule set.
+	 * @param weapons the char of every weapon, in the order of the list.
+	 * @param weaponNames the name of every weapon, in the same order.
+	 * @return the rule set.
+	 * @throws IllegalArgumentException if the weapons do not make a valid rule set (see the constructor).
+	 */
+	public static RuleSet cyclic(String name, char[] weapons, String[] weaponNames) {
+		int n = weapons.length;
+		String[] predators = new String[n];
+		for (int prey = 0; prey < n; prey++) {
+			StringBuilder preyPredators = new StringBuilder();
+			for (int k = 1; k <= n / 2; k++) {
+				preyPredators.append(weapons[Math.floorMod(prey - k, n)]);
+			}
+			predators[prey] = preyPredators.toString();
+		}
+		return new RuleSet(name, weapons, weaponNames, predators);
+	}
+
+	/**
+	 * Creates a cyclic rule set (see cyclic()) with the given number of weapons, named "Weapon 1", "Weapon 2", and so on.
+	 * The weapons are the first chars of GENERATED_WEAPONS, in order.
+	 * @param name the name of the rule set.
+	 * @param numWeapons the number of weapons.
+	 * @return the rule set.
+	 * @throws IllegalArgumentException if the number of weapons is not odd, or not from 3 to the length of GENERATED_WEAPONS.
+	 */
+	public static RuleSet cyclic(String name, int numWeapons) {
+		if (numWeapons < 3 || numWeapons > GENERATED_WEAPONS.length()) {
+			throw new IllegalArgumentException(name + ": the number of weapons must be odd, from 3 to " + GENERATED_WEAPONS.length()
+					+ ": " + numWeapons);
+		}
+		char[] weapons = new char[numWeapons];
+		String[] weaponNames = new String[numWeapons];
+		for (int i = 0; i < numWeapons; i++) {
+			weapons[i] = GENERATED_WEAPONS.charAt(i);
+			weaponNames[i] = "Weapon " + (i + 1);
+		}
+		return cyclic(name, weapons, weaponNames);
+	}
+
+	/**
+	 * Loads a cyclic rule set (see cyclic()) from a text file with one weapon per line: the weapon's char, a space, and its name.
+	 * Blank lines and lines starting with # are skipped. The rule set is named after the file.
+	 * @param path the path of the file.
+	 * @return the rule set.
+	 * @throws IOException if the file cannot be read, or a line is not a weapon.
+	 * @throws IllegalArgumentException if the weapons do not make a valid rule set (see the constructor).
+	 */
+	public static RuleSet load(Path path) throws IOException {
+		StringBuilder weapons = new StringBuilder();
+		ArrayList<String> weaponNames = new ArrayList<String>();
+		try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				if (line.length() < 3 || line.charAt(1) != ' ') {
+					throw new IOException("Not a weapon (<char> <name>): " + line + " in " + path);
+				}
+				weapons.append(line.charAt(0));
+				weaponNames.add(line.substring(2).trim());
+			}
+		}
+		return cyclic(path.getFileName().toString(), weapons.toString().toCharArray(), weaponNames.toArray(new String[0]));
+	}
+
+	/**
+	 * Returns the built-in rule set with the given name (RPSLK, RPS, RPS-7 or RPS-101, ignoring case),
+	 * or else loads the rule set from the file with that path (see load()).
+	 * @param nameOrPath the name of a built-in rule set, or the path of a file.
+	 * @return the rule set.
+	 * @throws IOException if the file cannot be read, or is not a rule set.
+	 */
+	public static RuleSet forName(String nameOrPath) throws IOException {
+		for (RuleSet builtIn : new RuleSet[] {RPSLK, RPS, RPS_7, RPS_101}) {
+			if (builtIn.getName().equalsIgnoreCase(nameOrPath)) {
+				return builtIn;
+			}
+		}
+		return load(Paths.get(nameOrPath));
+	}
+
+	/**
+	 * Returns the name of the rule set.
+	 * @return the name of the rule set.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the number of weapons.
+	 * @return the number of weapons.
+	 */
+	public int getNumWeapons() {
+		return weapons.length;
+	}
+
+	/**
+	 * Returns the chars of all weapons. The array is shared and must not be changed.
+	 * @return the chars of all weapons.
+	 */
+	public char[] getWeapons() {
+		return weapons;
+	}
+
+	/**
+	 * Returns the name of a weapon.
+	 * @param index the index of the weapon.
+	 * @return the name of the weapon.
+	 */
+	public String getWeaponName(int index) {
+		return weaponNames[index];
+	}
+
+	/**
+	 * Returns the index of a weapon, without searching the weapons.
+	 * @param weapon the char of the weapon.
+	 * @return the index of the weapon, or -1 if the char is not a weapon.
+	 */
+	public int getIndex(char weapon) {
+		if (weapon >= indexes.length) {
+			return -1;
+		}
+		return indexes[weapon];
+	}
+
+	/**
+	 * Returns the preferred counter-move of a weapon: the first of the weapons that beat it.
+	 * @param index the index of the weapon.
+	 * @return the char of the counter-move.
+	 */
+	public char getCounter(int index) {
+		return counters[index];
+	}
+
+	/**
+	 * Returns whether one weapon beats another.
+	 * @param a the index of the first weapon.
+	 * @param b the index of the second weapon.
+	 * @return true if a beats b.
+	 */
+	public boolean beats(int a, int b) {
+		return (beats[a * numWords + (b >>> 6)] & (1L << b)) != 0;
+	}
+
+	/**
+	 * Decides the outcome between the Thrower's and the Player's weapons.
+	 * @param throwerIndex the index of the Thrower's weapon.
+	 * @param playerIndex the index of the Player's weapon.
+	 * @return Talker.PLAYER_WIN, Talker.THROWER_WIN or Talker.DRAW
+	 */
+	public short decide(int throwerIndex, int playerIndex) {
+		if (throwerIndex == playerIndex) {
+			return Talker.DRAW;
+		}
+		return beats(throwerIndex, playerIndex) ? Talker.THROWER_WIN : Talker.PLAYER_WIN;
+	}
+
+	/**
+	 * Returns the number of different rounds, i.e. of pairs of weapons, and so the number of codes of rounds (see Round.encode()).
+	 * @return the number of different rounds.
+	 */
+	public int getNumCodes() {
+		return rounds.length;
+	}
+
+	/**
+	 * Returns whether the code of every round fits in a byte (read back as an unsigned byte), as it must for PackedGameRecord and
+	 * GameJournal. True for rule sets of up to 15 weapons.
+	 * @return true if the code of every round fits in a byte.
+	 */
+	public boolean hasByteCodes() {
+		return rounds.length <= 256;
+	}
+
+	/**
+	 * Lists every char that can be a weapon (see isWeaponChar()), in the order of GENERATED_WEAPONS: the lower-case letters,
+	 * the upper-case letters and the digits first, then the other letters of ISO-8859-1, then the other chars.
+	 * @return the chars.
+	 */
+	private static String listWeaponChars() {
+		StringBuilder chars = new StringBuilder("abcdefghijklmnopqrstuvwxyABCDEFGHIJKLMNOPQRSTUVWXY0123456789");
+		for (char c = 0xA1; c <= 0xFF; c++) {
+			if (Character.isLetter(c)) {
+				chars.append(c);
+			}
+		}
+		for (char c = '!'; c <= 0xFF; c++) {
+			if (isWeaponChar(c) && chars.indexOf(String.valueOf(c)) < 0) {
+				chars.append(c);
+			}
+		}
+		return chars.toString();
+	}
+
+	/**
+	 * Returns the shared Round with the given code (see Round.decode()).
+	 * @param code the code of the round.
+	 * @return the shared Round.
+	 */
+	public Round getRound(int code) {
+		return rounds[code];
+	}
+
+	/**
+	 * The largest number of weapons a rule set can have, so that the code of a round fits in a char.
+	 */
+	public static final int MAX_WEAPONS = 255;
+	/**
+	 * The chars that can never be weapons, besides the sentinel: '=' and '?', which start GameServer's answers that are
+	 * not rounds, and '#', which starts a comment in a rule set file (see load()).
+	 */
+	public static final String RESERVED_CHARS = "=?#";
+	/**
+	 * The chars of the weapons of the rule sets created by cyclic(String, int), in order: every char that can be a weapon
+	 * (see isWeaponChar()), the letters and digits first.
+	 */
+	public static final String GENERATED_WEAPONS = listWeaponChars();
+	/**
+	 * Rock Paper Scissors Lizard Spock, the rules of the game unless another rule set is chosen.
+	 */
+	public static final RuleSet RPSLK = new RuleSet("RPSLK", new char[] {'r', 'p', 's', 'l', 'k'},
+			new String[] {"Rock", "Paper", "Scissors", "Lizard", "Spock"}, new String[] {"kp", "ls", "kr", "rs", "lp"});
+	/**
+	 * Rock Paper Scissors.
+	 */
+	public static final RuleSet RPS = cyclic("RPS", new char[] {'r', 's', 'p'}, new String[] {"Rock", "Scissors", "Paper"});
+	/**
+	 * RPS-7: Rock, Fire, Scissors, Sponge, Paper, Air and Water, each beating the three after it.
+	 */
+	public static final RuleSet RPS_7 = cyclic("RPS-7", new char[] {'r', 'f', 's', 'g', 'p', 'a', 'w'},
+			new String[] {"Rock", "Fire", "Scissors", "Sponge", "Paper", "Air", "Water"});
+	/**
+	 * RPS-101, with 101 weapons each beating the 50 after it. The weapons get generated names (see cyclic(String, int));
+	 * load a file (see load()) for other names.
+	 */
+	public static final RuleSet RPS_101 = cyclic("RPS-101", 101);
+	/**
+	 * The name of the rule set.
+	 */
+	private String name;
+	/**
+	 * The chars of the weapons.
+	 */
+	private char[] weapons;
+	/**
+	 * The names of the weapons.
+	 */
+	private String[] weaponNames;
+	/**
+	 * The index of every weapon, indexed by its char. Chars that are not weapons map to -1.
+	 */
+	private short[] indexes;
+	/**
+	 * The number of longs in the bitset of each weapon.
+	 */
+	private int numWords;
+	/**
+	 * The bitsets of the weapons each weapon beats, numWords longs per weapon: bit b of weapon a is set if a beats b.
+	 */
+	private long[] beats;
+	/**
+	 * The preferred counter-move of every weapon.
+	 */
+	private char[] counters;
+	/**
+	 * One Round for every pair of weapons, indexed by code.
+	 */
+	private Round[] rounds;
+}
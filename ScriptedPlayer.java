@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A Player whose throws come from a script: a file (or the console input) with one throw per line, e.g. "r", "p", "s", "l", or "k".
+ * 
+ * The script is parsed a character at a time, straight into throws: line ends and other whitespace separate the throws,
+ * the sentinel character ends the game, and any other character that is not a throw is skipped (as the console would
+ * ask again). The game also ends when the script ends.
+ * A script file is read as ISO-8859-1, one byte per char, which holds every char a weapon can be (see RuleSet.isWeaponChar()).
+ * A script file is memory-mapped, so it is read at the speed of the disk (or the page cache) without being copied,
+ * and a script of millions of throws creates no objects per throw. A script on the console input is read through the
+ * Talker's reader (see Talker.getInput()), in large chunks.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class ScriptedPlayer extends Player {
+
+	/**
+	 * Constructor. Maps the script file.
+	 * @param path the path of the script file.
+	 * @throws IOException if the file cannot be opened or mapped.
+	 */
+	public ScriptedPlayer(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Script is too large (more than 2 GB): " + path);
+			}
+			script = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * Constructor. Reads the script from a reader, such as the Talker's reader of the console input.
+	 * @param reader the reader of the script.
+	 */
+	public ScriptedPlayer(Reader reader) {
+		this.reader = reader;
+		chunk = new char[CHUNK_SIZE];
+		chunkPosition = 0;
+		chunkLength = 0;
+	}
+
+	/**
+	 * Passes the next throw of the script to the judge.
+	 * @param myJudge the judge in the game
+	 * @throws SentinelException if the script reaches the sentinel character or ends.
+	 * @throws UncheckedIOException if the script cannot be read.
+	 */
+	@Override
+	public void makeThrow(Judge myJudge) throws SentinelException {
+		myJudge.setThrow(nextThrow(), this);
+	}
+
+	/**
+	 * Returns the next throw of the script, skipping everything that is not a throw.
+	 * @return the next throw.
+	 * @throws SentinelException if the script reaches the sentinel character or ends.
+	 */
+	private char nextThrow() throws SentinelException {
+		int c = nextChar();
+		while (c >= 0) {
+			char myThrow = (char) c;
+			if (Talker.getThrowIndex(myThrow) > -1) {
+				return myThrow;
+			}
+			if (Character.toLowerCase(myThrow) == GameRunner.SENTINEL.charAt(0)) {
+				break;
+			}
+			c = nextChar();
+		}
+		throw new SentinelException();
+	}
+
+	/**
+	 * Returns the next character of the script.
+	 * @return the next character, or -1 if the script has ended.
+	 */
+	private int nextChar() {
+		if (script != null) {
+			return script.hasRemaining() ? script.get() & 0xFF : -1;
+		}
+		if (chunkPosition == chunkLength) {
+			try {
+				chunkLength = reader.read(chunk);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			chunkPosition = 0;
+			if (chunkLength <= 0) {
+				chunkLength = 0;
+				return -1;
+			}
+		}
+		char c = chunk[chunkPosition];
+		chunkPosition++;
+		return c;
+	}
+
+	/**
+	 * The number of characters read from the reader at a time.
+	 */
+	public static final int CHUNK_SIZE = 1 << 16;
+	/**
+	 * The mapped script file, or null if the script comes from a reader.
+	 */
+	private MappedByteBuffer script;
+	/**
+	 * The reader of the script, or null if the script is a mapped file.
+	 */
+	private Reader reader;
+	/**
+	 * The characters last read from the reader.
+	 */
+	private char[] chunk;
+	/**
+	 * The position in chunk of the next character.
+	 */
+	private int chunkPosition;
+	/**
+	 * The number of characters in chunk.
+	 */
+	private int chunkLength;
+}
@@ -0,0 +1,33 @@
+import java.io.PrintWriter;
+
+/**
+ * An OutputSink that prints no rounds at all, only the result of the game.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class SilentOutputSink extends OutputSink {
+
+	/**
+	 * Constructor. Prints to the console.
+	 */
+	public SilentOutputSink() {
+		super();
+	}
+
+	/**
+	 * Constructor. Prints to the given writer.
+	 * @param out the writer to print to.
+	 */
+	public SilentOutputSink(PrintWriter out) {
+		super(out);
+	}
+
+	/**
+	 * Does not print anything.
+	 */
+	@Override
+	public void printLastRound(GameRecord myGameRecord) {
+		//empty
+	}
+}
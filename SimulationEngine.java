@@ -0,0 +1,516 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Runs a game between a ThrowerBrain and an AutomatedPlayer without any console input or output.
+ * 
+ * Unlike GameRunner, which keeps a single game in static fields and talks to the user through the Talker,
+ * every SimulationEngine owns its own GameRecord, Thrower, Player and Judge, so any number of games can run side by side.
+ * The ThrowerBrain and the AutomatedPlayer are created through factories, and each gets its own RandomSource split from the
+ * game's RandomSource, so a game with the same factories and seed always plays out the same way.
+ * The AutomatedPlayer is given a lifespan of Long.MAX_VALUE rounds, so it never ends the game on its own.
+ * 
+ * The loop is the same as GameRunner's: Thrower, then Player, then Judge. The GameRecord only keeps the last HISTORY_WINDOW rounds,
+ * so a game can run for any number of rounds in constant memory.
+ * The AutomatedPlayer's throws are made THROW_BLOCK at a time with AutomatedPlayer.fillThrows() and taken from a buffer,
+ * instead of one makeThrow() call per round; a player whose throws depend on the Thrower fills one throw at a time.
+ * 
+ * With cycle detection on (see setCycleDetection()), a game that comes back to an earlier state is not played on round by round:
+ * the rounds left are skipped over a whole cycle at a time, and the GameRecord and the ThrowerBrain are carried over them
+ * as if they had been played.
+ * 
+ * A game can be saved with GameCheckpoint and resumed in another SimulationEngine created with the same factories.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class SimulationEngine {
+
+	/**
+	 * Constructor. Sets up a new game.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 * @param seed the seed from which the RandomSources of the ThrowerBrain and the AutomatedPlayer are derived.
+	 */
+	public SimulationEngine(BrainFactory brainFactory, PlayerFactory playerFactory, long seed) {
+		this(brainFactory, playerFactory, new XoshiroRandomSource(seed));
+	}
+
+	/**
+	 * Constructor. Sets up a new game.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 * @param myRandom the RandomSource from which the RandomSources of the ThrowerBrain and the AutomatedPlayer are split.
+	 */
+	public SimulationEngine(BrainFactory brainFactory, PlayerFactory playerFactory, RandomSource myRandom) {
+		myGameRecord = new WindowedGameRecord(HISTORY_WINDOW);
+		myThrower = new Thrower(myGameRecord, brainFactory.create(myGameRecord, myRandom.split()));
+		myPlayer = playerFactory.create(myGameRecord, Long.MAX_VALUE, myRandom.split());
+		myJudge = new Judge(myGameRecord);
+	}
+
+	/**
+	 * Checks cycle detection against playing every round: plays every match of the default tournament (see Tournament.createDefault())
+	 * twice from the same seed, once round by round and once with cycle detection on in a few calls to run(), and checks that
+	 * both games end with the same GameStats, the same last rounds, and the same streaks and statistics of the PatternAgents.
+	 * Exits with status 1 if any match ends differently.
+	 * @param args optionally, the number of rounds per match and the seed.
+	 */
+	public static void main(String[] args) {
+		long rounds = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_CHECK_ROUNDS;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		Tournament tournament = Tournament.createDefault();
+		int numMismatches = 0;
+		for (int b = 0; b < tournament.getNumBrains(); b++) {
+			for (int p = 0; p < tournament.getNumPlayers(); p++) {
+				SimulationEngine plain = new SimulationEngine(tournament.getBrain(b), tournament.getPlayer(p), seed);
+				plain.run(rounds);
+				SimulationEngine skipping = new SimulationEngine(tournament.getBrain(b), tournament.getPlayer(p), seed);
+				skipping.setCycleDetection(true);
+				for (int chunk = 0; chunk < CHECK_CHUNKS; chunk++) {
+					skipping.run(rounds / CHECK_CHUNKS + (chunk < rounds % CHECK_CHUNKS ? 1 : 0));
+				}
+				String mismatch = findMismatch(plain, skipping);
+				if (mismatch != null) {
+					System.out.println(tournament.getBrainName(b) + " against " + tournament.getPlayerName(p) + ": " + mismatch);
+					numMismatches++;
+				}
+			}
+		}
+		int numMatches = tournament.getNumBrains() * tournament.getNumPlayers();
+		if (numMismatches == 0) {
+			System.out.println("All " + numMatches + " matches of " + rounds + " rounds (seed " + seed
+					+ ") end the same with cycle detection as without.");
+		} else {
+			System.out.println(numMismatches + " of " + numMatches + " matches end differently with cycle detection.");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compares the statistics of two games that should have played out the same.
+	 * @param expected the game played round by round.
+	 * @param actual the game played with cycle detection.
+	 * @return what differs, or null if nothing does.
+	 */
+	private static String findMismatch(SimulationEngine expected, SimulationEngine actual) {
+		GameStats expectedStats = expected.myGameRecord.getStats();
+		GameStats actualStats = actual.myGameRecord.getStats();
+		if (!expectedStats.equals(actualStats)) {
+			return "GameStats " + actualStats + " instead of " + expectedStats;
+		}
+		long numRounds = expected.myGameRecord.getNumRounds();
+		if (actual.myGameRecord.getNumRounds() != numRounds) {
+			return actual.myGameRecord.getNumRounds() + " rounds instead of " + numRounds;
+		}
+		for (long i = Math.max(0, numRounds - HISTORY_WINDOW); i < numRounds; i++) {
+			Round expectedRound = expected.myGameRecord.getRound(i);
+			Round actualRound = actual.myGameRecord.getRound(i);
+			if (expectedRound.getThrowerChoice() != actualRound.getThrowerChoice()
+					|| expectedRound.getPlayerChoice() != actualRound.getPlayerChoice()) {
+				return "round " + i + " differs";
+			}
+		}
+		ThrowerBrain expectedBrain = expected.myThrower.getBrain();
+		ThrowerBrain actualBrain = actual.myThrower.getBrain();
+		for (int i = 0; i < expectedBrain.getNumAgents(); i++) {
+			PatternAgent expectedAgent = expectedBrain.getAgent(i);
+			PatternAgent actualAgent = actualBrain.getAgent(i);
+			if (expectedAgent.getStreak() != actualAgent.getStreak() || expectedAgent.getNumGuesses() != actualAgent.getNumGuesses()
+					|| expectedAgent.getNumHits() != actualAgent.getNumHits()) {
+				return expectedAgent.getClass().getSimpleName() + " has streak " + actualAgent.getStreak() + ", "
+						+ actualAgent.getNumHits() + " of " + actualAgent.getNumGuesses() + " guesses instead of "
+						+ expectedAgent.getStreak() + ", " + expectedAgent.getNumHits() + " of " + expectedAgent.getNumGuesses();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Plays the given number of rounds, or fewer if the AutomatedPlayer ends the game (which one made by the PlayerFactory
+	 * with the lifespan it is given never does). May be called repeatedly; the game carries on where the previous call stopped.
+	 * @param rounds the number of rounds to play.
+	 */
+	public void run(long rounds) {
+		try {
+			for (long i = 0; i < rounds; i++) {
+				if (myRecorder != null && myRecorder.isSampleRound()) {
+					playSampledRound(rounds - i);
+				} else {
+					myThrower.makeThrow(myJudge);
+					myJudge.setThrow(nextPlayerThrow(rounds - i), myPlayer);
+					short result = myJudge.decideAndRecord();
+					if (myRecorder != null) {
+						myRecorder.recordRound(result);
+					}
+				}
+				if (cycleDetection) {
+					i += searchCycle(rounds - i - 1);
+				}
+			}
+		} catch (SentinelException e) {
+			//the AutomatedPlayer's lifespan ran out
+			endGame();
+		}
+	}
+
+	/**
+	 * Ends the game, so that the ThrowerBrain commits the event of its last decision (see ThrowerBrain.endGame()).
+	 * Called by run() if the AutomatedPlayer's lifespan runs out; call it once no more rounds will be played otherwise.
+	 */
+	public void endGame() {
+		myThrower.getBrain().endGame();
+	}
+
+	/**
+	 * Records the metrics of the game into the given GameMetrics from now on (see GameMetrics.Recorder).
+	 * @param metrics the GameMetrics.
+	 */
+	public void setMetrics(GameMetrics metrics) {
+		myRecorder = metrics.newRecorder();
+	}
+
+	/**
+	 * Turns cycle detection on or off (it is off unless turned on).
+	 * 
+	 * While it is on, the JointState of the game is taken after every round and Brent's algorithm looks for a state
+	 * that repeats. Once the state after a round equals the state a cycle of rounds ago, every cycle from then on plays out the same,
+	 * so as many whole cycles as fit in the rounds left (and in the AutomatedPlayer's lifespan) are skipped, each repeating
+	 * the cycle just played: the GameRecord records its rounds again (see GameRecord.repeatRounds()), the PatternAgents
+	 * its guesses (see ThrowerBrain.repeatRounds()), and the AutomatedPlayer skips them. The result, the statistics of
+	 * the GameRecord and of the PatternAgents are exactly those of playing every round.
+	 * 
+	 * The search gives up for the rest of the game if the ThrowerBrain or the AutomatedPlayer cannot add its state to a JointState
+	 * (e.g. a RandomizerPlayer, which draws random numbers every round), if the state has more than MAX_STATE_SIZE ints,
+	 * or if no cycle turns up within MAX_CYCLE_SEARCH rounds. While searching, the AutomatedPlayer makes one throw at a time.
+	 * @param cycleDetection whether to look for cycles.
+	 */
+	public void setCycleDetection(boolean cycleDetection) {
+		this.cycleDetection = cycleDetection;
+		if (cycleDetection && currentState == null) {
+			currentState = new JointState();
+			savedState = new JointState();
+		}
+		hasSavedState = false;
+		roundsSinceCycle = 0;
+	}
+
+	/**
+	 * Takes one step of Brent's cycle detection after a round, and skips over the rounds left if a cycle turned up.
+	 * The state is saved after 1, 2, 4, 8, ... rounds, and compared with the state after every round; the first time
+	 * they are equal, the number of rounds since it was saved is the length of the cycle.
+	 * @param roundsLeftInRun the number of rounds left to play in this call to run(), not counting the round just played.
+	 * @return the number of rounds skipped.
+	 */
+	private long searchCycle(long roundsLeftInRun) {
+		if (myGameRecord.getNumRounds() < 3 || playerThrowIndex != numPlayerThrows) {
+			//the Thrower still throws randomly, or the AutomatedPlayer has made throws that were not played yet
+			hasSavedState = false;
+			return 0;
+		}
+		currentState.clear();
+		if (!addJointState(currentState) || currentState.getSize() > MAX_STATE_SIZE || roundsSinceCycle == MAX_CYCLE_SEARCH) {
+			cycleDetection = false;
+			return 0;
+		}
+		roundsSinceCycle++;
+		if (!hasSavedState) {
+			saveState();
+			cycleSearchPower = 1;
+			return 0;
+		}
+		cycleLength++;
+		if (myGameRecord.getCurrentStreakLength() >= cycleLength) {
+			leadingRun = cycleLength;
+			leadingResult = myGameRecord.getCurrentStreakResult();
+		}
+		if (currentState.equals(savedState)) {
+			long cycles = Math.min(roundsLeftInRun, myPlayer.getRoundsLeft()) / cycleLength;
+			ThrowerBrain myBrain = myThrower.getBrain();
+			for (int i = 0; i < savedAgentHits.length; i++) {
+				savedAgentHits[i] = myBrain.getAgent(i).getNumHits() - savedAgentHits[i];
+			}
+			myBrain.repeatRounds((int) cycleLength, savedAgentHits, cycles);
+			long playerWins = myGameRecord.getNumPlayerWins();
+			long draws = myGameRecord.getNumDraws();
+			long throwerWins = myGameRecord.getNumThrowerWins();
+			myGameRecord.repeatRounds(savedStats, leadingRun, leadingResult, cycles);
+			if (myRecorder != null) {
+				myRecorder.recordRounds(myGameRecord.getNumPlayerWins() - playerWins, myGameRecord.getNumDraws() - draws,
+						myGameRecord.getNumThrowerWins() - throwerWins);
+			}
+			long skipped = cycles * cycleLength;
+			myPlayer.skipRounds(skipped);
+			saveState();
+			cycleSearchPower = 1;
+			roundsSinceCycle = 0;
+			return skipped;
+		}
+		if (cycleLength == cycleSearchPower) {
+			saveState();
+			cycleSearchPower *= 2;
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds the state of the whole game to a JointState: the last two rounds, the ThrowerBrain and the AutomatedPlayer.
+	 * @param state the JointState.
+	 * @return whether the state could be added.
+	 */
+	private boolean addJointState(JointState state) {
+		long numRounds = myGameRecord.getNumRounds();
+		for (long i = numRounds - 2; i < numRounds; i++) {
+			Round round = myGameRecord.getRound(i);
+			state.add(round.getThrowerChoice());
+			state.add(round.getPlayerChoice());
+		}
+		return myThrower.getBrain().addJointState(state) && myPlayer.addJointState(state);
+	}
+
+	/**
+	 * Saves the current JointState, the statistics of the GameRecord, and the correct guesses of every PatternAgent,
+	 * as the start of a possible cycle.
+	 */
+	private void saveState() {
+		savedState.copyFrom(currentState);
+		savedStats = myGameRecord.getStats();
+		ThrowerBrain myBrain = myThrower.getBrain();
+		if (savedAgentHits == null || savedAgentHits.length != myBrain.getNumAgents()) {
+			savedAgentHits = new long[myBrain.getNumAgents()];
+		}
+		for (int i = 0; i < savedAgentHits.length; i++) {
+			savedAgentHits[i] = myBrain.getAgent(i).getNumHits();
+		}
+		hasSavedState = true;
+		cycleLength = 0;
+		leadingRun = 0;
+	}
+
+	/**
+	 * Plays a round, timing the Thrower, the Player and the Judge for the GameMetrics.
+	 * The Player's time is that of taking its throw from the buffer, including filling the buffer if it was empty.
+	 * @param roundsLeftInRun the number of rounds left to play in this call to run(), including this one.
+	 * @throws SentinelException if the AutomatedPlayer's lifespan ran out.
+	 */
+	private void playSampledRound(long roundsLeftInRun) throws SentinelException {
+		long start = System.nanoTime();
+		myThrower.makeThrow(myJudge);
+		long thrown = System.nanoTime();
+		myJudge.setThrow(nextPlayerThrow(roundsLeftInRun), myPlayer);
+		long played = System.nanoTime();
+		short result = myJudge.decideAndRecord();
+		myRecorder.recordSample(thrown - start, played - thrown, System.nanoTime() - played);
+		myRecorder.recordRound(result);
+	}
+
+	/**
+	 * Takes the AutomatedPlayer's next throw from the buffer, filling the buffer first if all its throws have been played.
+	 * Fills no more throws than there are rounds left in this call to run(), so that the AutomatedPlayer is never ahead of the game,
+	 * and only one while looking for cycles, so that the state of the AutomatedPlayer is that of the last round played.
+	 * @param roundsLeftInRun the number of rounds left to play in this call to run(), including this one.
+	 * @return the AutomatedPlayer's throw.
+	 * @throws SentinelException if the AutomatedPlayer's lifespan ran out.
+	 */
+	private char nextPlayerThrow(long roundsLeftInRun) throws SentinelException {
+		if (playerThrowIndex == numPlayerThrows) {
+			int length = cycleDetection ? 1 : (int) Math.min(THROW_BLOCK, roundsLeftInRun);
+			numPlayerThrows = myPlayer.fillThrows(playerThrows, 0, length);
+			playerThrowIndex = 0;
+		}
+		return playerThrows[playerThrowIndex++];
+	}
+
+	/**
+	 * Writes the state of the whole game, for a GameCheckpoint: the class names and states of the ThrowerBrain
+	 * and the AutomatedPlayer, the GameRecord, the throws made but not played yet, and whether cycle detection is on.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		ThrowerBrain myBrain = myThrower.getBrain();
+		out.writeUTF(myBrain.getClass().getName());
+		myBrain.writeState(out);
+		out.writeUTF(myPlayer.getClass().getName());
+		myPlayer.writeState(out);
+		myGameRecord.writeState(out);
+		out.writeInt(numPlayerThrows - playerThrowIndex);
+		for (int i = playerThrowIndex; i < numPlayerThrows; i++) {
+			out.writeChar(playerThrows[i]);
+		}
+		out.writeBoolean(cycleDetection);
+	}
+
+	/**
+	 * Reads the state written by writeState(), so that the game goes on exactly as the saved one would have.
+	 * Precondition: no round has been played yet, and the factories are those of the saved game (the seed does not matter).
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the game.
+	 */
+	public void readState(DataInput in) throws IOException {
+		if (myGameRecord.getNumRounds() != 0) {
+			throw new IllegalStateException("A game can only be restored before its first round");
+		}
+		ThrowerBrain myBrain = myThrower.getBrain();
+		GameCheckpoint.checkClass(in, myBrain);
+		myBrain.readState(in);
+		GameCheckpoint.checkClass(in, myPlayer);
+		myPlayer.readState(in);
+		myGameRecord.readState(in);
+		int numBuffered = in.readInt();
+		if (numBuffered < 0 || numBuffered > THROW_BLOCK) {
+			throw new IOException("Invalid number of buffered throws: " + numBuffered);
+		}
+		for (int i = 0; i < numBuffered; i++) {
+			playerThrows[i] = in.readChar();
+		}
+		playerThrowIndex = 0;
+		numPlayerThrows = numBuffered;
+		if (GameCheckpoint.getVersion(in) < 2) {
+			//version 1 counted the wins, draws, and losses of skipped rounds here, and nowhere else
+			for (int i = 0; i < 3; i++) {
+				if (in.readLong() != 0) {
+					throw new IOException("The checkpoint has rounds skipped by cycle detection outside its GameRecord");
+				}
+			}
+		}
+		setCycleDetection(in.readBoolean());
+	}
+
+	/**
+	 * Returns the counts of wins, draws, and losses of all rounds played so far, including those skipped over by cycle detection.
+	 * @return the result of the game so far.
+	 */
+	public SimulationResult getResult() {
+		return new SimulationResult(myGameRecord.getNumPlayerWins(), myGameRecord.getNumDraws(), myGameRecord.getNumThrowerWins());
+	}
+
+	/**
+	 * Plays a whole game and returns its result.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 * @param rounds the number of rounds to play.
+	 * @param seed the seed from which the RandomSources of the ThrowerBrain and the AutomatedPlayer are derived.
+	 * @return the counts of wins, draws, and losses.
+	 */
+	public static SimulationResult simulate(BrainFactory brainFactory, PlayerFactory playerFactory, long rounds, long seed) {
+		return simulate(brainFactory, playerFactory, rounds, new XoshiroRandomSource(seed));
+	}
+
+	/**
+	 * Plays a whole game and returns its result.
+	 * @param brainFactory creates the ThrowerBrain of the Thrower.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 * @param rounds the number of rounds to play.
+	 * @param myRandom the RandomSource from which the RandomSources of the ThrowerBrain and the AutomatedPlayer are split.
+	 * @return the counts of wins, draws, and losses.
+	 */
+	public static SimulationResult simulate(BrainFactory brainFactory, PlayerFactory playerFactory, long rounds, RandomSource myRandom) {
+		SimulationEngine engine = new SimulationEngine(brainFactory, playerFactory, myRandom);
+		engine.run(rounds);
+		engine.endGame();
+		return engine.getResult();
+	}
+
+	/**
+	 * The default number of rounds per match of the check in main().
+	 */
+	public static final long DEFAULT_CHECK_ROUNDS = 100000;
+	/**
+	 * The number of calls to run() in which the check in main() plays each game with cycle detection.
+	 */
+	public static final int CHECK_CHUNKS = 3;
+	/**
+	 * The number of most recent rounds kept in the GameRecord.
+	 */
+	public static final int HISTORY_WINDOW = 16;
+	/**
+	 * The largest number of the AutomatedPlayer's throws made at once.
+	 */
+	public static final int THROW_BLOCK = 4096;
+	/**
+	 * The most ints a JointState may have for cycle detection to look for it repeating.
+	 */
+	public static final int MAX_STATE_SIZE = 4096;
+	/**
+	 * The number of rounds after which cycle detection gives up if no cycle turned up.
+	 */
+	public static final int MAX_CYCLE_SEARCH = 1 << 20;
+	/**
+	 * The GameRecord of the game.
+	 */
+	private GameRecord myGameRecord;
+	/**
+	 * The Thrower playing the game.
+	 */
+	private Thrower myThrower;
+	/**
+	 * The AutomatedPlayer playing the game.
+	 */
+	private AutomatedPlayer myPlayer;
+	/**
+	 * The Judge that decides win/losses.
+	 */
+	private Judge myJudge;
+	/**
+	 * Records the metrics of the game, or null if they are not recorded.
+	 */
+	private GameMetrics.Recorder myRecorder;
+	/**
+	 * The AutomatedPlayer's throws made ahead of the rounds they are played in.
+	 */
+	private char[] playerThrows = new char[THROW_BLOCK];
+	/**
+	 * The index in playerThrows of the AutomatedPlayer's next throw.
+	 */
+	private int playerThrowIndex;
+	/**
+	 * The number of throws in playerThrows, played or not.
+	 */
+	private int numPlayerThrows;
+	/**
+	 * Whether cycle detection is on.
+	 */
+	private boolean cycleDetection;
+	/**
+	 * The JointState after the last round, or null if cycle detection was never turned on.
+	 */
+	private JointState currentState;
+	/**
+	 * The JointState saved by Brent's algorithm, or null if cycle detection was never turned on.
+	 */
+	private JointState savedState;
+	/**
+	 * Whether savedState holds a state of the current search.
+	 */
+	private boolean hasSavedState;
+	/**
+	 * The number of rounds played since savedState was saved.
+	 */
+	private long cycleLength;
+	/**
+	 * The number of rounds after which savedState is saved again, doubling every time (Brent's power of two).
+	 */
+	private long cycleSearchPower;
+	/**
+	 * The number of rounds searched since cycle detection was turned on or the last cycle turned up.
+	 */
+	private int roundsSinceCycle;
+	/**
+	 * The statistics of the GameRecord when savedState was saved.
+	 */
+	private GameStats savedStats;
+	/**
+	 * The number of correct guesses of every PatternAgent when savedState was saved.
+	 */
+	private long[] savedAgentHits;
+	/**
+	 * The number of rounds in a row, from the first round after savedState was saved, that had the result of that round.
+	 */
+	private long leadingRun;
+	/**
+	 * The result of the first round after savedState was saved.
+	 */
+	private short leadingResult;
+}
@@ -0,0 +1,117 @@
+/**
+ * The aggregated outcome of a simulated game: how many rounds the Player won, drew, and lost.
+ * As in Talker, a Player win is a Thrower loss and vice versa.
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class SimulationResult {
+
+	/**
+	 * Constructor. Saves the counts.
+	 * @param playerWins the number of rounds the Player won
+	 * @param draws the number of draws
+	 * @param throwerWins the number of rounds the Thrower won
+	 */
+	public SimulationResult(long playerWins, long draws, long throwerWins) {
+		this.playerWins = playerWins;
+		this.draws = draws;
+		this.throwerWins = throwerWins;
+	}
+
+	/**
+	 * Returns the number of rounds the Player won.
+	 * @return the number of rounds the Player won
+	 */
+	public long getPlayerWins() {
+		return playerWins;
+	}
+
+	/**
+	 * Returns the number of draws.
+	 * @return the number of draws
+	 */
+	public long getDraws() {
+		return draws;
+	}
+
+	/**
+	 * Returns the number of rounds the Thrower won.
+	 * @return the number of rounds the Thrower won
+	 */
+	public long getThrowerWins() {
+		return throwerWins;
+	}
+
+	/**
+	 * Returns the number of rounds played.
+	 * @return the number of rounds played
+	 */
+	public long getNumRounds() {
+		return playerWins + draws + throwerWins;
+	}
+
+	/**
+	 * Returns the Thrower's percentage of wins out of all rounds that are not draws,
+	 * i.e. the win rate documented for ThrowerBrain.
+	 * @return the Thrower's percentage of wins out of all non-draw rounds
+	 */
+	public double getThrowerWinPercentage() {
+		return (((double)throwerWins)/(throwerWins + playerWins))*100;
+	}
+
+	/**
+	 * Returns the lower end of the Wilson score interval of the Thrower's win percentage out of all rounds that are not draws.
+	 * Unlike the normal approximation, the interval stays inside 0% to 100% and is still meaningful for win rates near 0% or 100%.
+	 * @param z the number of standard deviations the interval spans on each side, e.g. 1.96 for 95% confidence.
+	 * @return the lower end of the interval, in percent; 0 if there were no non-draw rounds.
+	 */
+	public double getThrowerWinLowerBound(double z) {
+		return getWilsonBound(z, -1);
+	}
+
+	/**
+	 * Returns the upper end of the Wilson score interval of the Thrower's win percentage out of all rounds that are not draws.
+	 * @param z the number of standard deviations the interval spans on each side, e.g. 1.96 for 95% confidence.
+	 * @return the upper end of the interval, in percent; 100 if there were no non-draw rounds.
+	 */
+	public double getThrowerWinUpperBound(double z) {
+		return getWilsonBound(z, 1);
+	}
+
+	/**
+	 * Computes one end of the Wilson score interval of the Thrower's win rate out of all rounds that are not draws.
+	 * @param z the number of standard deviations the interval spans on each side.
+	 * @param side -1 for the lower end, 1 for the upper end.
+	 * @return the end of the interval, in percent.
+	 */
+	private double getWilsonBound(double z, int side) {
+		double n = throwerWins + playerWins;
+		if (n == 0) {
+			return side < 0 ? 0 : 100;
+		}
+		double p = throwerWins / n;
+		double zz = z * z;
+		double center = p + zz / (2 * n);
+		double spread = z * Math.sqrt(p * (1 - p) / n + zz / (4 * n * n));
+		return (center + side * spread) / (1 + zz / n) * 100;
+	}
+
+	@Override
+	public String toString() {
+		return "wins=" + playerWins + ", draws=" + draws + ", losses=" + throwerWins
+				+ " (Thrower won " + getThrowerWinPercentage() + "% of non-draw rounds)";
+	}
+
+	/**
+	 * The number of rounds the Player won.
+	 */
+	private long playerWins;
+	/**
+	 * The number of draws.
+	 */
+	private long draws;
+	/**
+	 * The number of rounds the Thrower won.
+	 */
+	private long throwerWins;
+}
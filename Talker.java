@@ -1,14 +1,20 @@
-import java.util.ArrayList;
-import java.util.Scanner;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.NoSuchElementException;
 
 /**
  * Talker is a static class that gives instructions to the user and interprets the user's input.
  * It handles all of the console input and output in the game. 
  * The runner frequently calls methods in Talker to give the user information about the game, or to ask the user to make choices.
  * Player (when controlled by console) asks for the user's throw choices through the Talker.
+ * The rounds and the result of the game are printed through an OutputSink, which can print every round (the default),
+ * 	a progress line every so many rounds, or only the result.
  * 
  * Talker encapsulates all the throw options. When classes throughout the game mention the throw options, they do so through
- * 	char constants in Talker that represent the throw options. 
+ * 	the chars of the weapons of the game's RuleSet, which Talker keeps (see setRuleSet()). Unless another RuleSet is chosen,
+ * 	the game is Rock Paper Scissors Lizard Spock, whose throw options are the char constants in Talker. 
  * 
  * Talker encapsulates references to player win, thrower win, and draw. When classes throughout the game mention the throw options, 
  * 	they do so through constants in Talker. For example, when the Judge passes the result of a round to GameRecord to be recorded, 
@@ -21,8 +27,8 @@ import java.util.Scanner;
  * 	obtaining the desired type of AutomatedPlayer from the user console, passes the selection to the Runner, which can then create the
  * 	specific type of AutomatedPlayer. The specific values are chosen because they are unlikely to overlap with another value in the game.
  * 
- * Talker encapsulates the rules by which the Judge can decide the winner between two throws. It does so by keeping String constants that each 
- * represents either the list of preys or the list of predators for a particular throw.
+ * Talker encapsulates the rules by which the Judge can decide the winner between two throws. It does so by keeping the RuleSet of the game,
+ * which knows which weapon beats which.
  * 
  * @author Haidun Liu
  * @version 1.01 2015-10-1
@@ -34,6 +40,15 @@ public class Talker {
 	 * Prints the welcome message (including the rules of the game) in the concole.
 	 */
 	public static void printWelcome(){
+		outputSink.flush();
+		if (ruleSet != RuleSet.RPSLK) {
+			System.out.println("Hello. Play " + ruleSet.getName() + " with Gegner, an automated player.");
+			System.out.println("Every weapon beats the " + (ruleSet.getNumWeapons() / 2) + " weapons that follow it (wrapping around).");
+			for (int i = 0; i < ruleSet.getNumWeapons(); i++) {
+				System.out.println("Enter " + ruleSet.getWeapons()[i] + " for " + ruleSet.getWeaponName(i) + ".");
+			}
+			return;
+		}
 		System.out.println("Hello. Play Rock Paper Scissors Lizard Spock with Gegner, an automated player.");
 		System.out.println("\"Scissors cuts Paper covers Rock crushes");
 		System.out.println("Lizard poisons Spock smashes Scissors");
@@ -49,21 +64,23 @@ public class Talker {
 
 	/**
 	 * Obtains from the user (through the console) a valid throw.
+	 * Ends the game if the input ends (e.g. a file piped into the game).
 	 * @return the throw obtained from the user
 	 */
 	public static char askThrow() throws SentinelException{
-		Scanner myScanner = new Scanner(System.in);
+		outputSink.flush();
 		String input = "";
 		while(input.length()!=1){
 			try{
 				System.out.println("Make a throw.");
-				input = myScanner.nextLine();
+				input = readLine();
+				if (input == null) throw new SentinelException(); //the input has ended
 				if (input.equalsIgnoreCase(GameRunner.SENTINEL)) throw new SentinelException(); //Good
 				if (input.length()!=1) throw new InvalidChoiceException(); //Bad
 				if (!isThrowValid(input.charAt(0))) throw new InvalidChoiceException(); //Bad
 			}
 			catch (InvalidChoiceException e){
-				System.out.println("Throw is invalid. You must enter either r, p, s, l, or k.");
+				System.out.println("Throw is invalid. You must enter one of " + new String(ruleSet.getWeapons()) + ".");
 				input = "";
 			}
 		}
@@ -72,66 +89,101 @@ public class Talker {
 	}
 
 	/**
-	 * Gets the last round from myGameRecord. Interprets the Round. 
-	 * Prints on the console the thrower's throw,
-	 * and whether the Player won, drew, or lost.
+	 * Prints the last round of the game through the OutputSink (by default, every round is printed on the console:
+	 * the thrower's throw, and whether the Player won, drew, or lost).
 	 * @param myGameRecord the GameRecord from which Talker obtains information.
 	 */
 	public static void printLastRound(GameRecord myGameRecord){
-		Round lastRound = myGameRecord.getLastRound();
-		System.out.println();
-		System.out.println("Your opponent Gegner threw " + throwCharToString(lastRound.getThrowerChoice()) + ".");
-		System.out.println("You threw " + throwCharToString(lastRound.getPlayerChoice()) + ".");		
-		if(lastRound.getResult() == PLAYER_WIN){
-			System.out.println("You won.");
-		}else if(lastRound.getResult() == THROWER_WIN){
-			System.out.println("You lost.");
-		}else{
-			System.out.println("Draw.");
-		}
-		System.out.println("(Gegner threw this before you did. Gegner did not cheat.)");
+		outputSink.printLastRound(myGameRecord);
 	}
 
 	/**
-	 * Gets all the rounds played from GameRecord. Interprets the rounds.
-	 * Prints on the console the number and percentage of Player wins,
-	 * Player losses, and
-	 * draws.
-	 * Prints the pure percentage of wins and pure percentage of losses, and comments on them.
+	 * Prints the result of the game through the OutputSink: the number and percentage of Player wins,
+	 * Player losses, and draws, and the pure percentage of wins and losses, with comments on them.
 	 * @param myGameRecord the GameRecord from which Talker obtains information.
 	 */
 	public static void printGameResult(GameRecord myGameRecord){
-		ArrayList<Round> rounds = myGameRecord.getRounds();
-		int numRounds = rounds.size();
-		int numWins = countResult(rounds, PLAYER_WIN);
-		int numDraws = countResult(rounds, DRAW);
-		int numLosses = countResult(rounds, THROWER_WIN);
-		System.out.println();
-		System.out.println("-------");
-		System.out.println("Out of the " + numRounds + " rounds,");
-		double percWins = (((double)numWins)/numRounds)*100;
-		System.out.println("you won " + numWins + " rounds (" + percWins + "%),");
-		double percLosses = (((double)numLosses)/numRounds)*100;
-		System.out.println("lost " + numLosses + " rounds (" + percLosses + "%),");
-		double percDraws = (((double)numDraws)/numRounds)*100;
-		System.out.println("and experienced " + numDraws + " draws (" + percDraws + "%).");
-		System.out.println();
-		double pureWinPerc = (((double)numWins)/(numRounds-numDraws))*100;
-		System.out.println("You won " + pureWinPerc + "% of all the non-draw rounds, while ");
-		double pureLossPerc = 100-pureWinPerc;
-		System.out.println("Gegner won " + pureLossPerc + "% of all the non-draw rounds.");
-		if (pureWinPerc < 40) {
-			System.out.println("\nIsn't it worth noting that you won substantially less than 50% of the time?");
-			System.out.println("Trying to develop strategies for this game...doesn't really help.");
+		outputSink.printGameResult(myGameRecord);
+	}
+
+	/**
+	 * Sets the OutputSink through which the rounds and the result of the game are printed.
+	 * Flushes the previous OutputSink first.
+	 * @param sink the OutputSink.
+	 */
+	public static void setOutputSink(OutputSink sink){
+		outputSink.flush();
+		outputSink = sink;
+	}
+
+	/**
+	 * Asks the user how much of a game against an AutomatedPlayer should be printed, and returns the matching OutputSink.
+	 * @return the OutputSink the user chose.
+	 */
+	public static OutputSink askOutputSink() {
+		outputSink.flush();
+		System.out.println("(How much should be printed? v = every round, p = progress every " + PROGRESS_INTERVAL
+				+ " rounds, s = only the result.)");
+		while(true) {
+			String input = askLine();
+			if (input.equalsIgnoreCase("v")) {
+				return new VerboseOutputSink();
+			} else if (input.equalsIgnoreCase("p")) {
+				return new ProgressOutputSink(PROGRESS_INTERVAL);
+			} else if (input.equalsIgnoreCase("s")) {
+				return new SilentOutputSink();
+			} else {
+				System.out.println("Enter a valid choice. v = every round, p = progress, s = only the result.");
+			}
 		}
 	}
 
+	/**
+	 * Returns the RuleSet of the game.
+	 * @return the RuleSet of the game.
+	 */
+	public static RuleSet getRuleSet(){
+		return ruleSet;
+	}
+
+	/**
+	 * Sets the RuleSet of the game. Must be called before any game (or GameRecord, PatternAgent or AutomatedPlayer) is set up,
+	 * and before any other thread is started, since those keep tables sized for the number of throw options.
+	 * @param rules the RuleSet of the game.
+	 */
+	public static void setRuleSet(RuleSet rules){
+		ruleSet = rules;
+	}
+
 	/**
 	 * returns a list of throw choices.
 	 * @return a list of throw choices.
 	 */
 	public static char[] getThrowChoices(){
-		return throwChoices;
+		return ruleSet.getWeapons();
+	}
+	
+	/**
+	 * Returns the index of a throw in the list of throw choices, without searching the list.
+	 * @param myThrow a throw-character
+	 * @return the index of myThrow in getThrowChoices(), or -1 if myThrow is not a valid throw.
+	 */
+	public static int getThrowIndex(char myThrow){
+		return ruleSet.getIndex(myThrow);
+	}
+	
+	/**
+	 * Finds a predator for the given throw choice: its preferred counter-move in the RuleSet.
+	 * Looks the predator up in a table instead of comparing the throw against every throw option.
+	 * @param myThrow the throw choice for whom the method is to find a predator.
+	 * @return a predator for myThrow. (A predator for the last throw option if myThrow is not a valid throw.)
+	 */
+	public static char getPredator(char myThrow){
+		int throwIndex = getThrowIndex(myThrow);
+		if (throwIndex < 0){
+			return ruleSet.getCounter(ruleSet.getNumWeapons() - 1);
+		}
+		return ruleSet.getCounter(throwIndex);
 	}
 	
 	/**
@@ -139,9 +191,9 @@ public class Talker {
 	 * @return true if the Player should be automated
 	 */
 	public static boolean isPlayerAutomated() {
+		outputSink.flush();
 		System.out.println("(To automate the Player, type a.)");
-		Scanner myScanner = new Scanner(System.in);
-		String input = myScanner.nextLine();
+		String input = askLine();
 		if (input.equalsIgnoreCase("a")){
 			return true;
 		}
@@ -153,9 +205,9 @@ public class Talker {
 	 * @return true if the ThrowerBrain should be deactivated
 	 */
 	public static boolean isThrowerBrainDeactivated() {
+		outputSink.flush();
 		System.out.println("(To disable the opponent's AI, type d. If you do so the opponent would only make random throws.)");
-		Scanner myScanner = new Scanner(System.in);
-		String input = myScanner.nextLine();
+		String input = askLine();
 		if (input.equalsIgnoreCase("d")){
 			return true;
 		}
@@ -163,10 +215,10 @@ public class Talker {
 	}
 	
 	public static int askAutomatedPlayerType() {
+		outputSink.flush();
 		System.out.println("(Which type of automization do you want? rr = repeater, ro = rotator, rl = reflector, rz = randomizer, mr = mixer.)");
-		Scanner myScanner = new Scanner(System.in);
 		while(true) {
-			String input = myScanner.nextLine();
+			String input = askLine();
 			if (input.equalsIgnoreCase("rr")) {
 				return REPEATER_PLAYER;
 			} else if (input.equalsIgnoreCase("ro")) {
@@ -188,15 +240,15 @@ public class Talker {
 	 * @return lifespan obtained from the user
 	 */
 	public static int askAutomatedPlayerLifespan() {
+		outputSink.flush();
 		System.out.println("(How many rounds should the Automated Player work for?)");
-		Scanner myScanner = new Scanner(System.in);
 		int lifespan = -1;
 		while (lifespan == -1) {
 			try {
-				String input = myScanner.nextLine();
+				String input = askLine();
 				lifespan = Integer.parseInt(input);
 				if (lifespan < 1) throw new InvalidChoiceException(); //bad
-			} catch (Exception e) {
+			} catch (NumberFormatException | InvalidChoiceException e) {
 				System.out.println("Enter a valid, positive integer.");
 				lifespan = -1;
 			}
@@ -210,15 +262,15 @@ public class Talker {
 	 * @return phase length obtained from the user.
 	 */
 	public static int askPhaseLength() {
+		outputSink.flush();
 		System.out.println("(How many rounds should pass before the Mixer Player randomly chooses the next throwing method?)");
-		Scanner myScanner = new Scanner(System.in);
 		int phaseLength = -1;
 		while (phaseLength == -1) {
 			try {
-				String input = myScanner.nextLine();
+				String input = askLine();
 				phaseLength = Integer.parseInt(input);
 				if (phaseLength < 1) throw new InvalidChoiceException(); //bad
-			} catch (Exception e) {
+			} catch (NumberFormatException | InvalidChoiceException e) {
 				System.out.println("Enter a valid, positive integer.");
 				phaseLength = -1;
 			}
@@ -226,18 +278,61 @@ public class Talker {
 		return phaseLength;
 	}
 
+	/**
+	 * Asks the user whether the Player's throws should come from a script instead of the console.
+	 * @return the path of the script file, "-" for the rest of the console input, or null if the user plays by hand.
+	 */
+	public static String askScriptPath() {
+		outputSink.flush();
+		System.out.println("(To play the throws in a script, type the path of the file, or - for the rest of the input. Otherwise just press enter.)");
+		String input = askLine().trim();
+		if (input.isEmpty()){
+			return null;
+		}
+		return input;
+	}
+
+	/**
+	 * Returns the reader through which all input from the console is read.
+	 * Every prompt reads from this one reader, so lines piped into the game reach the prompts in order.
+	 * @return the reader of the console input.
+	 */
+	public static BufferedReader getInput() {
+		return consoleInput;
+	}
+
+	/**
+	 * Reads a line from the console.
+	 * @return the line, or null if the input has ended.
+	 */
+	private static String readLine() {
+		try {
+			return consoleInput.readLine();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Reads the answer to a question other than the throw, which the game cannot go on without.
+	 * @return the line.
+	 * @throws NoSuchElementException if the input has ended.
+	 */
+	private static String askLine() {
+		String line = readLine();
+		if (line == null) {
+			throw new NoSuchElementException("The input ended before the game was set up.");
+		}
+		return line;
+	}
+
 	/**
 	 * Returns if myThrow is a valid throw.
 	 * @param myThrow the throw to be interpreted
 	 * @return if myThrow is a valid throw.
 	 */
 	private static boolean isThrowValid(char myThrow){
-		String allChoices = ""+ROCK+PAPER+SCISSORS+LIZARD+SPOCK;
-		int throwIndex = allChoices.indexOf(myThrow);
-		if (throwIndex >-1){
-			return true;
-		}
-		return false;
+		return getThrowIndex(myThrow) > -1;
 	}
 	
 	/**
@@ -246,33 +341,12 @@ public class Talker {
 	 * @param myThrow a throw-character
 	 * @return String corresponding to myThrow
 	 */
-	private static String throwCharToString(char myThrow){
-		String allChoices = ""+ROCK+PAPER+SCISSORS+LIZARD+SPOCK;
-		int throwIndex = allChoices.indexOf(myThrow);
-		switch (throwIndex){
-			case 0: return "Rock";
-			case 1: return "Paper";
-			case 2: return "Scissors";
-			case 3: return "Lizard";
-			case 4: return "Spock";
-		}
-		return "";
-	}
-	
-	/**
-	 * Count the frequency of a certain result among an ArrayList of rounds.
-	 * @param rounds the ArrayList of rounds.
-	 * @param result the result to be investigated
-	 * @return frequency of the result
-	 */
-	private static int countResult(ArrayList<Round> rounds, short result){
-		int count = 0;
-		for (Round r : rounds){
-			if (r.getResult() == result){
-				count++;
-			}
+	public static String throwCharToString(char myThrow){
+		int throwIndex = getThrowIndex(myThrow);
+		if (throwIndex < 0){
+			return "";
 		}
-		return count;
+		return ruleSet.getWeaponName(throwIndex);
 	}
 
 	
@@ -312,6 +386,15 @@ public class Talker {
 	public static final short THROWER_WIN = 2354;
 
 
+	/**
+	 * The number of rounds between the lines printed by the ProgressOutputSink the user can choose.
+	 */
+	public static final int PROGRESS_INTERVAL = 1000;
+	/**
+	 * The size of the buffer of the console input, in characters.
+	 */
+	public static final int INPUT_BUFFER_SIZE = 1 << 16;
+
 	/**
 	 * int constant that represents a RepeaterPlayer
 	 */
@@ -334,48 +417,15 @@ public class Talker {
 	public static final int MIXER_PLAYER = -13633;
 	
 	/**
-	 * String constant that represents the list of preys for the rock.
-	 */
-	public static final String ROCK_PREY = "" + Talker.LIZARD + Talker.SCISSORS;
-	/**
-	 * String constant that represents the list of predators for the rock.
-	 */
-	public static final String ROCK_PREDATOR = "" + Talker.SPOCK + Talker.PAPER;
-	/**
-	 * String constant that represents the list of preys for the paper.
-	 */
-	public static final String PAPER_PREY = "" + Talker.SPOCK + Talker.ROCK;
-	/**
-	 * String constant that represents the list of predators for the paper.
-	 */
-	public static final String PAPER_PREDATOR = "" + Talker.LIZARD + Talker.SCISSORS;
-	/**
-	 * String constant that represents the list of preys for the scissors.
-	 */
-	public static final String SCISSORS_PREY = "" + Talker.LIZARD + Talker.PAPER;
-	/**
-	 * String constant that represents the list of predators for the scissors.
-	 */
-	public static final String SCISSORS_PREDATOR = "" + Talker.SPOCK + Talker.ROCK;
-	/**
-	 * String constant that represents the list of preys for the lizard.
+	 * The rules of the game, including all the throw options.
 	 */
-	public static final String LIZARD_PREY = "" + Talker.SPOCK + Talker.PAPER;
+	private static RuleSet ruleSet = RuleSet.RPSLK;
 	/**
-	 * String constant that represents the list of predators for the lizard.
+	 * The OutputSink through which the rounds and the result of the game are printed.
 	 */
-	public static final String LIZARD_PREDATOR = "" + Talker.ROCK + Talker.SCISSORS;
-	/**
-	 * String constant that represents the list of preys for Spock.
-	 */
-	public static final String SPOCK_PREY = "" + Talker.ROCK + Talker.SCISSORS;
-	/**
-	 * String constant that represents the list of predators for Spock.
-	 */
-	public static final String SPOCK_PREDATOR = "" + Talker.LIZARD + Talker.PAPER;
-	
+	private static OutputSink outputSink = new VerboseOutputSink();
 	/**
-	 * An array that encapsulates all the throw options. The options are represented by constants in the Talker class.
+	 * The reader through which all input from the console is read.
 	 */
-	private static char[] throwChoices = {ROCK, PAPER, SCISSORS, LIZARD, SPOCK};
+	private static BufferedReader consoleInput = new BufferedReader(new InputStreamReader(System.in), INPUT_BUFFER_SIZE);
 }
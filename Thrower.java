@@ -1,5 +1,3 @@
-import java.util.Random;
-
 /**
  * The automated opponent of the user Player.
  * 
@@ -36,6 +34,17 @@ public class Thrower {
 		}
 	}
 
+	/**
+	 * Constructor for games that are not controlled through the console (e.g. simulations).
+	 * Uses the given ThrowerBrain instead of asking the user whether it should be deactivated.
+	 * @param myGameRecord the GameRecord in the game.
+	 * @param myBrain the ThrowerBrain the Thrower should consult.
+	 */
+	public Thrower(GameRecord myGameRecord, ThrowerBrain myBrain){
+		this.myGameRecord = myGameRecord;
+		this.myBrain = myBrain;
+	}
+
 	/**
 	 * Gives the ThrowerBrain the command to analyze the Player's last throw.
 	 * Asks the ThrowerBrain to come up with a strategized throw. 
@@ -54,6 +63,14 @@ public class Thrower {
 		myJudge.setThrow(myThrow, this);
 	}
 
+	/**
+	 * Returns the ThrowerBrain the Thrower consults.
+	 * @return the ThrowerBrain the Thrower consults.
+	 */
+	public ThrowerBrain getBrain(){
+		return myBrain;
+	}
+
 	/**
 	 * The "brain" that helps the Thrower to come up with strategized throws to increase the chance of winning against the Player.
 	 */
@@ -1,5 +1,11 @@
-import java.util.ArrayList;
-import java.util.Random;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
 
 /**
  * The "brain" that helps the Thrower to come up with strategized throws to increase the chance of winning against the Player.
@@ -8,15 +14,22 @@ import java.util.Random;
  * 
  * Analyzes past rounds by extracting data from GameRecord and observing patterns by which the user makes decisions.
  * There are three possible patterns ThrowerBrain can observe: Reflector, Repeater, and Rotator.
+ * If asked to when constructed, it also consults a MarkovPatternAgent, which learns which throw usually follows the Player's
+ * 	last two throws and so catches patterns that are none of the three.
  * This is how the ThrowerBrain observes patterns: after the player made a throw, each of the PatternAgents makes a prediction about what
  * 	that throw would be. If the prediction matches the actual throw, the patternDetector's streak +1. If prediction is false, streak = 0.
- * 	(The agents are kept in an array).
+ * 	(The agents are kept in an array, to which any number of agents can be added with registerAgent()).
  * 
  * ThrowerBrain then makes a throw that strategizes against the pattern with the highest streak.
  * 
- * If two patterns have the same streak, reflector is favored over repeater over rotator. 
+ * If two patterns have the same streak, the agent with the higher priority is favored: reflector over rotator over repeater,
+ * 	and all three over the MarkovPatternAgent, if there is one. 
  * If all patterns have streak of 0, submits a random throw.
  * 
+ * Every decision is reported to Java Flight Recorder as a BrainDecisionEvent, and every change of the trusted agent
+ * as an AgentSwitchEvent, both carrying the ThrowerBrain's session id, so the decisions of many games recorded at once
+ * can be told apart. While JFR is not recording these events, reporting them costs a check per round.
+ * 
  * Effectiveness of ThrowerBrain, compared to DeactivatedThrowerBrain, which simply produces random throws:
  * 
  * DeactivatedThrowerBrain's rate of wining against AutomatedPlayers of various kinds.
@@ -70,12 +83,105 @@ public class ThrowerBrain {
 	 * @param myGameRecord the GameRecord in the game.
 	 */
 	public ThrowerBrain(GameRecord myGameRecord) {
+		this(myGameRecord, new XoshiroRandomSource());
+	}
+
+	/**
+	 * Constructor. Gives ThrowerBrain reference to the GameRecord in the game, and the RandomSource it should use for random throws.
+	 * Passing a seeded RandomSource makes the ThrowerBrain's throws reproducible.
+	 * @param myGameRecord the GameRecord in the game.
+	 * @param myRandom the RandomSource used to choose random throws.
+	 */
+	public ThrowerBrain(GameRecord myGameRecord, RandomSource myRandom) {
+		this(myGameRecord, myRandom, false);
+	}
+
+	/**
+	 * Constructor. Gives ThrowerBrain reference to the GameRecord in the game, and the RandomSource it should use for random throws,
+	 * and tells it whether to also consult a MarkovPatternAgent.
+	 * @param myGameRecord the GameRecord in the game.
+	 * @param myRandom the RandomSource used to choose random throws.
+	 * @param markov whether to consult a MarkovPatternAgent before the repeater, rotator, and reflector PatternAgents.
+	 * 	It keeps a table of counts that grows with the number of throw options (see MarkovPatternAgent.MAX_TABLE_SIZE).
+	 */
+	public ThrowerBrain(GameRecord myGameRecord, RandomSource myRandom, boolean markov) {
 		this.myGameRecord = myGameRecord;
-		agents = new PatternAgent[3];
-		agents[REPEATER_PATTERN_AGENT_INDEX] = new RepeaterPatternAgent();
-		agents[ROTATOR_PATTERN_AGENT_INDEX] = new RotatorPatternAgent();
-		agents[REFLECTOR_PATTERN_AGENT_INDEX] = new ReflectorPatternAgent(myGameRecord);
-		myRandom = new Random();
+		agents = new PatternAgent[INITIAL_AGENT_CAPACITY];
+		agentNames = new String[INITIAL_AGENT_CAPACITY];
+		numAgents = 0;
+		if (markov) {
+			registerAgent(new MarkovPatternAgent());
+		}
+		registerAgent(new RepeaterPatternAgent());
+		registerAgent(new RotatorPatternAgent());
+		registerAgent(new ReflectorPatternAgent(myGameRecord));
+		this.myRandom = myRandom;
+		sessionId = nextSessionId.incrementAndGet();
+		trustedAgent = -1;
+		trustedSince = 1;
+	}
+
+	/**
+	 * Returns the id of the game the ThrowerBrain plays, which the JFR events of the ThrowerBrain carry.
+	 * Unless set with setSessionId(), every ThrowerBrain gets its own id, counting from 1, when it is constructed.
+	 * @return the session id.
+	 */
+	public long getSessionId() {
+		return sessionId;
+	}
+
+	/**
+	 * Sets the id of the game the ThrowerBrain plays, e.g. to match an id the game already has elsewhere.
+	 * @param sessionId the session id.
+	 */
+	public void setSessionId(long sessionId) {
+		this.sessionId = sessionId;
+	}
+
+	/**
+	 * Adds a PatternAgent to the agents the ThrowerBrain consults. There is no limit to the number of agents.
+	 * @param agent the PatternAgent to add.
+	 */
+	public void registerAgent(PatternAgent agent) {
+		if (numAgents == agents.length) {
+			agents = Arrays.copyOf(agents, agents.length * 2);
+			agentNames = Arrays.copyOf(agentNames, agentNames.length * 2);
+		}
+		agents[numAgents] = agent;
+		agentNames[numAgents] = agent.getClass().getSimpleName();
+		numAgents++;
+	}
+
+	/**
+	 * Adds every PatternAgent found through java.util.ServiceLoader, i.e. every class listed in a
+	 * META-INF/services/PatternAgent file on the class path. Such agents need a public constructor without parameters,
+	 * so agents that need the GameRecord (like ReflectorPatternAgent) have to be added with registerAgent() instead.
+	 * @return the number of agents added.
+	 */
+	public int registerDiscoveredAgents() {
+		int added = 0;
+		for (PatternAgent agent : ServiceLoader.load(PatternAgent.class)) {
+			registerAgent(agent);
+			added++;
+		}
+		return added;
+	}
+
+	/**
+	 * Returns the number of PatternAgents the ThrowerBrain consults.
+	 * @return the number of PatternAgents.
+	 */
+	public int getNumAgents() {
+		return numAgents;
+	}
+
+	/**
+	 * Returns one of the PatternAgents the ThrowerBrain consults, in the order they were registered.
+	 * @param index the index of the agent, from 0 to getNumAgents()-1.
+	 * @return the PatternAgent with the given index.
+	 */
+	public PatternAgent getAgent(int index) {
+		return agents[index];
 	}
 
 	/**
@@ -83,122 +189,300 @@ public class ThrowerBrain {
 	 * After the player made a throw, each of the PatternAgents makes a prediction about what
 	 * 	that throw would be, based on the player's second to last throw. If the prediction matches the actual throw, 
 	 * 	the patternDetector's streak +1. If prediction is false, streak = 0.
+	 * 	Then each of the PatternAgents is told the actual throw, so that learning agents can learn from it.
+	 * 	Commits the BrainDecisionEvent of the previous suggest(), now that its outcome is known.
 	 */
 	public void analyze() {
-		for (int i = 0; i < agents.length; i++) {
-			ArrayList<Round> allRounds = myGameRecord.getRounds();
-			char playersSecondToLastThrow = allRounds.get(allRounds.size()-2).getPlayerChoice();
-			char playersLastThrow = allRounds.get(allRounds.size()-1).getPlayerChoice();
+		if (pendingDecision != null) {
+			pendingDecision.setOutcome(myGameRecord.getLastRound());
+			pendingDecision.commit();
+			pendingDecision = null;
+		}
+		long numRounds = myGameRecord.getNumRounds();
+		char playersSecondToLastThrow = myGameRecord.getRound(numRounds-2).getPlayerChoice();
+		char playersLastThrow = myGameRecord.getRound(numRounds-1).getPlayerChoice();
+		for (int i = 0; i < numAgents; i++) {
 			if (agents[i].guessPlayersLastThrow(playersSecondToLastThrow) == playersLastThrow) {
 				agents[i].addStreak();
 			} else {
 				agents[i].resetStreak();
 			}
+			agents[i].observe(playersLastThrow);
+		}
+	}
+
+	/**
+	 * Ends the game: commits the BrainDecisionEvent of the last suggest(), which no analyze() will commit any more.
+	 * Its outcome is the one of its round if the round was recorded, or unknown if the game ended before the Player's throw.
+	 */
+	public void endGame() {
+		if (pendingDecision != null) {
+			if (myGameRecord.getNumRounds() >= pendingDecision.round) {
+				pendingDecision.setOutcome(myGameRecord.getLastRound());
+			} else {
+				pendingDecision.setUnknownOutcome();
+			}
+			pendingDecision.commit();
+			pendingDecision = null;
 		}
 	}
 
 	/**
 	 * Suggests the next throw based on analysis of the Player's throw pattern.
 	 * Consults the PatternAgent with the highest streak of correct guesses.
-																			 * If all PatternAge``````nts have streak = 0, returns a random throw. 
-	 * if two patterns have the same streak, reflector is favored. (rotator and repeater would not simultaneously have >1 streak)
+	 * If all PatternAgents have streak = 0, returns a random throw. 
+	 * If two agents have the same streak, the one with the higher priority is favored (see PatternAgent.getPriority()).
 	 */
 	public char suggest() {
-		int indexBest[] = findBestAgent();
+		int indexBest = findBestAgent();
+		if (indexBest != trustedAgent) {
+			switchAgent(indexBest);
+		}
 
 		//if all PatternAgents have streak = 0, returns a random throw. 
-		if (indexBest.length == 0) {
-			return randomThrow();
+		char myThrow;
+		if (indexBest < 0) {
+			myThrow = randomThrow();
+		} else {
+			char playersLastThrow = myGameRecord.getLastRound().getPlayerChoice();
+			myThrow = agents[indexBest].suggest(playersLastThrow);
+		}
+		if (FlightRecorder.isInitialized() && EventTypes.BRAIN_DECISION.isEnabled()) {
+			BrainDecisionEvent decision = new BrainDecisionEvent();
+			decision.sessionId = sessionId;
+			decision.round = myGameRecord.getNumRounds() + 1;
+			decision.agent = getAgentName(indexBest);
+			decision.streak = indexBest < 0 ? 0 : agents[indexBest].getStreak();
+			decision.randomFallback = indexBest < 0;
+			decision.throwerThrow = myThrow;
+			pendingDecision = decision;
+		}
+		return myThrow;
+	}
+
+	/**
+	 * Adds the state that decides the ThrowerBrain's future suggestions to a JointState: the state of its RandomSource
+	 * and of every PatternAgent, and where each agent's streak ranks among the others.
+	 * 
+	 * Only the ranks of the streaks are added, not the streaks, since findBestAgent() only compares streaks with each other
+	 * and with 0, and every streak either grows by one or drops to 0 each round, so the ranks alone decide the next ranks.
+	 * An agent whose streak is 0 ranks 0; any other agent ranks one above the number of agents with a smaller streak that is not 0.
+	 * The streaks keep growing in a game that repeats itself, while their ranks repeat with it.
+	 * @param state the JointState.
+	 * @return whether the state could be added: false if the RandomSource or a PatternAgent cannot add its state.
+	 */
+	public boolean addJointState(JointState state) {
+		if (!myRandom.addJointState(state)) {
+			return false;
 		}
+		for (int i = 0; i < numAgents; i++) {
+			long streak = agents[i].getStreak();
+			int rank = 0;
+			if (streak > 0) {
+				rank = 1;
+				for (int j = 0; j < numAgents; j++) {
+					long otherStreak = agents[j].getStreak();
+					if (otherStreak > 0 && otherStreak < streak) {
+						rank++;
+					}
+				}
+			}
+			state.add(rank);
+			if (!agents[i].addJointState(state)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-		//if only one pattern has the highest streak, this pattern is consulted for the next throw.
-		ArrayList<Round> allRounds = myGameRecord.getRounds();
-		char playersLastThrow = allRounds.get(allRounds.size()-1).getPlayerChoice();
-		if (indexBest.length == 1) {
-			return agents[indexBest[0]].suggest(playersLastThrow);
+	/**
+	 * Carries the ThrowerBrain over rounds that repeat the last cycleLength rounds, cycles times over, without playing them
+	 * (see GameRecord.repeatRounds()): each PatternAgent repeats its guesses (see PatternAgent.repeatGuesses()), and the
+	 * round numbers kept for the JFR events move past the repeated rounds. Called before the rounds are added to the GameRecord.
+	 * @param cycleLength the number of rounds to repeat.
+	 * @param cycleHits the number of correct guesses of each PatternAgent in those rounds, in the order the agents were registered.
+	 * @param cycles the number of times to repeat them.
+	 */
+	public void repeatRounds(int cycleLength, long[] cycleHits, long cycles) {
+		for (int i = 0; i < numAgents; i++) {
+			agents[i].repeatGuesses(cycleLength, cycleHits[i], cycles);
+		}
+		long numRepeated = cycles * cycleLength;
+		if (trustedSince > myGameRecord.getNumRounds() - cycleLength) {
+			trustedSince += numRepeated;
+		}
+		if (pendingDecision != null) {
+			pendingDecision.round += numRepeated;
 		}
+	}
+
+	/**
+	 * Writes the state of the ThrowerBrain, for a GameCheckpoint: the session id, the trusted agent, the state of the RandomSource,
+	 * and the class name and state of every PatternAgent. Sub-classes with state of their own write it after it.
+	 * @param out where to write the state.
+	 * @throws IOException if the state cannot be written.
+	 */
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(sessionId);
+		out.writeInt(trustedAgent);
+		out.writeLong(trustedSince);
+		myRandom.writeState(out);
+		out.writeInt(numAgents);
+		for (int i = 0; i < numAgents; i++) {
+			out.writeUTF(agents[i].getClass().getName());
+			agents[i].writeState(out);
+		}
+	}
 
-		//if two patterns have the same streak, reflector is favored. (rotator and repeater cannot simultaneously have >1 streak)
-		//according to the indexes of agents defined in array, Reflector, if found, would always be the second in the indexBest array
-		return  agents[indexBest[1]].suggest(playersLastThrow);
+	/**
+	 * Reads the state written by writeState() into this ThrowerBrain, whose PatternAgents must be of the same classes
+	 * and registered in the same order as those of the saved ThrowerBrain.
+	 * @param in where to read the state from.
+	 * @throws IOException if the state cannot be read or does not fit the ThrowerBrain.
+	 */
+	public void readState(DataInput in) throws IOException {
+		sessionId = in.readLong();
+		trustedAgent = in.readInt();
+		trustedSince = GameCheckpoint.readCount(in);
+		myRandom.readState(in);
+		int savedAgents = in.readInt();
+		if (savedAgents != numAgents) {
+			throw new IOException("Saved ThrowerBrain has " + savedAgents + " PatternAgents, not " + numAgents);
+		}
+		for (int i = 0; i < numAgents; i++) {
+			GameCheckpoint.checkClass(in, agents[i]);
+			agents[i].readState(in);
+		}
+		pendingDecision = null;
 	}
 
 	/**
-	 * Returns a random throw among the 5 throw options.
-	 * @return a random throw among the 5 throw options.
+	 * Returns a random throw among the throw options.
+	 * @return a random throw among the throw options.
 	 */
 	public char randomThrow() {
-		int myThrowIndex = myRandom.nextInt(5);
 		char[] options = Talker.getThrowChoices();
+		int myThrowIndex = myRandom.nextInt(options.length);
 		char myThrow = options[myThrowIndex];
 		return myThrow;
 	}
 	
 	/**
-	 * Return an array containing the index(s) of the agent(s) with the highest streak of correct guesses.
-	 * If all patterns have streak of 0, returns an empty array. 
-	 * Precondition: there are three agents in the agents[] array.
-	 * @return index of agent with highest streak (indexes as defined in constants)
+	 * Makes the given agent the trusted one, and reports the change as an AgentSwitchEvent.
+	 * @param indexBest the index of the agent to trust from the coming round on, or -1 for random throws.
 	 */
-	private int[] findBestAgent() {
-		//first, checks if all agents has streak == 0. If so, returns an empty array.
-		int totalStreak = 0;
-		for (int i = 0; i < agents.length; i++) {
-			totalStreak = totalStreak + agents[i].getStreak();
-		}
-		if (totalStreak == 0) {
-			return new int[] {};
+	private void switchAgent(int indexBest) {
+		long round = myGameRecord.getNumRounds() + 1;
+		if (FlightRecorder.isInitialized() && EventTypes.AGENT_SWITCH.isEnabled()) {
+			AgentSwitchEvent event = new AgentSwitchEvent();
+			event.sessionId = sessionId;
+			event.round = round;
+			event.previousAgent = getAgentName(trustedAgent);
+			event.previousRounds = round - trustedSince;
+			event.agent = getAgentName(indexBest);
+			event.streak = indexBest < 0 ? 0 : agents[indexBest].getStreak();
+			event.commit();
 		}
+		trustedAgent = indexBest;
+		trustedSince = round;
+	}
 
-		//if not, finds the highest streak and the index of that agent to which this streak belongs.
-		int indexMax = -1;
-		int maxStreak = -1;
-		for (int i = 0; i < agents.length; i++) {
-			if (agents[i].getStreak() > maxStreak) {
-				indexMax = i;
-				maxStreak = agents[i].getStreak();
-			}
-		}
+	/**
+	 * Returns the name of an agent for the JFR events: its simple class name, or "random" for random throws.
+	 * @param index the index of the agent, or -1 for random throws.
+	 * @return the name of the agent.
+	 */
+	private String getAgentName(int index) {
+		return index < 0 ? "random" : agentNames[index];
+	}
 
-		//now, checks if there are agents with the same streak as the max detected.
-		//based on the algorithm above, indexMax is the index of the first agent with its streak value.
-		int indexSecondMax = -1;
-		for (int i = indexMax; i < agents.length; i++) {
-			if (agents[i].getStreak() == maxStreak) {
-				indexSecondMax = i;
+	/**
+	 * Returns the index of the agent with the highest streak of correct guesses, in a single pass over the agents.
+	 * If several agents share the highest streak, the one with the highest priority wins; if they also share the priority,
+	 * the one registered first wins.
+	 * @return index of agent with highest streak, or -1 if all agents have streak of 0.
+	 */
+	private int findBestAgent() {
+		int indexBest = -1;
+		long bestStreak = 0;
+		int bestPriority = 0;
+		for (int i = 0; i < numAgents; i++) {
+			long streak = agents[i].getStreak();
+			if (streak == 0 || streak < bestStreak) {
+				continue;
+			}
+			int priority = agents[i].getPriority();
+			if (streak > bestStreak || priority > bestPriority) {
+				indexBest = i;
+				bestStreak = streak;
+				bestPriority = priority;
 			}
 		}
-		if (indexMax == indexSecondMax) {
-			return new int[] {indexMax};
-		} else {
-			return new int[] {indexMax, indexSecondMax};
-		}
+		return indexBest;
 	}
 
 	/**
 	 * The GameRecord in the game.
 	 */
-	private GameRecord myGameRecord;
+	protected GameRecord myGameRecord;
 	/**
-	 * The array of all PatternAgents.
-	 * The agents are arranged by the constants below.
+	 * The array of all PatternAgents, in the order they were registered.
+	 * Only the first numAgents elements are used; the array grows as agents are registered.
 	 */
 	private PatternAgent [] agents;
+	/**
+	 * The simple class names of the agents, for the JFR events.
+	 */
+	private String [] agentNames;
+	/**
+	 * The number of PatternAgents registered.
+	 */
+	private int numAgents;
+
+	/**
+	 * The id of the game, carried by the JFR events.
+	 */
+	private long sessionId;
+	/**
+	 * The index of the agent trusted in the last suggest(), or -1 for random throws (as in the first rounds of a game).
+	 */
+	private int trustedAgent;
+	/**
+	 * The number of the round since which trustedAgent has been trusted.
+	 */
+	private long trustedSince;
+	/**
+	 * The BrainDecisionEvent of the last suggest(), waiting for the outcome of its round, or null if it is not recorded.
+	 */
+	private BrainDecisionEvent pendingDecision;
 
 	/**
-	 * Index of the RepeaterPatternAgent in the array agents.
+	 * The session id given to the next ThrowerBrain constructed.
 	 */
-	private final int REPEATER_PATTERN_AGENT_INDEX = 0;
+	private static final AtomicLong nextSessionId = new AtomicLong();
 	/**
-	 * Index of the RotatorPatternAgent in the array agents.
+	 * The length of the array agents before it first has to grow.
 	 */
-	private final int ROTATOR_PATTERN_AGENT_INDEX = 1;
+	private static final int INITIAL_AGENT_CAPACITY = 8;
 	/**
-	 * Index of the ReflectorPatternAgent in the array agents.
+	 * A RandomSource used to choose anything random, from a random throw to a random method (mixerThrow())
 	 */
-	private final int REFLECTOR_PATTERN_AGENT_INDEX = 2;
+	protected RandomSource myRandom;
+
 	/**
-	 * A Random used to choose anything random, from a random throw to a random method (mixerThrow())
+	 * Holds the types of the events a ThrowerBrain records. Looking an EventType up initialises JFR, so this class is
+	 * only loaded once FlightRecorder.isInitialized() says that JFR is running, and a ThrowerBrain outside a recording
+	 * never pays for it.
 	 */
-	protected Random myRandom;
+	private static class EventTypes {
+		/**
+		 * The type of BrainDecisionEvent, asked whether it is recorded before an event is created, so that no event is
+		 * created in every round while it is not.
+		 */
+		static final EventType BRAIN_DECISION = EventType.getEventType(BrainDecisionEvent.class);
+		/**
+		 * The type of AgentSwitchEvent, asked whether it is recorded before an event is created.
+		 */
+		static final EventType AGENT_SWITCH = EventType.getEventType(AgentSwitchEvent.class);
+	}
 }
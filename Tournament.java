@@ -0,0 +1,255 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.management.JMException;
+
+/**
+ * Runs a round-robin tournament: every ThrowerBrain variant plays every AutomatedPlayer variant in an independent match.
+ * 
+ * Each match is a SimulationEngine with its own GameRecord, Thrower, Judge and RandomSources, so the matches share no state
+ * and are spread across the threads of a ForkJoinPool. The RandomSource of every match is split from one seeded by the tournament's
+ * seed before any match starts, so the results do not depend on how the matches are scheduled or on the number of threads.
+ * Every match looks for cycles (see SimulationEngine.setCycleDetection()), so a match against a player that settles into
+ * repeating itself, like a RepeaterPlayer, takes about the same time for any number of rounds.
+ * 
+ * The result is a matrix of the Thrower's win percentage out of all rounds that are not draws, like the tables in ThrowerBrain.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class Tournament {
+
+	/**
+	 * Constructor. Starts with no brains and no players.
+	 */
+	public Tournament() {
+		brainNames = new ArrayList<String>();
+		brains = new ArrayList<BrainFactory>();
+		playerNames = new ArrayList<String>();
+		players = new ArrayList<PlayerFactory>();
+	}
+
+	/**
+	 * Runs the default tournament (every brain against every kind of AutomatedPlayer, including mixers that change method
+	 * every 25, 3, and 2 rounds) and prints the win-rate matrix. The metrics of the matches are published through JMX
+	 * while they run (see GameMetrics).
+	 * @param args optionally, the number of rounds per match, the seed, and the name or path of the rule set (see RuleSet.forName()).
+	 */
+	public static void main(String[] args) {
+		long rounds = args.length > 0 ? Long.parseLong(args[0]) : DEFAULT_ROUNDS;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		if (args.length > 2) {
+			try {
+				Talker.setRuleSet(RuleSet.forName(args[2]));
+			} catch (IOException | IllegalArgumentException e) {
+				System.out.println("Cannot load the rule set " + args[2] + ": " + e.getMessage());
+				return;
+			}
+		}
+		Tournament tournament = createDefault();
+		long start = System.nanoTime();
+		GameMetrics metrics = new GameMetrics();
+		try {
+			metrics.register("tournament");
+		} catch (JMException e) {
+			System.out.println("Cannot publish the metrics through JMX: " + e.getMessage());
+		}
+		SimulationResult[][] results = tournament.run(rounds, seed, ForkJoinPool.commonPool(), metrics);
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Thrower's win percentage out of all non-draw rounds, " + rounds + " rounds per match of "
+				+ Talker.getRuleSet().getName() + " (seed " + seed + "):");
+		System.out.print(tournament.formatMatrix(results));
+		double totalRounds = (double) rounds * results.length * results[0].length;
+		System.out.println("Played " + (long) totalRounds + " rounds in " + (elapsed / 1000000) + " ms ("
+				+ (long) (totalRounds * 1000000000 / elapsed) + " rounds/s).");
+	}
+
+	/**
+	 * Creates a tournament between all brains and all kinds of AutomatedPlayers in the game.
+	 * @return the default tournament.
+	 */
+	public static Tournament createDefault() {
+		Tournament tournament = new Tournament();
+		tournament.addBrain("ThrowerBrain", (r, rand) -> new ThrowerBrain(r, rand));
+		tournament.addBrain("ThrowerBrain+Markov", (r, rand) -> new ThrowerBrain(r, rand, true));
+		tournament.addBrain("IocaineThrowerBrain", (r, rand) -> new IocaineThrowerBrain(r, rand));
+		tournament.addBrain("DeactivatedThrowerBrain", (r, rand) -> new DeactivatedThrowerBrain(r, rand));
+		tournament.addPlayer("repeater", (r, lifespan, rand) -> new RepeaterPlayer(r, lifespan, rand));
+		tournament.addPlayer("rotator", (r, lifespan, rand) -> new RotatorPlayer(r, lifespan, rand));
+		tournament.addPlayer("reflector", (r, lifespan, rand) -> new ReflectorPlayer(r, lifespan, rand));
+		tournament.addPlayer("randomizer", (r, lifespan, rand) -> new RandomizerPlayer(r, lifespan, rand));
+		tournament.addPlayer("mixer 25", (r, lifespan, rand) -> new MixerPlayer(r, lifespan, 25, rand));
+		tournament.addPlayer("mixer 3", (r, lifespan, rand) -> new MixerPlayer(r, lifespan, 3, rand));
+		tournament.addPlayer("mixer 2", (r, lifespan, rand) -> new MixerPlayer(r, lifespan, 2, rand));
+		return tournament;
+	}
+
+	/**
+	 * Adds a ThrowerBrain variant to the tournament.
+	 * @param name the name shown in the matrix.
+	 * @param brainFactory creates the ThrowerBrain.
+	 */
+	public void addBrain(String name, BrainFactory brainFactory) {
+		brainNames.add(name);
+		brains.add(brainFactory);
+	}
+
+	/**
+	 * Adds an AutomatedPlayer variant to the tournament.
+	 * @param name the name shown in the matrix.
+	 * @param playerFactory creates the AutomatedPlayer.
+	 */
+	public void addPlayer(String name, PlayerFactory playerFactory) {
+		playerNames.add(name);
+		players.add(playerFactory);
+	}
+
+	/**
+	 * Returns the number of ThrowerBrain variants in the tournament.
+	 * @return the number of brains.
+	 */
+	public int getNumBrains() {
+		return brains.size();
+	}
+
+	/**
+	 * Returns the name of a ThrowerBrain variant.
+	 * @param index the index of the brain, in the order they were added.
+	 * @return the name of the brain.
+	 */
+	public String getBrainName(int index) {
+		return brainNames.get(index);
+	}
+
+	/**
+	 * Returns the factory of a ThrowerBrain variant.
+	 * @param index the index of the brain, in the order they were added.
+	 * @return the factory of the brain.
+	 */
+	public BrainFactory getBrain(int index) {
+		return brains.get(index);
+	}
+
+	/**
+	 * Returns the number of AutomatedPlayer variants in the tournament.
+	 * @return the number of players.
+	 */
+	public int getNumPlayers() {
+		return players.size();
+	}
+
+	/**
+	 * Returns the name of an AutomatedPlayer variant.
+	 * @param index the index of the player, in the order they were added.
+	 * @return the name of the player.
+	 */
+	public String getPlayerName(int index) {
+		return playerNames.get(index);
+	}
+
+	/**
+	 * Returns the factory of an AutomatedPlayer variant.
+	 * @param index the index of the player, in the order they were added.
+	 * @return the factory of the player.
+	 */
+	public PlayerFactory getPlayer(int index) {
+		return players.get(index);
+	}
+
+	/**
+	 * Plays every brain against every player, each match on its own in the given pool.
+	 * @param rounds the number of rounds per match.
+	 * @param seed the seed from which the RandomSource of every match is split.
+	 * @param pool the pool that runs the matches.
+	 * @return the results, indexed by [brain][player] in the order they were added.
+	 */
+	public SimulationResult[][] run(long rounds, long seed, ForkJoinPool pool) {
+		return run(rounds, seed, pool, null);
+	}
+
+	/**
+	 * Plays every brain against every player, each match on its own in the given pool, recording the metrics of all matches.
+	 * @param rounds the number of rounds per match.
+	 * @param seed the seed from which the RandomSource of every match is split.
+	 * @param pool the pool that runs the matches.
+	 * @param metrics the GameMetrics into which every match records, or null.
+	 * @return the results, indexed by [brain][player] in the order they were added.
+	 */
+	public SimulationResult[][] run(long rounds, long seed, ForkJoinPool pool, GameMetrics metrics) {
+		RandomSource myRandom = new XoshiroRandomSource(seed);
+		ArrayList<ForkJoinTask<SimulationResult>> matches = new ArrayList<ForkJoinTask<SimulationResult>>();
+		for (int b = 0; b < brains.size(); b++) {
+			for (int p = 0; p < players.size(); p++) {
+				BrainFactory brainFactory = brains.get(b);
+				PlayerFactory playerFactory = players.get(p);
+				RandomSource matchRandom = myRandom.split();
+				matches.add(pool.submit(() -> {
+					SimulationEngine engine = new SimulationEngine(brainFactory, playerFactory, matchRandom);
+					engine.setCycleDetection(true);
+					if (metrics != null) {
+						engine.setMetrics(metrics);
+					}
+					engine.run(rounds);
+					engine.endGame();
+					return engine.getResult();
+				}));
+			}
+		}
+		SimulationResult[][] results = new SimulationResult[brains.size()][players.size()];
+		for (int b = 0; b < brains.size(); b++) {
+			for (int p = 0; p < players.size(); p++) {
+				results[b][p] = matches.get(b * players.size() + p).join();
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Formats the results as a matrix with one row per brain and one column per player.
+	 * Each cell is the Thrower's win percentage out of all rounds that are not draws.
+	 * @param results the results returned by run().
+	 * @return the matrix, one line per row.
+	 */
+	public String formatMatrix(SimulationResult[][] results) {
+		int nameWidth = 0;
+		for (String name : brainNames) {
+			nameWidth = Math.max(nameWidth, name.length());
+		}
+		StringBuilder matrix = new StringBuilder();
+		matrix.append(String.format("%-" + nameWidth + "s", ""));
+		for (String name : playerNames) {
+			matrix.append(String.format(" | %10s", name));
+		}
+		matrix.append(System.lineSeparator());
+		for (int b = 0; b < results.length; b++) {
+			matrix.append(String.format("%-" + nameWidth + "s", brainNames.get(b)));
+			for (int p = 0; p < results[b].length; p++) {
+				matrix.append(String.format(" | %9.2f%%", results[b][p].getThrowerWinPercentage()));
+			}
+			matrix.append(System.lineSeparator());
+		}
+		return matrix.toString();
+	}
+
+	/**
+	 * The default number of rounds per match.
+	 */
+	public static final long DEFAULT_ROUNDS = 1000000;
+	/**
+	 * The names of the brains, in the order they were added.
+	 */
+	private ArrayList<String> brainNames;
+	/**
+	 * The factories of the brains, in the order they were added.
+	 */
+	private ArrayList<BrainFactory> brains;
+	/**
+	 * The names of the players, in the order they were added.
+	 */
+	private ArrayList<String> playerNames;
+	/**
+	 * The factories of the players, in the order they were added.
+	 */
+	private ArrayList<PlayerFactory> players;
+}
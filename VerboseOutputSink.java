@@ -0,0 +1,52 @@
+import java.io.PrintWriter;
+
+/**
+ * An OutputSink that prints every round: the throws of Gegner and the user, and who won.
+ * This is what a user playing by hand sees.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class VerboseOutputSink extends OutputSink {
+
+	/**
+	 * Constructor. Prints to the console.
+	 */
+	public VerboseOutputSink() {
+		super();
+	}
+
+	/**
+	 * Constructor. Prints to the given writer.
+	 * @param out the writer to print to.
+	 */
+	public VerboseOutputSink(PrintWriter out) {
+		super(out);
+	}
+
+	/**
+	 * Gets the last round from myGameRecord. Interprets the Round. 
+	 * Prints the thrower's throw,
+	 * and whether the Player won, drew, or lost.
+	 * @param myGameRecord the GameRecord from which the sink obtains information.
+	 */
+	@Override
+	public void printLastRound(GameRecord myGameRecord) {
+		Round lastRound = myGameRecord.getLastRound();
+		out.println();
+		out.print("Your opponent Gegner threw ");
+		out.print(Talker.throwCharToString(lastRound.getThrowerChoice()));
+		out.println(".");
+		out.print("You threw ");
+		out.print(Talker.throwCharToString(lastRound.getPlayerChoice()));
+		out.println(".");
+		if (lastRound.getResult() == Talker.PLAYER_WIN) {
+			out.println("You won.");
+		} else if (lastRound.getResult() == Talker.THROWER_WIN) {
+			out.println("You lost.");
+		} else {
+			out.println("Draw.");
+		}
+		out.println("(Gegner threw this before you did. Gegner did not cheat.)");
+	}
+}
@@ -0,0 +1,217 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A GameRecord that only keeps the last few rounds, so that its memory stays the same no matter how many rounds are played.
+ * 
+ * The rounds are packed into single chars (see Round.encode()) in a fixed-size ring buffer that holds the last historyWindow rounds.
+ * The counts of wins, draws, and losses are kept by GameRecord as rounds are added, so they still cover the whole game.
+ * 
+ * Rounds keep the index they would have in a full GameRecord: getRound(getNumRounds()-1) is the last round,
+ * getRound(getNumRounds()-2) the second to last, and so on. Asking for a round that has already left the window
+ * throws an IndexOutOfBoundsException. ThrowerBrain, the PatternAgents and the AutomatedPlayers only ever look at
+ * the last two rounds, so any window of at least 2 rounds is enough for them.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class WindowedGameRecord extends GameRecord {
+
+	/**
+	 * The constructor. Sets up an empty ring buffer.
+	 * @param historyWindow the number of most recent rounds to keep. Must be at least 2.
+	 */
+	public WindowedGameRecord(int historyWindow) {
+		super(false);
+		if (historyWindow < 2) {
+			throw new IllegalArgumentException("History window must be at least 2 rounds: " + historyWindow);
+		}
+		codes = new char[historyWindow];
+		repeated = new char[historyWindow];
+		numRounds = 0;
+		view = new RoundView();
+	}
+
+	/**
+	 * Stores a round of playing in the ring buffer, overwriting the oldest round once the buffer is full.
+	 * The result is not stored, because it follows from the two throws.
+	 * @param playerChoice the user's throw
+	 * @param throwerChoice the thrower's throw
+	 * @param result who won, or if the game resulted in a draw
+	 */
+	@Override
+	protected void storeRound(char throwerChoice, char playerChoice, short result) {
+		int code = Round.encode(throwerChoice, playerChoice);
+		if (code < 0) {
+			throw new IllegalArgumentException("Invalid throw: " + throwerChoice + ", " + playerChoice);
+		}
+		codes[next] = (char) code;
+		next++;
+		if (next == codes.length) {
+			next = 0;
+		}
+		numRounds++;
+	}
+
+	/**
+	 * Stores the last cycleLength rounds again, cycles times over, in the time it takes to rewrite the window once.
+	 * A window position that will hold one of the repeated rounds gets the round of the cycle it repeats; any other position
+	 * gets the round that will be as many rounds back as it, which is already in the window. The new window is built in a
+	 * second buffer, which then takes the place of codes, so that no buffer is allocated.
+	 * @param cycleLength the number of rounds to repeat.
+	 * @param cycles the number of times to repeat them.
+	 */
+	@Override
+	protected void storeRepeatedRounds(int cycleLength, long cycles) {
+		long numRepeated = cycles * cycleLength;
+		for (int back = 1; back <= codes.length; back++) {
+			long oldBack = back > numRepeated ? back - numRepeated : (back - 1) % cycleLength + 1;
+			repeated[getPosition(back)] = codes[getPosition((int) oldBack)];
+		}
+		char[] old = codes;
+		codes = repeated;
+		repeated = old;
+		numRounds += numRepeated;
+	}
+
+	/**
+	 * Returns the position in codes of the round the given number of rounds back, counting the last round as 1 round back.
+	 * @param back the number of rounds back, from 1 to the length of codes.
+	 * @return the position in codes.
+	 */
+	private int getPosition(int back) {
+		int position = next - back;
+		if (position < 0) {
+			position += codes.length;
+		}
+		return position;
+	}
+
+	/**
+	 * Returns a read-only list of all the rounds that were played. Only the rounds still in the window can be read from it,
+	 * and only while their index fits in an int; past Integer.MAX_VALUE rounds, the list stops growing.
+	 * @return a list of all the rounds that were played
+	 */
+	@Override
+	public List<Round> getRounds() {
+		return view;
+	}
+
+	/**
+	 * Returns the round with the given index (the first round played has index 0).
+	 * @param index the index of the round
+	 * @return the round with the given index
+	 * @throws IndexOutOfBoundsException if the round was never played or has left the window
+	 */
+	@Override
+	public Round getRound(long index) {
+		long roundsBack = numRounds - index;
+		if (index < 0 || roundsBack < 1 || roundsBack > codes.length) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + numRounds + ", Window: " + codes.length);
+		}
+		return Round.decode(codes[getPosition((int) roundsBack)]);
+	}
+
+	/**
+	 * Returns the last round that was played
+	 * @return the last round that was played
+	 */
+	@Override
+	public Round getLastRound() {
+		return getRound(numRounds - 1);
+	}
+
+	/**
+	 * Returns the number of rounds already played.
+	 * @return the number of rounds already played.
+	 */
+	@Override
+	public long getNumRounds() {
+		return numRounds;
+	}
+
+	/**
+	 * Writes the number of rounds played, then the rounds in the window, the oldest first, so a checkpoint of a game of
+	 * any length takes the same room.
+	 * @param out where to write the rounds.
+	 * @throws IOException if the rounds cannot be written.
+	 */
+	@Override
+	protected void writeRounds(DataOutput out) throws IOException {
+		int numKept = (int) Math.min(numRounds, codes.length);
+		out.writeLong(numRounds);
+		out.writeInt(numKept);
+		for (long i = numRounds - numKept; i < numRounds; i++) {
+			Round round = getRound(i);
+			out.writeChar(Round.encode(round.getThrowerChoice(), round.getPlayerChoice()));
+		}
+	}
+
+	/**
+	 * Reads the rounds written by writeRounds(). If the saved window was larger, only the last historyWindow rounds are kept.
+	 * @param in where to read the rounds from.
+	 * @throws IOException if the rounds cannot be read.
+	 */
+	@Override
+	protected void readRounds(DataInput in) throws IOException {
+		long numSaved = GameCheckpoint.readCount(in);
+		int numKept = in.readInt();
+		if (numKept < 0 || numKept > numSaved) {
+			throw new IOException("More rounds kept than played: " + numKept + ", " + numSaved);
+		}
+		for (int i = 0; i < numKept; i++) {
+			Round round = GameCheckpoint.readRound(in);
+			storeRound(round.getThrowerChoice(), round.getPlayerChoice(), round.getResult());
+		}
+		numRounds = numSaved;
+	}
+
+	/**
+	 * Returns the number of most recent rounds that are kept.
+	 * @return the number of most recent rounds that are kept.
+	 */
+	public int getHistoryWindow() {
+		return codes.length;
+	}
+
+	/**
+	 * A read-only list view of the rounds in the window.
+	 */
+	private class RoundView extends AbstractList<Round> implements RandomAccess {
+
+		@Override
+		public Round get(int index) {
+			return getRound(index);
+		}
+
+		@Override
+		public int size() {
+			return (int) Math.min(numRounds, Integer.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * The ring buffer of the codes of the most recent rounds.
+	 */
+	private char[] codes;
+	/**
+	 * The buffer in which storeRepeatedRounds() builds the next window, as long as codes.
+	 */
+	private char[] repeated;
+	/**
+	 * The position in codes where the next round will be stored.
+	 */
+	private int next;
+	/**
+	 * The number of rounds played.
+	 */
+	private long numRounds;
+	/**
+	 * The list view handed out by getRounds().
+	 */
+	private RoundView view;
+}
@@ -0,0 +1,181 @@
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A RandomSource based on the xoshiro256** generator by David Blackman and Sebastiano Vigna.
+ * 
+ * The state is four longs in plain fields, so a number takes a few shifts and xors and never creates objects or
+ * does atomic operations (unlike java.util.Random, whose seed is an AtomicLong). The seed is spread over the four longs
+ * with the SplitMix64 generator, as the authors recommend, so that similar seeds give unrelated numbers.
+ * split() seeds the new XoshiroRandomSource with the next long of this one.
+ * 
+ * @author Haidun Liu
+ * @version 1.02
+ */
+public class XoshiroRandomSource implements RandomSource {
+
+	/**
+	 * Constructor. Seeds the XoshiroRandomSource with an unpredictable seed, for games that need not be reproducible.
+	 */
+	public XoshiroRandomSource() {
+		this(ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Constructor. Two XoshiroRandomSources created with the same seed produce the same numbers.
+	 * @param seed the seed.
+	 */
+	public XoshiroRandomSource(long seed) {
+		long x = seed;
+		x += SPLITMIX_GAMMA;
+		s0 = mix(x);
+		x += SPLITMIX_GAMMA;
+		s1 = mix(x);
+		x += SPLITMIX_GAMMA;
+		s2 = mix(x);
+		x += SPLITMIX_GAMMA;
+		s3 = mix(x);
+	}
+
+	/**
+	 * Returns a random int from 0 (inclusive) to bound (exclusive), with every value equally likely.
+	 * Multiplies 32 random bits by the bound instead of taking a remainder, and draws again in the rare case
+	 * the product would favor some values (Lemire's method).
+	 */
+	@Override
+	public int nextInt(int bound) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("Bound must be positive: " + bound);
+		}
+		long product = (nextLong() >>> 32) * bound;
+		long low = product & 0xFFFFFFFFL;
+		if (low < bound) {
+			long threshold = (0x100000000L - bound) % bound;
+			while (low < threshold) {
+				product = (nextLong() >>> 32) * bound;
+				low = product & 0xFFFFFFFFL;
+			}
+		}
+		return (int) (product >>> 32);
+	}
+
+	/**
+	 * Fills part of an array with random ints from 0 (inclusive) to bound (exclusive), in the same way as nextInt(bound).
+	 * Keeps the state in local variables for the whole block and writes it back once at the end,
+	 * instead of loading and storing the four fields for every int.
+	 */
+	@Override
+	public void nextInts(int bound, int[] dest, int offset, int length) {
+		if (bound <= 0) {
+			throw new IllegalArgumentException("Bound must be positive: " + bound);
+		}
+		long threshold = (0x100000000L - bound) % bound;
+		long x0 = s0, x1 = s1, x2 = s2, x3 = s3;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			long product;
+			do {
+				long result = Long.rotateLeft(x1 * 5, 7) * 9;
+				long t = x1 << 17;
+				x2 ^= x0;
+				x3 ^= x1;
+				x1 ^= x2;
+				x0 ^= x3;
+				x2 ^= t;
+				x3 = Long.rotateLeft(x3, 45);
+				product = (result >>> 32) * bound;
+			} while ((product & 0xFFFFFFFFL) < threshold);
+			dest[i] = (int) (product >>> 32);
+		}
+		s0 = x0;
+		s1 = x1;
+		s2 = x2;
+		s3 = x3;
+	}
+
+	/**
+	 * Returns the next long of the xoshiro256** sequence.
+	 */
+	@Override
+	public long nextLong() {
+		long result = Long.rotateLeft(s1 * 5, 7) * 9;
+		long t = s1 << 17;
+		s2 ^= s0;
+		s3 ^= s1;
+		s1 ^= s2;
+		s0 ^= s3;
+		s2 ^= t;
+		s3 = Long.rotateLeft(s3, 45);
+		return result;
+	}
+
+	/**
+	 * Adds the four longs of the state to a JointState.
+	 */
+	@Override
+	public boolean addJointState(JointState state) {
+		state.add(s0);
+		state.add(s1);
+		state.add(s2);
+		state.add(s3);
+		return true;
+	}
+
+	/**
+	 * Writes the four longs of the state.
+	 */
+	@Override
+	public void writeState(DataOutput out) throws IOException {
+		out.writeLong(s0);
+		out.writeLong(s1);
+		out.writeLong(s2);
+		out.writeLong(s3);
+	}
+
+	/**
+	 * Reads the four longs of the state.
+	 */
+	@Override
+	public void readState(DataInput in) throws IOException {
+		long x0 = in.readLong();
+		long x1 = in.readLong();
+		long x2 = in.readLong();
+		long x3 = in.readLong();
+		if ((x0 | x1 | x2 | x3) == 0) {
+			throw new IOException("The state of a XoshiroRandomSource cannot be all 0");
+		}
+		s0 = x0;
+		s1 = x1;
+		s2 = x2;
+		s3 = x3;
+	}
+
+	/**
+	 * Creates a new XoshiroRandomSource seeded with the next long of this one.
+	 */
+	@Override
+	public RandomSource split() {
+		return new XoshiroRandomSource(nextLong());
+	}
+
+	/**
+	 * The output function of SplitMix64, used to spread a seed over the state.
+	 * @param x the SplitMix64 state.
+	 * @return a well-mixed long.
+	 */
+	private static long mix(long x) {
+		x = (x ^ (x >>> 30)) * 0xBF58476D1CE4E5B9L;
+		x = (x ^ (x >>> 27)) * 0x94D049BB133111EBL;
+		return x ^ (x >>> 31);
+	}
+
+	/**
+	 * The increment of the SplitMix64 state.
+	 */
+	private static final long SPLITMIX_GAMMA = 0x9E3779B97F4A7C15L;
+	/**
+	 * The four longs of the xoshiro256** state. They are never all 0.
+	 */
+	private long s0, s1, s2, s3;
+}